@@ -0,0 +1,56 @@
+#!/bin/bash
+# Compares time to first request and resident memory of the fat jar with the AppCDS packaging (-Pcds),
+# on the default H2 configuration. Run from api/ after: ./mvnw -Pcds -DskipTests package
+#
+# usage: scripts/startup-footprint.sh [runs]    (JAVA_OPTS is passed to every variant, e.g. -Xmx256m)
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18181}
+URL="http://localhost:$PORT/api/products/seasonal/forecast"
+TARGET=target
+FAT_JAR=$(ls $TARGET/*.jar | grep -v -- '-cds.jar' | head -1)
+CDS_JAR=$(ls $TARGET/cds/*-cds.jar | head -1)
+ARCHIVE=$TARGET/cds/app.jsa
+
+[ -f "$FAT_JAR" ] && [ -f "$CDS_JAR" ] && [ -f "$ARCHIVE" ] \
+  || { echo "Build first: ./mvnw -Pcds -DskipTests package" >&2; exit 1; }
+
+# Prints "<milliseconds to first 200> <VmRSS kB after it>"
+measure() {
+  local start pid elapsed rss
+  start=$(date +%s%N)
+  java ${JAVA_OPTS:-} "$@" --server.port=$PORT > /dev/null 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$URL"; do
+    kill -0 $pid 2>/dev/null || { echo "Application exited before serving $URL" >&2; exit 1; }
+    sleep 0.05
+  done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss=$(awk '/^VmRSS/ {print $2}' /proc/$pid/status)
+  kill $pid
+  wait $pid 2>/dev/null || true
+  echo "$elapsed $rss"
+}
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : int((values[NR / 2] + values[NR / 2 + 1]) / 2) }'
+}
+
+report() {
+  local name=$1; shift
+  local results=()
+  measure "$@" > /dev/null # warms the page cache, not counted
+  for _ in $(seq "$RUNS"); do
+    results+=("$(measure "$@")")
+  done
+  printf '%-22s %10s %10s\n' "$name" \
+    "$(printf '%s\n' "${results[@]}" | cut -d' ' -f1 | median)" \
+    "$(printf '%s\n' "${results[@]}" | cut -d' ' -f2 | median)"
+}
+
+echo "Median of $RUNS runs"
+printf '%-22s %10s %10s\n' "variant" "first-req" "rss-kB"
+report "fat jar" -jar "$FAT_JAR"
+report "thin jar" -Xshare:auto -jar "$CDS_JAR"
+report "thin jar + AppCDS" -XX:SharedArchiveFile="$ARCHIVE" -Xlog:cds=off -jar "$CDS_JAR"
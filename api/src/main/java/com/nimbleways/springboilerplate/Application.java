@@ -2,12 +2,32 @@ package com.nimbleways.springboilerplate;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
+	// Enough for the steps of one startup; exposed by the startup endpoint of the faststart profile
+	private static final int STARTUP_STEPS_CAPACITY = 4096;
+
 	public static void main(final String[] args) {
-		SpringApplication.run(Application.class, args);
+		SpringApplication application = new SpringApplication(Application.class);
+		if (isProfileActive("faststart", args)) {
+			application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+		}
+		application.run(args);
+	}
+
+	// Before the context exists: from --spring.profiles.active, the system property or SPRING_PROFILES_ACTIVE
+	static boolean isProfileActive(String profile, String... args) {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+		return environment.acceptsProfiles(Profiles.of(profile));
 	}
 
 }
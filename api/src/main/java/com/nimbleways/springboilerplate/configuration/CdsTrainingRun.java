@@ -0,0 +1,55 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Training run of the {@code cds} build profile: once started, serves one request so that the classes of the request
+ * path are loaded too, then closes the context. The JVM exits with it and writes the class data sharing archive
+ * requested by {@code -XX:ArchiveClassesAtExit}.
+ */
+@Component
+@ConditionalOnProperty(name = "startup.cds-training-run", havingValue = "true")
+public class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CdsTrainingRun.class);
+
+    static final String WARM_UP_PATH = "/products/seasonal/forecast";
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        if (context instanceof WebServerApplicationContext webContext) {
+            warmUp(webContext.getWebServer().getPort(),
+                    context.getEnvironment().getProperty("server.servlet.context-path", ""));
+        }
+        context.close();
+    }
+
+    private static void warmUp(int port, String contextPath) {
+        URI uri = URI.create("http://localhost:" + port + contextPath + WARM_UP_PATH);
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            logger.info("CDS training request {} answered {}", uri, response.statusCode());
+        } catch (IOException e) {
+            logger.warn("CDS training request {} failed, the archive will only cover startup", uri, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Startup shortcuts switched on by the {@code faststart} profile, for replicas started by the autoscaler.
+ * Both post-processors are static so that they do not pull this configuration in early.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FastStartConfiguration {
+
+    @Bean
+    // A YAML list only exposes indexed properties
+    @ConditionalOnProperty(name = "startup.lazy-packages[0]")
+    public static LazyBeanPackagesPostProcessor lazyBeanPackagesPostProcessor(Environment environment) {
+        return new LazyBeanPackagesPostProcessor(Binder.get(environment)
+                .bind("startup.lazy-packages", Bindable.listOf(String.class))
+                .orElse(List.of()));
+    }
+
+    @Bean
+    @ConditionalOnClass(SpringLiquibase.class)
+    @ConditionalOnProperty(name = "startup.liquibase.skip-when-unchanged", havingValue = "true")
+    public static LiquibaseFingerprintGuard liquibaseFingerprintGuard() {
+        return new LiquibaseFingerprintGuard();
+    }
+}
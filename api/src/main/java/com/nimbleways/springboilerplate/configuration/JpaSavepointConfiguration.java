@@ -0,0 +1,27 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+/**
+ * Savepoints for the nested transaction of each order item. The dialect goes on the entity manager factory, not on
+ * the transaction manager, because the transaction manager takes the factory's dialect when it is initialised.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JpaSavepointConfiguration {
+
+    @Bean
+    public static BeanPostProcessor savepointJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean factory) {
+                    factory.setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Marks the beans of the given packages lazy, whether declared as classes or by {@code @Bean} methods of a
+ * configuration class in those packages, overriding the {@code @Lazy(false)} springdoc declares. Unlike
+ * {@code spring.main.lazy-initialization}, the request path stays eager, so the first order after startup does not
+ * pay for initialising it.
+ */
+public class LazyBeanPackagesPostProcessor implements BeanFactoryPostProcessor {
+
+    private final List<String> packages;
+
+    public LazyBeanPackagesPostProcessor(List<String> packages) {
+        this.packages = packages.stream().map(name -> name.endsWith(".") ? name : name + ".").toList();
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            if (definition.getRole() != BeanDefinition.ROLE_INFRASTRUCTURE && inPackages(definition)) {
+                definition.setLazyInit(true);
+            }
+        }
+    }
+
+    private boolean inPackages(BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        if (className == null && definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            className = factoryMethod == null ? null : factoryMethod.getDeclaringClassName();
+        }
+        return className != null && packages.stream().anyMatch(className::startsWith);
+    }
+}
@@ -0,0 +1,130 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Skips the Liquibase update, and with it the checksum validation of every applied changeset, when the changelog
+ * files are byte-for-byte those of the last successful run against this database. The fingerprint is a SHA-256 of
+ * the changelog directory, recorded in {@code schema_fingerprints} after each run; any change to a changeset, or a
+ * database migrated by another version, shows up as a different fingerprint and Liquibase runs as usual.
+ */
+public class LiquibaseFingerprintGuard implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiquibaseFingerprintGuard.class);
+
+    static final String FINGERPRINT_NAME = "liquibase";
+
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+    private String pendingFingerprint;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof SpringLiquibase liquibase) {
+            String fingerprint = fingerprint(liquibase.getChangeLog());
+            if (fingerprint.equals(storedFingerprint(liquibase).orElse(null))) {
+                logger.info("Liquibase changelog unchanged since the last run ({}), skipping update", fingerprint);
+                liquibase.setShouldRun(false);
+            } else {
+                pendingFingerprint = fingerprint;
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof SpringLiquibase liquibase && pendingFingerprint != null) {
+            storeFingerprint(liquibase, pendingFingerprint);
+            pendingFingerprint = null;
+        }
+        return bean;
+    }
+
+    /**
+     * SHA-256 over the path and content of every file next to, or below, the master changelog.
+     */
+    String fingerprint(String changeLog) {
+        String location = changeLog.substring(changeLog.indexOf(':') + 1);
+        String directory = location.substring(0, location.lastIndexOf('/') + 1);
+        try {
+            List<Resource> files = Arrays.stream(resourceResolver.getResources("classpath*:" + directory + "**/*"))
+                    .filter(Resource::isReadable)
+                    .sorted(Comparator.comparing(resource -> relativePath(resource, directory)))
+                    .toList();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource file : files) {
+                digest.update(relativePath(file, directory).getBytes(StandardCharsets.UTF_8));
+                try (InputStream content = file.getInputStream()) {
+                    digest.update(content.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the Liquibase changelog " + changeLog, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Optional<String> storedFingerprint(SpringLiquibase liquibase) {
+        try {
+            return new JdbcTemplate(liquibase.getDataSource())
+                    .queryForList("select fingerprint from schema_fingerprints where name = ?", String.class,
+                            FINGERPRINT_NAME)
+                    .stream().findFirst();
+        } catch (DataAccessException e) {
+            // First run against this database: the table is created by the changelog itself
+            logger.debug("No stored Liquibase fingerprint", e);
+            return Optional.empty();
+        }
+    }
+
+    private static void storeFingerprint(SpringLiquibase liquibase, String fingerprint) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(liquibase.getDataSource());
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = jdbcTemplate.update("update schema_fingerprints set fingerprint = ?, updated_at = ? where name = ?",
+                fingerprint, now, FINGERPRINT_NAME);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("insert into schema_fingerprints (name, fingerprint, updated_at) values (?, ?, ?)",
+                        FINGERPRINT_NAME, fingerprint, now);
+            } catch (DuplicateKeyException e) {
+                // Another instance recorded it concurrently after running the same changelog
+                logger.debug("Liquibase fingerprint recorded concurrently", e);
+            }
+        }
+    }
+
+    private static String relativePath(Resource resource, String directory) {
+        try {
+            String url = resource.getURL().toString();
+            return url.substring(url.lastIndexOf(directory) + directory.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections opened inside a {@code @Transactional(readOnly = true)} transaction to the replica and all
+ * others to the primary. Must sit behind a lazy proxy: the read-only flag is only known once the transaction has
+ * started, after the transaction manager asked for its connection.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,196 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link HibernateJpaDialect} with JDBC savepoints on the session's connection, which Spring's dialect does not
+ * offer, so that {@code Propagation.NESTED} works with the JPA transaction manager. Rolling back to a savepoint
+ * restores the rows only: entities changed since then keep their in-memory state until they are refreshed.
+ * <p>
+ * Work committed elsewhere on behalf of a transaction, which a savepoint cannot roll back, can be undone with
+ * {@link #onRollback} once the transaction completes.
+ */
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(SavepointHibernateJpaDialect.class);
+
+    // Transactions begun on this thread, the current one first: a REQUIRES_NEW one stacks on the one it suspends
+    private static final ThreadLocal<Deque<SavepointTransactionData>> transactions =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Runs {@code undo} after the current transaction completes if the work done since its innermost savepoint was
+     * rolled back: to that savepoint, to an enclosing one, or with the whole transaction. Without a savepoint, if the
+     * transaction rolls back.
+     */
+    public static void onRollback(Runnable undo) {
+        SavepointTransactionData transaction = transactions.get().peek();
+        if (transaction != null) {
+            transaction.onRollback(undo);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            UndoOnRollback undoOnRollback = new UndoOnRollback();
+            undoOnRollback.undo.add(undo);
+            TransactionSynchronizationManager.registerSynchronization(undoOnRollback);
+        } else {
+            throw new IllegalStateException("No transaction to undo work on behalf of");
+        }
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        SavepointTransactionData data = new SavepointTransactionData(super.beginTransaction(entityManager, definition),
+                entityManager.unwrap(Session.class));
+        transactions.get().push(data);
+        return data;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof SavepointTransactionData data) {
+            Deque<SavepointTransactionData> begun = transactions.get();
+            begun.remove(data);
+            if (begun.isEmpty()) {
+                transactions.remove();
+            }
+            super.cleanupTransaction(data.delegate);
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    /**
+     * Undo actions of a transaction, run once it completes: those of rolled back savepoints in any case, the others
+     * if the transaction rolls back. Compared by identity, as the synchronizations of a transaction are a set.
+     */
+    private static final class UndoOnRollback implements TransactionSynchronization {
+
+        private final List<Runnable> undo = new ArrayList<>();
+        private final List<Runnable> rolledBack = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+                rolledBack.addAll(undo);
+            }
+            for (Runnable action : rolledBack) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.error("Could not undo work done on behalf of a rolled back transaction", e);
+                }
+            }
+        }
+    }
+
+    private record OpenSavepoint(Savepoint savepoint, List<Runnable> undo) {
+    }
+
+    private static final class SavepointTransactionData implements SavepointManager {
+
+        private final Object delegate;
+        private final Session session;
+        private final Deque<OpenSavepoint> savepoints = new ArrayDeque<>();
+        private UndoOnRollback undoOnRollback;
+        private int savepointCounter;
+
+        SavepointTransactionData(Object delegate, Session session) {
+            this.delegate = delegate;
+            this.session = session;
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            String name = "SAVEPOINT_" + ++savepointCounter;
+            Savepoint savepoint;
+            try {
+                savepoint = session.doReturningWork(connection -> connection.setSavepoint(name));
+            } catch (HibernateException e) {
+                throw new CannotCreateTransactionException("Could not create JDBC savepoint", e);
+            }
+            savepoints.push(new OpenSavepoint(savepoint, new ArrayList<>()));
+            return savepoint;
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.rollback((Savepoint) savepoint));
+            } catch (HibernateException e) {
+                throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+            }
+            // Spring releases the savepoint right after, which then has nothing left to hand on
+            for (OpenSavepoint open : savepoints) {
+                undoOnRollback().rolledBack.addAll(open.undo());
+                open.undo().clear();
+                if (open.savepoint() == savepoint) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.releaseSavepoint((Savepoint) savepoint));
+            } catch (HibernateException e) {
+                // Released with the transaction anyway, as in Spring's JDBC savepoint support
+                logger.debug("Could not explicitly release JDBC savepoint", e);
+            }
+            // Its work is now part of the enclosing savepoint's, or of the transaction's
+            while (!savepoints.isEmpty()) {
+                OpenSavepoint released = savepoints.pop();
+                enclosingUndo().addAll(released.undo());
+                if (released.savepoint() == savepoint) {
+                    break;
+                }
+            }
+        }
+
+        void onRollback(Runnable undo) {
+            OpenSavepoint innermost = savepoints.peek();
+            if (innermost != null) {
+                innermost.undo().add(undo);
+            } else {
+                undoOnRollback().undo.add(undo);
+            }
+        }
+
+        private List<Runnable> enclosingUndo() {
+            OpenSavepoint enclosing = savepoints.peek();
+            return enclosing != null ? enclosing.undo() : undoOnRollback().undo;
+        }
+
+        // Registered with the transaction the first time it is needed, on the thread that runs the transaction
+        private UndoOnRollback undoOnRollback() {
+            if (undoOnRollback == null) {
+                undoOnRollback = new UndoOnRollback();
+                TransactionSynchronizationManager.registerSynchronization(undoOnRollback);
+            }
+            return undoOnRollback;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+
+/**
+ * Hibernate second-level cache backed by a local Ehcache JCache manager. {@link Product} is annotated as cacheable;
+ * {@link Order} and its items collection are declared here because the entity itself must not change.
+ */
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfiguration {
+
+    public static final String PRODUCTS_REGION = "products";
+    public static final String ORDERS_REGION = "orders";
+    public static final String ORDER_ITEMS_REGION = "order-items";
+
+    private static final List<String> REGIONS = List.of(PRODUCTS_REGION, ORDERS_REGION, ORDER_ITEMS_REGION);
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cache.second-level.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        // A manager of its own, not the JVM-wide default, so several application contexts can coexist
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("hibernate-cache-" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+        for (String region : REGIONS) {
+            SecondLevelCacheProperties.Region settings = properties.getRegions()
+                    .getOrDefault(region, new SecondLevelCacheProperties.Region());
+            cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(settings.getMaxEntries()))
+                            .withExpiry(settings.getTimeToLive() == null
+                                    ? ExpiryPolicyBuilder.noExpiration()
+                                    : ExpiryPolicyBuilder.timeToLiveExpiration(settings.getTimeToLive()))));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.second-level.enabled", havingValue = "true", matchIfMissing = true)
+    public HibernatePropertiesCustomizer secondLevelCacheEnabler(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Every region is created above, so a missing one is a mapping mistake
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            hibernateProperties.put(AvailableSettings.CLASS_CACHE_PREFIX + "." + Order.class.getName(),
+                    "read-write," + ORDERS_REGION);
+            hibernateProperties.put(AvailableSettings.COLLECTION_CACHE_PREFIX + "." + Order.class.getName() + ".items",
+                    "read-write," + ORDER_ITEMS_REGION);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.second-level.enabled", havingValue = "false")
+    public HibernatePropertiesCustomizer secondLevelCacheDisabler() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+    }
+}
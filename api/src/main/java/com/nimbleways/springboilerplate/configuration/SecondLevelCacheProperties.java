@@ -0,0 +1,31 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache.second-level")
+public class SecondLevelCacheProperties {
+
+    private boolean enabled = true;
+
+    /** Per-region overrides, keyed by region name; regions not listed use the defaults of {@link Region}. */
+    private Map<String, Region> regions = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+
+        private long maxEntries = 10_000;
+
+        /** Null keeps entries until evicted by size or invalidated by an update. */
+        private Duration timeToLive;
+    }
+}
@@ -0,0 +1,82 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * OpenTelemetry tracing of order processing. Every {@link SpanExporter} bean gets a batch processor: OTLP over HTTP
+ * or OTLP JSON log lines, picked by {@code tracing.exporter}, or one declared by a test. A root trace is sampled with
+ * {@code tracing.sampling.probability}; a trace started by the gateway keeps the gateway's decision. Without an
+ * exporter nothing is sampled, so the spans cost next to nothing.
+ */
+@Configuration
+public class TracingConfiguration {
+
+    public static final String INSTRUMENTATION_NAME = "com.nimbleways.springboilerplate";
+
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "otlp")
+    public SpanExporter otlpSpanExporter(
+            @Value("${tracing.otlp.endpoint:http://localhost:4318/v1/traces}") String endpoint,
+            @Value("${tracing.otlp.timeout:10s}") Duration timeout) {
+        return OtlpHttpSpanExporter.builder().setEndpoint(endpoint).setTimeout(timeout).build();
+    }
+
+    // One OTLP JSON line per batch on the io.opentelemetry.exporter.logging.otlp logger, which can go to its own file
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "logging")
+    public SpanExporter loggingSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+
+    @Bean(destroyMethod = "close")
+    public SdkTracerProvider tracerProvider(ObjectProvider<SpanExporter> exporters,
+            @Value("${tracing.sampling.probability:0.01}") double probability,
+            @Value("${spring.application.name:springboilerplate}") String serviceName) {
+        List<SpanExporter> spanExporters = exporters.orderedStream().toList();
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(SERVICE_NAME, serviceName))))
+                .setSampler(spanExporters.isEmpty()
+                        ? Sampler.alwaysOff()
+                        : Sampler.parentBased(Sampler.traceIdRatioBased(probability)));
+        spanExporters.forEach(exporter -> builder.addSpanProcessor(BatchSpanProcessor.builder(exporter).build()));
+        return builder.build();
+    }
+
+    @Bean
+    public OpenTelemetry openTelemetry(SdkTracerProvider tracerProvider) {
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+
+    @Bean
+    public Tracer tracer(OpenTelemetry openTelemetry) {
+        return openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+}
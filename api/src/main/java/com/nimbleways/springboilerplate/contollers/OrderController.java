@@ -1,7 +1,13 @@
 package com.nimbleways.springboilerplate.contollers;
 
+import com.nimbleways.springboilerplate.dto.product.OrderDetailsResponse;
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderReportResponse;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.exceptions.OrderReportUnavailableException;
 import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.intake.OrderIntakeJournal;
+import com.nimbleways.springboilerplate.services.scheduling.OrderPriority;
+import com.nimbleways.springboilerplate.services.scheduling.OrderScheduler;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,27 +16,39 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/orders")
 @Tag(name = "Orders", description = "Order processing operations")
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderIntakeJournal intakeJournal;
+    private final OrderScheduler orderScheduler;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, ObjectProvider<OrderIntakeJournal> intakeJournal,
+            ObjectProvider<OrderScheduler> orderScheduler) {
         this.orderService = orderService;
+        this.intakeJournal = intakeJournal.getIfAvailable();
+        this.orderScheduler = orderScheduler.getIfAvailable();
     }
 
     @PostMapping("/{orderId}/process")
     @Operation(
         summary = "Process an order",
-        description = "Processes all products in an order, managing inventory and notifications based on product type"
+        description = "Processes all products in an order, managing inventory and notifications based on product type. "
+            + "With the intake journal enabled the order is journaled and processed in the background instead"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -38,6 +56,11 @@ public class OrderController {
             description = "Order processed successfully",
             content = @Content(schema = @Schema(implementation = ProcessOrderResponse.class))
         ),
+        @ApiResponse(
+            responseCode = "202",
+            description = "Order journaled for processing (intake journal enabled)",
+            content = @Content(schema = @Schema(implementation = ProcessOrderResponse.class))
+        ),
         @ApiResponse(
             responseCode = "400",
             description = "Invalid order ID",
@@ -47,13 +70,105 @@ public class OrderController {
             responseCode = "404",
             description = "Order not found",
             content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many orders of this priority waiting, retry after the Retry-After delay",
+            content = @Content
         )
     })
     public ResponseEntity<ProcessOrderResponse> processOrder(
         @Parameter(description = "ID of the order to process", required = true)
-        @PathVariable Long orderId
+        @PathVariable Long orderId,
+        @Parameter(description = "express, standard or backfill: share of the processing capacity while orders wait")
+        @RequestParam(defaultValue = "standard") String priority
     ) {
-        ProcessOrderResponse response = orderService.processOrder(orderId);
+        OrderPriority orderPriority = OrderPriority.parse(priority);
+        if (intakeJournal != null) {
+            intakeJournal.append(orderId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ProcessOrderResponse(orderId));
+        }
+        ProcessOrderResponse response = schedule(orderPriority, () -> orderService.processOrder(orderId));
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping(value = "/{orderId}/process", params = "view=expanded")
+    @Operation(
+        summary = "Process an order and report per-item outcomes",
+        description = "Same processing as the default view, plus what happened to each item: "
+            + "DECREMENTED, DELAYED (with lead time), OUT_OF_STOCK or EXPIRED. "
+            + "Not available with the intake journal enabled: orders are then only processed from the journal"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Order processed successfully",
+            content = @Content(schema = @Schema(implementation = ProcessOrderReportResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid order ID",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Order not found",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Intake journal enabled: process the order with the default view",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Too many orders of this priority waiting, retry after the Retry-After delay",
+            content = @Content
+        )
+    })
+    public ResponseEntity<ProcessOrderReportResponse> processOrderWithReport(
+        @Parameter(description = "ID of the order to process", required = true)
+        @PathVariable Long orderId,
+        @Parameter(description = "express, standard or backfill: share of the processing capacity while orders wait")
+        @RequestParam(defaultValue = "standard") String priority
+    ) {
+        OrderPriority orderPriority = OrderPriority.parse(priority);
+        if (intakeJournal != null) {
+            // Processing here as well would race the journal consumers for the same order, and a journaled report
+            // would only describe the outcome after the response is sent
+            throw new OrderReportUnavailableException(
+                "Order " + orderId + " not processed: per-item reports are not available while orders are journaled");
+        }
+        ProcessOrderReportResponse response = schedule(orderPriority,
+            () -> orderService.processOrderWithReport(orderId));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{orderId}")
+    @Operation(
+        summary = "Get an order",
+        description = "Returns the order with the current stock of each item, read from the replica when one is configured"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Order found",
+            content = @Content(schema = @Schema(implementation = OrderDetailsResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Order not found",
+            content = @Content
+        )
+    })
+    public ResponseEntity<OrderDetailsResponse> getOrder(
+        @Parameter(description = "ID of the order", required = true)
+        @PathVariable Long orderId
+    ) {
+        return ResponseEntity.ok(orderService.getOrder(orderId));
+    }
+
+    private <T> T schedule(OrderPriority priority, Supplier<T> processing) {
+        return orderScheduler != null ? orderScheduler.execute(priority, processing) : processing.get();
+    }
 }
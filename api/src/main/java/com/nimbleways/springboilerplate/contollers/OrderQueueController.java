@@ -0,0 +1,57 @@
+package com.nimbleways.springboilerplate.contollers;
+
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.services.partitioning.OrderProcessingQueue;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/orders")
+@Tag(name = "Orders", description = "Order processing operations")
+@ConditionalOnProperty(name = "orders.partitioning.enabled", havingValue = "true")
+public class OrderQueueController {
+
+    private final OrderProcessingQueue orderProcessingQueue;
+
+    public OrderQueueController(OrderProcessingQueue orderProcessingQueue) {
+        this.orderProcessingQueue = orderProcessingQueue;
+    }
+
+    @PostMapping("/{orderId}/enqueue")
+    @Operation(
+        summary = "Queue an order for processing",
+        description = "Queues the order on its partition; the instance holding that partition's lease processes it"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "Order queued",
+            content = @Content(schema = @Schema(implementation = ProcessOrderResponse.class))
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Order not found",
+            content = @Content
+        )
+    })
+    public ResponseEntity<ProcessOrderResponse> enqueueOrder(
+        @Parameter(description = "ID of the order to queue", required = true)
+        @PathVariable Long orderId
+    ) {
+        orderProcessingQueue.enqueue(orderId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ProcessOrderResponse(orderId));
+    }
+}
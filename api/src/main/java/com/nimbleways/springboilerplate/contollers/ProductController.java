@@ -0,0 +1,53 @@
+package com.nimbleways.springboilerplate.contollers;
+
+import java.util.List;
+
+import com.nimbleways.springboilerplate.dto.product.SeasonalForecastResponse;
+import com.nimbleways.springboilerplate.services.implementations.ProductService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/products")
+@Tag(name = "Products", description = "Product catalogue operations")
+public class ProductController {
+
+    private static final int MAX_PAGE_SIZE = 5000;
+
+    private final ProductService productService;
+
+    public ProductController(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @GetMapping("/seasonal/forecast")
+    @Operation(
+        summary = "Forecast seasonal deliveries",
+        description = "For each SEASONAL product, whether an order placed today ships now (IN_STOCK), "
+            + "after its lead time but still in season (DELAYED), or not at all (UNAVAILABLE)"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Forecast for one page of seasonal products"),
+        @ApiResponse(responseCode = "400", description = "Invalid page or size")
+    })
+    public ResponseEntity<List<SeasonalForecastResponse>> getSeasonalForecast(
+        @Parameter(description = "Page number, starting at 0")
+        @RequestParam(defaultValue = "0") int page,
+        @Parameter(description = "Products per page, at most " + MAX_PAGE_SIZE)
+        @RequestParam(defaultValue = "500") int size
+    ) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(productService.getSeasonalForecast(page, size));
+    }
+}
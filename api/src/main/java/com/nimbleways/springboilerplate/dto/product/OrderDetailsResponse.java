@@ -0,0 +1,6 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import java.util.List;
+
+public record OrderDetailsResponse(Long id, List<OrderItemResponse> items) {
+}
@@ -0,0 +1,4 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+public record OrderItemOutcomeResponse(Long productId, String type, String status, Integer leadTime) {
+}
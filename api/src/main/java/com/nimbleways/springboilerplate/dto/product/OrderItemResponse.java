@@ -0,0 +1,4 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+public record OrderItemResponse(Long productId, String name, String type, Integer available, Integer leadTime) {
+}
@@ -0,0 +1,6 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import java.util.List;
+
+public record ProcessOrderReportResponse(Long id, List<OrderItemOutcomeResponse> items) {
+}
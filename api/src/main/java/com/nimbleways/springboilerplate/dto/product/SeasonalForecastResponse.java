@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import java.time.LocalDate;
+
+/**
+ * @param availability IN_STOCK (ships now), DELAYED (ships on the delivery date, still in season) or UNAVAILABLE
+ */
+public record SeasonalForecastResponse(Long productId, String name, String availability, LocalDate deliveryDate) {
+}
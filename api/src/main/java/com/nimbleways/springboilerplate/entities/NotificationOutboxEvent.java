@@ -0,0 +1,44 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "notification_outbox")
+public class NotificationOutboxEvent {
+
+    public enum Type {
+        DELAY,
+        OUT_OF_STOCK,
+        EXPIRATION
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type")
+    private Type type;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "lead_time")
+    private Integer leadTime;
+
+    @Column(name = "expiry_date")
+    private LocalDate expiryDate;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
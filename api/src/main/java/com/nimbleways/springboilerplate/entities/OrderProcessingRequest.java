@@ -0,0 +1,43 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "order_processing_requests")
+public class OrderProcessingRequest {
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        DONE,
+        FAILED
+    }
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "partition_id")
+    private Integer partitionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Status status;
+
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "enqueued_at")
+    private Instant enqueuedAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+}
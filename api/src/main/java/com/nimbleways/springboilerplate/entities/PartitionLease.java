@@ -0,0 +1,25 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "partition_leases")
+public class PartitionLease {
+    @Id
+    @Column(name = "partition_id")
+    private Integer partitionId;
+
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+}
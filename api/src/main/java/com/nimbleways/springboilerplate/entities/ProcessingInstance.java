@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "processing_instances")
+public class ProcessingInstance {
+    @Id
+    @Column(name = "instance_id")
+    private String instanceId;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+}
@@ -6,10 +6,18 @@ import java.time.LocalDate;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
+
+import com.nimbleways.springboilerplate.configuration.SecondLevelCacheConfiguration;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfiguration.PRODUCTS_REGION)
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "products")
 public class Product {
@@ -38,4 +46,38 @@ public class Product {
 
     @Column(name = "season_end_date")
     private LocalDate seasonEndDate;
+
+    // Concurrent orders decrementing the same product conflict on commit instead of overwriting each other
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    // 0, or the number of product_stock_shards rows its stock is split across; available then holds what the
+    // rebalancer has not distributed yet
+    @Column(name = "stock_shards")
+    @ColumnDefault("0")
+    private int stockShards;
+
+    @Formula("(select coalesce(sum(s.available), 0) from product_stock_shards s where s.product_id = id)")
+    @Setter(AccessLevel.NONE)
+    private int shardedAvailable;
+
+    public Product(Long id, Integer leadTime, Integer available, String type, String name, LocalDate expiryDate,
+            LocalDate seasonStartDate, LocalDate seasonEndDate) {
+        this.id = id;
+        this.leadTime = leadTime;
+        this.available = available;
+        this.type = type;
+        this.name = name;
+        this.expiryDate = expiryDate;
+        this.seasonStartDate = seasonStartDate;
+        this.seasonEndDate = seasonEndDate;
+    }
+
+    /**
+     * @return the stock of the product, including what is in its shards
+     */
+    public int getTotalAvailable() {
+        return available + shardedAvailable;
+    }
 }
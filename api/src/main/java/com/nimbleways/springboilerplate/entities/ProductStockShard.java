@@ -0,0 +1,41 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+import javax.persistence.*;
+
+/**
+ * One sub-row of the stock of a sharded product: concurrent orders decrement different shards instead of all
+ * queueing on the {@code products} row.
+ */
+@Entity
+@IdClass(ProductStockShard.Key.class)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "product_stock_shards")
+public class ProductStockShard {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "available")
+    private Integer available;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long productId;
+        private Integer shard;
+    }
+}
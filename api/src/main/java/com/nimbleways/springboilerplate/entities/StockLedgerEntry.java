@@ -0,0 +1,51 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+/**
+ * One stock mutation. Entries are only appended; compaction folds them into {@link StockSnapshot} and marks them
+ * compacted, and they are deleted once older than the ledger retention.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "stock_ledger")
+public class StockLedgerEntry {
+
+    public enum Reason {
+        ORDER,
+        EXPIRED,
+        OUT_OF_SEASON,
+        RESTORE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "delta")
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason")
+    private Reason reason;
+
+    @Column(name = "compacted")
+    private boolean compacted;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
@@ -0,0 +1,28 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+/**
+ * Stock of a product once every compacted ledger entry is applied; the uncompacted entries are the tail.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "stock_snapshots")
+public class StockSnapshot {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "available")
+    private Integer available;
+
+    @Column(name = "compacted_at")
+    private Instant compactedAt;
+}
@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+import java.time.Duration;
+
+public class BulkheadFullException extends OrderThrottledException {
+    public BulkheadFullException(String productType, Duration retryAfter) {
+        super("Too many " + productType + " orders in progress", productType, retryAfter);
+    }
+}
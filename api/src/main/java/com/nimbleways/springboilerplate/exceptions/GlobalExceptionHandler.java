@@ -2,6 +2,10 @@ package com.nimbleways.springboilerplate.exceptions;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -14,11 +18,62 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(OrderNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleOrderNotFoundException(OrderNotFoundException ex) {
-        logger.warn("Order not found: {}", ex.getMessage());
+        // Ids known not to exist mostly come from misconfigured clients and scrapers: not worth a warning each
+        if (ex.isFiltered()) {
+            logger.debug("Order not found: {}", ex.getMessage());
+        } else {
+            logger.warn("Order not found: {}", ex.getMessage());
+        }
+        ErrorResponse error = new ErrorResponse(HttpStatus.NOT_FOUND.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(ProductNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleProductNotFoundException(ProductNotFoundException ex) {
+        logger.warn("Product not found: {}", ex.getMessage());
         ErrorResponse error = new ErrorResponse(HttpStatus.NOT_FOUND.value(), ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler({OptimisticLockingFailureException.class, PessimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handleLockingFailureException(ConcurrencyFailureException ex) {
+        logger.warn("Concurrent update conflict: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(HttpStatus.CONFLICT.value(), "Concurrent update conflict, please retry");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimitExceededException(RateLimitExceededException ex) {
+        logger.debug("Order rejected: {}", ex.getMessage());
+        return throttled(HttpStatus.TOO_MANY_REQUESTS, ex);
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ErrorResponse> handleBulkheadFullException(BulkheadFullException ex) {
+        logger.debug("Order rejected: {}", ex.getMessage());
+        return throttled(HttpStatus.SERVICE_UNAVAILABLE, ex);
+    }
+
+    @ExceptionHandler(OrderQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleOrderQueueFullException(OrderQueueFullException ex) {
+        logger.debug("Order rejected: {}", ex.getMessage());
+        return throttled(HttpStatus.SERVICE_UNAVAILABLE, ex);
+    }
+
+    @ExceptionHandler(IntakeJournalUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleIntakeJournalUnavailableException(IntakeJournalUnavailableException ex) {
+        logger.error("Order not accepted: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(OrderReportUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleOrderReportUnavailableException(OrderReportUnavailableException ex) {
+        logger.debug("Order not processed: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         logger.warn("Invalid argument: {}", ex.getMessage());
@@ -33,6 +88,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    private static ResponseEntity<ErrorResponse> throttled(HttpStatus status, OrderThrottledException ex) {
+        // Retry-After is in whole seconds: round up so clients never come back too early
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(new ErrorResponse(status.value(), ex.getMessage()));
+    }
+
     public static class ErrorResponse {
         private final int status;
         private final String message;
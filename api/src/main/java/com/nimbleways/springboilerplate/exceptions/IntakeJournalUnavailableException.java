@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * An order command could not be made durable in the intake journal, so it was not accepted and can be sent again.
+ */
+public class IntakeJournalUnavailableException extends RuntimeException {
+    public IntakeJournalUnavailableException(String message) {
+        super(message);
+    }
+}
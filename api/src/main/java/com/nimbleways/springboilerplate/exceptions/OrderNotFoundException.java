@@ -1,7 +1,23 @@
 package com.nimbleways.springboilerplate.exceptions;
 
 public class OrderNotFoundException extends RuntimeException {
+
+    private final boolean filtered;
+
     public OrderNotFoundException(Long orderId) {
-        super("Order not found: " + orderId);
+        this(orderId, false);
+    }
+
+    /**
+     * @param filtered whether the id was flagged by the order id filter, and only looked up by primary key
+     */
+    public OrderNotFoundException(Long orderId, boolean filtered) {
+        // Only the message is ever reported: no stack trace to fill in
+        super("Order not found: " + orderId, null, false, false);
+        this.filtered = filtered;
+    }
+
+    public boolean isFiltered() {
+        return filtered;
     }
 }
@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+import java.time.Duration;
+
+public class OrderQueueFullException extends OrderThrottledException {
+    public OrderQueueFullException(String message, Duration retryAfter) {
+        super(message, null, retryAfter);
+    }
+}
@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+/**
+ * A per-item report was asked for an order that is processed in the background, so there is no outcome to report yet.
+ */
+public class OrderReportUnavailableException extends RuntimeException {
+    public OrderReportUnavailableException(String message) {
+        super(message);
+    }
+}
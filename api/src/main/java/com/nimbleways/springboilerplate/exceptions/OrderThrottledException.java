@@ -0,0 +1,28 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+import java.time.Duration;
+
+/**
+ * An order was turned away by a per-product-type limit or by the order scheduler before any of its items were
+ * processed, so it can be retried as is.
+ */
+public abstract class OrderThrottledException extends RuntimeException {
+
+    private final String productType;
+    private final Duration retryAfter;
+
+    protected OrderThrottledException(String message, String productType, Duration retryAfter) {
+        super(message);
+        this.productType = productType;
+        this.retryAfter = retryAfter;
+    }
+
+    /** The limited product type, {@code null} when refused by the order scheduler. */
+    public String getProductType() {
+        return productType;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
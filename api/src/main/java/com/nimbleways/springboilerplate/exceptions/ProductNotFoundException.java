@@ -0,0 +1,7 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(Long productId) {
+        super("Product not found: " + productId);
+    }
+}
@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.exceptions;
+
+import java.time.Duration;
+
+public class RateLimitExceededException extends OrderThrottledException {
+    public RateLimitExceededException(String productType, Duration retryAfter) {
+        super("Rate limit exceeded for " + productType + " products", productType, retryAfter);
+    }
+}
@@ -0,0 +1,102 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import java.util.List;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.nimbleways.springboilerplate.entities.Product;
+
+@Repository
+class JdbcProductStockUpdates implements ProductStockUpdates {
+
+    // Plain JDBC on the connection of the JPA transaction, called once per item: a JPQL or native update would empty
+    // the whole products cache region in Hibernate's bulk cleanup, so the product written is evicted instead.
+    private static final String UPDATE_AVAILABLE =
+            "update products set available = ?, version = version + 1 where id = ? and version = ?";
+    // No version check: a shard is only ever decremented while it has stock, whatever else changed
+    private static final String DECREMENT_AVAILABLE =
+            "update products set available = available - ?, version = version + 1 where id = ?";
+    private static final String TAKE_FROM_SHARD = "update product_stock_shards set available = available - 1 "
+            + "where product_id = ? and shard = ? and available > 0";
+    private static final String TAKE_UNDISTRIBUTED =
+            "update products set available = available - 1, version = version + 1 where id = ? and available > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache cache;
+
+    JdbcProductStockUpdates(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = entityManagerFactory.getCache();
+    }
+
+    @Override
+    public void updateAvailable(ProductStockView product, int available) {
+        int updated = jdbcTemplate.update(UPDATE_AVAILABLE, available, product.id(), product.version());
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, product.id());
+        }
+        evict(product.id());
+    }
+
+    @Override
+    public void decrementAvailable(Long productId, int quantity) {
+        if (jdbcTemplate.update(DECREMENT_AVAILABLE, quantity, productId) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, productId);
+        }
+        evict(productId);
+    }
+
+    @Override
+    public boolean takeFromShards(ProductStockView product, int firstShard) {
+        int shards = product.stockShards();
+        for (int i = 0; i < shards; i++) {
+            if (jdbcTemplate.update(TAKE_FROM_SHARD, product.id(), (firstShard + i) % shards) == 1) {
+                evict(product.id());
+                return true;
+            }
+        }
+        if (jdbcTemplate.update(TAKE_UNDISTRIBUTED, product.id()) == 1) {
+            evict(product.id());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int emptyShards(ProductStockView product) {
+        List<Integer> undistributed = jdbcTemplate.queryForList(
+                "select available from products where id = ? for update", Integer.class, product.id());
+        if (undistributed.isEmpty()) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, product.id());
+        }
+        int removed = undistributed.get(0) + jdbcTemplate.queryForList(
+                "select available from product_stock_shards where product_id = ? for update", Integer.class,
+                product.id()).stream().mapToInt(Integer::intValue).sum();
+        if (removed != 0) {
+            jdbcTemplate.update("update product_stock_shards set available = 0 where product_id = ?", product.id());
+            jdbcTemplate.update("update products set available = 0, version = version + 1 where id = ?", product.id());
+            evict(product.id());
+        }
+        return removed;
+    }
+
+    // Again after completion, so an entry cached from the old row while the transaction ran does not outlive it
+    private void evict(Long productId) {
+        cache.evict(Product.class, productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Product.class, productId);
+                }
+            });
+        }
+    }
+}
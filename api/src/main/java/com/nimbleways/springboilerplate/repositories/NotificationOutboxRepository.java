@@ -0,0 +1,21 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEvent;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEvent, Long> {
+
+    // lock timeout -2 is Hibernate's LockOptions.SKIP_LOCKED: rows claimed by another relay are skipped, not waited on
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select e from NotificationOutboxEvent e order by e.id")
+    List<NotificationOutboxEvent> claimBatch(Pageable pageable);
+}
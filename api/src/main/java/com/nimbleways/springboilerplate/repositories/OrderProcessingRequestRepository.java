@@ -0,0 +1,41 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.OrderProcessingRequest;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderProcessingRequestRepository extends JpaRepository<OrderProcessingRequest, Long> {
+
+    @Query("select r.orderId from OrderProcessingRequest r where r.status = 'PENDING' and r.partitionId in :partitions order by r.enqueuedAt")
+    List<Long> findPendingOrderIds(@Param("partitions") Collection<Integer> partitions, Pageable pageable);
+
+    // Compare-and-set on the status: of two instances racing for the same request, exactly one updates a row
+    @Modifying
+    @Query("update OrderProcessingRequest r set r.status = 'PROCESSING', r.claimedBy = :owner where r.orderId = :orderId and r.status = 'PENDING'")
+    int claim(@Param("orderId") Long orderId, @Param("owner") String owner);
+
+    // Only while the claim is still ours: a request released as abandoned and claimed again belongs to its new owner
+    @Modifying
+    @Query("update OrderProcessingRequest r set r.status = :status, r.processedAt = :processedAt "
+            + "where r.orderId = :orderId and r.claimedBy = :owner and r.status = 'PROCESSING'")
+    int complete(@Param("orderId") Long orderId, @Param("owner") String owner,
+            @Param("status") OrderProcessingRequest.Status status, @Param("processedAt") Instant processedAt);
+
+    @Modifying
+    @Query("update OrderProcessingRequest r set r.status = 'PENDING', r.claimedBy = null "
+            + "where r.orderId = :orderId and r.claimedBy = :owner and r.status = 'PROCESSING'")
+    int requeue(@Param("orderId") Long orderId, @Param("owner") String owner);
+
+    @Modifying
+    @Query("update OrderProcessingRequest r set r.status = 'PENDING', r.claimedBy = null "
+            + "where r.partitionId = :partition and r.status = 'PROCESSING' and r.claimedBy not in "
+            + "(select i.instanceId from ProcessingInstance i where i.heartbeatAt >= :liveSince)")
+    int releaseAbandoned(@Param("partition") Integer partition, @Param("liveSince") Instant liveSince);
+}
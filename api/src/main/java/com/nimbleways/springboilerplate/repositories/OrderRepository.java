@@ -1,11 +1,35 @@
 package com.nimbleways.springboilerplate.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.nimbleways.springboilerplate.entities.Order;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
-public interface OrderRepository extends JpaRepository<Order, UUID> {
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Items are always described with the order: fetch them in the same query, also outside of a web request.
+    // Read-write on its own so a caller without a transaction reads the primary; a read-only caller's still wins.
+    @Override
+    @Transactional
+    @EntityGraph(attributePaths = "items")
     Optional<Order> findById(Long orderId);
+
+    // What order processing decides on, without managed entities; read-write so processing reads the primary
+    @Transactional
+    @Query(ProductStockView.SELECT + "from Order o join o.items p where o.id = :orderId order by p.id")
+    List<ProductStockView> findItemStockByOrderId(@Param("orderId") Long orderId);
+
+    // Read-write on its own for the same reason: confirms ids the order id filter flags, which are often new orders
+    @Override
+    @Transactional
+    boolean existsById(Long orderId);
+
+    // The product type of each item, for admission before the order is loaded
+    @Query("select p.type from Order o join o.items p where o.id = :orderId")
+    List<String> findItemTypesByOrderId(@Param("orderId") Long orderId);
 }
@@ -0,0 +1,33 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.PartitionLease;
+import java.time.Instant;
+import java.util.List;
+
+public interface PartitionLeaseRepository extends JpaRepository<PartitionLease, Integer> {
+
+    @Query("select l.partitionId from PartitionLease l where l.owner = :owner and l.leaseUntil >= :now order by l.partitionId")
+    List<Integer> findOwnedPartitions(@Param("owner") String owner, @Param("now") Instant now);
+
+    @Query("select l.partitionId from PartitionLease l where l.owner is null or l.leaseUntil < :now order by l.partitionId")
+    List<Integer> findFreePartitions(@Param("now") Instant now);
+
+    @Modifying
+    @Query("update PartitionLease l set l.leaseUntil = :until where l.owner = :owner and l.leaseUntil >= :now")
+    int renew(@Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    @Modifying
+    @Query("update PartitionLease l set l.owner = :owner, l.leaseUntil = :until "
+            + "where l.partitionId = :partition and (l.owner is null or l.leaseUntil < :now)")
+    int tryAcquire(@Param("partition") Integer partition, @Param("owner") String owner,
+            @Param("now") Instant now, @Param("until") Instant until);
+
+    @Modifying
+    @Query("update PartitionLease l set l.owner = null, l.leaseUntil = null where l.partitionId = :partition and l.owner = :owner")
+    int release(@Param("partition") Integer partition, @Param("owner") String owner);
+}
@@ -0,0 +1,20 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.ProcessingInstance;
+import java.time.Instant;
+
+public interface ProcessingInstanceRepository extends JpaRepository<ProcessingInstance, String> {
+
+    @Query("select count(i) from ProcessingInstance i where i.heartbeatAt >= :liveSince")
+    long countLive(@Param("liveSince") Instant liveSince);
+
+    // Instances that stopped without releasing: their claims already count as abandoned, the rows only pile up
+    @Modifying
+    @Query("delete from ProcessingInstance i where i.heartbeatAt < :staleSince")
+    int deleteStale(@Param("staleSince") Instant staleSince);
+}
@@ -1,11 +1,29 @@
 package com.nimbleways.springboilerplate.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.nimbleways.springboilerplate.entities.Product;
-import java.util.Optional;
-import java.util.UUID;
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
-    Optional<Product> findById(Long productId);
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    @Query(ProductStockView.SELECT + "from Product p where p.type = :type")
+    List<ProductStockView> findStockByType(@Param("type") String type, Pageable pageable);
+
+    // A projection query always reads the row, and leaves nothing in the persistence context
+    @Query(ProductStockView.SELECT + "from Product p where p.id = :id")
+    Optional<ProductStockView> findStockById(@Param("id") Long id);
+
+    // A query always reads the row, unlike findById which may be answered by the second-level cache
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findCurrentById(@Param("id") Long id);
+
+    // Native so the current row is read even when the entity is already in the persistence context
+    @Query(value = "select available from products where id = :id for update", nativeQuery = true)
+    Integer lockAvailable(@Param("id") Long id);
 }
@@ -0,0 +1,47 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.ProductStockShard;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, ProductStockShard.Key> {
+
+    List<ProductStockShard> findByProductIdOrderByShard(Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ProductStockShard s where s.productId = :productId order by s.shard")
+    List<ProductStockShard> lockByProductId(@Param("productId") Long productId);
+
+    // Native so the current rows are read even when shards are already in the persistence context
+    @Query(value = "select available from product_stock_shards where product_id = :productId for update",
+            nativeQuery = true)
+    List<Integer> lockAvailable(@Param("productId") Long productId);
+
+    /**
+     * Sharded products with undistributed units, a shard count that changed, or an empty shard next to one that
+     * could spare a unit.
+     */
+    @Query("select p.id from Product p where p.stockShards > 0 and (p.available > 0"
+            + " or p.stockShards <> (select count(s) from ProductStockShard s where s.productId = p.id)"
+            + " or (exists (select s from ProductStockShard s where s.productId = p.id and s.available = 0)"
+            + " and exists (select s from ProductStockShard s where s.productId = p.id and s.available > 1)))"
+            + " order by p.id")
+    List<Long> findProductsToRebalance(Pageable pageable);
+
+    @Modifying
+    @Query("update ProductStockShard s set s.available = 0 where s.productId = :productId")
+    int emptyShards(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("delete from ProductStockShard s where s.productId = :productId and s.shard >= :shards")
+    int deleteShardsFrom(@Param("productId") Long productId, @Param("shards") int shards);
+}
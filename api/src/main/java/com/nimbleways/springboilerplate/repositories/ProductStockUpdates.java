@@ -0,0 +1,36 @@
+package com.nimbleways.springboilerplate.repositories;
+
+/**
+ * Targeted stock writes for {@link ProductStockView}s. Not part of {@link ProductRepository}, so the per-item write
+ * skips the repository proxy and its method metrics.
+ */
+public interface ProductStockUpdates {
+
+    /**
+     * Sets the stock of the product and bumps its version, provided the version is still the one it was read with.
+     *
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the product changed or was deleted
+     */
+    void updateAvailable(ProductStockView product, int available);
+
+    /**
+     * Removes {@code quantity} units from a product row the caller has locked, and bumps its version so views read
+     * before fail their optimistic check.
+     */
+    void decrementAvailable(Long productId, int quantity);
+
+    /**
+     * Takes one unit from a sharded product: from {@code firstShard} if it has any, else from the next shards in turn,
+     * and last from the units not distributed yet.
+     *
+     * @return whether a unit was taken, false once every shard is empty
+     */
+    boolean takeFromShards(ProductStockView product, int firstShard);
+
+    /**
+     * Empties the shards of a product and its undistributed units.
+     *
+     * @return the number of units removed
+     */
+    int emptyShards(ProductStockView product);
+}
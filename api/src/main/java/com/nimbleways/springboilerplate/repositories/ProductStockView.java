@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import java.time.LocalDate;
+
+/**
+ * The fields order processing decides on, read as a constructor projection: an unmanaged value with no persistence
+ * context entry, snapshot or dirty check. Stock changes go through {@link ProductStockUpdates} with its version.
+ *
+ * @param available   the whole stock, shards included
+ * @param stockShards 0, or the number of shards the stock is split across
+ */
+public record ProductStockView(Long id, String type, String name, int available, int leadTime, LocalDate expiryDate,
+        LocalDate seasonStartDate, LocalDate seasonEndDate, Long version, int stockShards) {
+
+    static final String SELECT = "select new com.nimbleways.springboilerplate.repositories.ProductStockView("
+            + "p.id, p.type, p.name, p.available + p.shardedAvailable, p.leadTime, p.expiryDate, p.seasonStartDate, "
+            + "p.seasonEndDate, p.version, p.stockShards) ";
+
+    public boolean sharded() {
+        return stockShards > 0;
+    }
+}
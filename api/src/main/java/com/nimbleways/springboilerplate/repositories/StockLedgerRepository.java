@@ -0,0 +1,61 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+
+public interface StockLedgerRepository extends JpaRepository<StockLedgerEntry, Long> {
+
+    interface StockBalance {
+        Long getProductId();
+
+        // The products row plus the shards of a sharded product
+        Integer getAvailable();
+
+        // Snapshot plus the uncompacted tail
+        Long getDerived();
+
+        boolean isSnapshotted();
+    }
+
+    String BALANCE_QUERY = "select p.id as productId, p.available + coalesce((select sum(sh.available) "
+            + "from product_stock_shards sh where sh.product_id = p.id), 0) as available, "
+            + "coalesce(s.available, 0) + coalesce((select sum(l.delta) from stock_ledger l "
+            + "where l.product_id = p.id and l.compacted = false), 0) as derived, "
+            + "case when s.product_id is null then false else true end as snapshotted "
+            + "from products p left join stock_snapshots s on s.product_id = p.id ";
+
+    // One statement, so a compaction committing meanwhile cannot be seen half applied
+    @Query(value = BALANCE_QUERY + "where p.id = :id", nativeQuery = true)
+    Optional<StockBalance> findBalance(@Param("id") Long productId);
+
+    @Query(value = BALANCE_QUERY + "where p.id > :after order by p.id limit :limit", nativeQuery = true)
+    List<StockBalance> findBalances(@Param("after") long afterProductId, @Param("limit") int limit);
+
+    @Query("select distinct e.productId from StockLedgerEntry e where e.compacted = false")
+    List<Long> findProductsWithTail(Pageable pageable);
+
+    @Query("select p.id from Product p where not exists (select s from StockSnapshot s where s.productId = p.id)")
+    List<Long> findProductsWithoutSnapshot(Pageable pageable);
+
+    List<StockLedgerEntry> findByProductIdAndCompactedFalseOrderById(Long productId, Pageable pageable);
+
+    @Query("select coalesce(sum(e.delta), 0) from StockLedgerEntry e where e.productId = :id and e.createdAt > :since")
+    long sumDeltasSince(@Param("id") Long productId, @Param("since") Instant since);
+
+    @Modifying
+    @Query("update StockLedgerEntry e set e.compacted = true where e.id in :ids")
+    int markCompacted(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("delete from StockLedgerEntry e where e.compacted = true and e.createdAt < :cutoff")
+    int deleteCompactedBefore(@Param("cutoff") Instant cutoff);
+}
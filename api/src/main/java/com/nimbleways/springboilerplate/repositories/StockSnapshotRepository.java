@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.nimbleways.springboilerplate.entities.StockSnapshot;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+}
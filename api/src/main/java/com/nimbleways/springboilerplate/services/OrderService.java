@@ -1,7 +1,13 @@
 package com.nimbleways.springboilerplate.services;
 
+import com.nimbleways.springboilerplate.dto.product.OrderDetailsResponse;
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderReportResponse;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
 
 public interface OrderService {
     ProcessOrderResponse processOrder(Long orderId);
+
+    ProcessOrderReportResponse processOrderWithReport(Long orderId);
+
+    OrderDetailsResponse getOrder(Long orderId);
 }
@@ -0,0 +1,56 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.services.diagnostics.FlightRecordings.RecordingInfo;
+
+/**
+ * On-demand Java Flight Recorder recordings, off unless {@code management.endpoint.flightrecorder.enabled} is set:
+ * <ul>
+ *     <li>{@code GET /actuator/flightrecorder}: running and stopped recordings</li>
+ *     <li>{@code POST /actuator/flightrecorder} with {@code {"name": "...", "settings": "profile", "maxAge": "10m"}}:
+ *     starts one with the JDK {@code default} or {@code profile} settings</li>
+ *     <li>{@code GET /actuator/flightrecorder/{id}}: dumps it and downloads the {@code .jfr} file</li>
+ *     <li>{@code DELETE /actuator/flightrecorder/{id}}: stops it and discards its data</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    private final FlightRecordings recordings;
+
+    public FlightRecorderEndpoint(FlightRecordings recordings) {
+        this.recordings = recordings;
+    }
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        return recordings.recordings();
+    }
+
+    @WriteOperation
+    public RecordingInfo start(String name, String settings, Duration maxAge) {
+        return recordings.start(name, settings, maxAge);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public Resource dump(@Selector long id) {
+        return new FileSystemResource(recordings.dump(id));
+    }
+
+    @DeleteOperation
+    public RecordingInfo stop(@Selector long id) {
+        return recordings.stop(id);
+    }
+}
@@ -0,0 +1,135 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+/**
+ * Java Flight Recorder recordings of the running instance: an optional continuous one started with the application,
+ * and on-demand ones started and dumped through {@link FlightRecorderEndpoint}. Recordings keep their data on disk
+ * within {@code max-age}, so a dump taken after a latency spike still covers it.
+ */
+@Component
+public class FlightRecordings {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordings.class);
+
+    private static final String CONTINUOUS_RECORDING = "continuous";
+
+    public record RecordingInfo(long id, String name, String state, Instant startTime, Duration maxAge, long size) {
+
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(recording.getId(), recording.getName(), recording.getState().name(),
+                    recording.getStartTime(), recording.getMaxAge(), recording.getSize());
+        }
+    }
+
+    private final boolean continuous;
+    private final String continuousSettings;
+    private final Duration maxAge;
+    private final Path dumpDirectory;
+
+    public FlightRecordings(@Value("${diagnostics.flight-recorder.continuous.enabled:false}") boolean continuous,
+            @Value("${diagnostics.flight-recorder.continuous.settings:default}") String continuousSettings,
+            @Value("${diagnostics.flight-recorder.max-age:1h}") Duration maxAge,
+            @Value("${diagnostics.flight-recorder.dump-directory:data/recordings}") Path dumpDirectory) {
+        this.continuous = continuous;
+        this.continuousSettings = continuousSettings;
+        this.maxAge = maxAge;
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuousRecording() {
+        if (!continuous) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            logger.warn("diagnostics.jfr.unavailable: continuous recording not started");
+            return;
+        }
+        RecordingInfo recording = start(CONTINUOUS_RECORDING, continuousSettings, maxAge, false);
+        logger.info("diagnostics.jfr.started id={} name={} settings={}", recording.id(), recording.name(),
+                continuousSettings);
+    }
+
+    public List<RecordingInfo> recordings() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream().map(RecordingInfo::of).toList();
+    }
+
+    /**
+     * Starts an on-demand recording, which keeps every handler and notification event whatever its duration.
+     *
+     * @param settings a configuration shipped with the JDK, {@code default} (meant to stay on) or {@code profile}
+     */
+    public RecordingInfo start(String name, String settings, Duration maxAge) {
+        return start(name, settings, maxAge, true);
+    }
+
+    private static RecordingInfo start(String name, String settings, Duration maxAge, boolean everyEvent) {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown flight recorder settings: " + settings, e);
+        }
+        if (everyEvent) {
+            recording.enable(ProductHandlerEvent.class).withoutThreshold();
+            recording.enable(NotificationEvent.class).withoutThreshold();
+        }
+        recording.setName(name);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.start();
+        return RecordingInfo.of(recording);
+    }
+
+    /**
+     * Copies what the recording holds so far to {@code dump-directory}; the recording keeps running.
+     *
+     * @return the file written
+     */
+    public Path dump(long id) {
+        Recording recording = find(id);
+        try {
+            Files.createDirectories(dumpDirectory);
+            String prefix = recording.getName().replaceAll("[^A-Za-z0-9_-]", "_");
+            Path file = dumpDirectory.resolve(prefix + "-" + id + "-" + Instant.now().toEpochMilli() + ".jfr");
+            recording.dump(file);
+            logger.info("diagnostics.jfr.dumped id={} file={}", id, file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public RecordingInfo stop(long id) {
+        Recording recording = find(id);
+        RecordingInfo info = RecordingInfo.of(recording);
+        recording.close();
+        return info;
+    }
+
+    private static Recording find(long id) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> recording.getId() == id)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No flight recording with id " + id));
+    }
+}
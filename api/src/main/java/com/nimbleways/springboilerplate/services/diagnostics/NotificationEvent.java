@@ -0,0 +1,58 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One call to the notification service, inline with the order or from the outbox relay.
+ */
+@Name("com.nimbleways.Notification")
+@Label("Notification")
+@Category({"Orders"})
+@Description("A call to the notification service")
+@StackTrace(false)
+// Only slow calls are kept by the continuous recording; on-demand recordings keep every call
+@Threshold("1 ms")
+public class NotificationEvent extends jdk.jfr.Event {
+
+    @Label("Notification Type")
+    public String notificationType;
+
+    @Label("Product Name")
+    public String productName;
+
+    @Label("Delivery")
+    @Description("direct or outbox")
+    public String delivery;
+
+    @Label("Outcome")
+    @Description("SENT, or the simple name of the exception the service threw")
+    public String outcome;
+
+    /**
+     * Runs {@code send} within a committed event.
+     */
+    public static void record(String notificationType, String productName, String delivery, Runnable send) {
+        NotificationEvent event = new NotificationEvent();
+        event.begin();
+        String outcome = "SENT";
+        try {
+            send.run();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.notificationType = notificationType;
+                event.productName = productName;
+                event.delivery = delivery;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import org.springframework.stereotype.Component;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+
+/**
+ * Traces a call to the notification service and records its {@link NotificationEvent}.
+ */
+@Component
+public class NotificationInstrumentation {
+
+    private final Tracer tracer;
+
+    public NotificationInstrumentation(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Runs {@code send} within a {@code notification.send} span and a committed event.
+     */
+    public void record(String notificationType, String productName, String delivery, Runnable send) {
+        Span span = tracer.spanBuilder("notification.send")
+                .setAttribute(TraceAttributes.NOTIFICATION_TYPE, notificationType)
+                .setAttribute(TraceAttributes.DELIVERY, delivery)
+                .startSpan();
+        Scope scope = span.makeCurrent();
+        try {
+            NotificationEvent.record(notificationType, productName, delivery, send);
+            span.setAttribute(TraceAttributes.OUTCOME, "SENT");
+        } catch (RuntimeException e) {
+            span.setAttribute(TraceAttributes.OUTCOME, e.getClass().getSimpleName());
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One order processed, from reading its items to the commit of its transaction. Lock waits, GC pauses and JDBC
+ * socket reads recorded on the same thread within its duration belong to that order.
+ */
+@Name("com.nimbleways.OrderProcessing")
+@Label("Order Processing")
+@Category({"Orders"})
+@Description("An order processed, including the commit of its transaction")
+@StackTrace(false)
+public class OrderProcessingEvent extends jdk.jfr.Event {
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("Transaction Scope")
+    public String transactionScope;
+
+    @Label("Items")
+    public int items;
+
+    @Label("Decremented Items")
+    public int decremented;
+
+    @Label("Failed Items")
+    public int failed;
+
+    @Label("Outcome")
+    @Description("PROCESSED, or the simple name of the exception that aborted the order")
+    public String outcome;
+}
@@ -0,0 +1,37 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One call of a product type handler for an order item; a retried conflict shows as one event per attempt.
+ */
+@Name("com.nimbleways.ProductHandler")
+@Label("Product Handler")
+@Category({"Orders"})
+@Description("A product type handler processing one order item")
+@StackTrace(false)
+// Only slow calls are kept by the continuous recording; on-demand recordings keep every call
+@Threshold("1 ms")
+public class ProductHandlerEvent extends jdk.jfr.Event {
+
+    @Label("Order Id")
+    public long orderId;
+
+    @Label("Product Id")
+    public long productId;
+
+    @Label("Product Type")
+    public String productType;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Outcome")
+    @Description("The item status, or the simple name of the exception the handler threw")
+    public String outcome;
+}
@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import io.opentelemetry.api.common.AttributeKey;
+
+/**
+ * Span attributes of order processing, named like the fields of the matching JFR events.
+ */
+public final class TraceAttributes {
+
+    public static final AttributeKey<Long> ORDER_ID = AttributeKey.longKey("order.id");
+    public static final AttributeKey<String> TRANSACTION_SCOPE = AttributeKey.stringKey("order.transaction_scope");
+    public static final AttributeKey<Long> ITEMS = AttributeKey.longKey("order.items");
+    public static final AttributeKey<Long> PRODUCT_ID = AttributeKey.longKey("product.id");
+    public static final AttributeKey<String> PRODUCT_TYPE = AttributeKey.stringKey("product.type");
+    public static final AttributeKey<Long> ATTEMPT = AttributeKey.longKey("attempt");
+    public static final AttributeKey<String> NOTIFICATION_TYPE = AttributeKey.stringKey("notification.type");
+    public static final AttributeKey<String> DELIVERY = AttributeKey.stringKey("notification.delivery");
+    public static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+
+    private TraceAttributes() {
+    }
+}
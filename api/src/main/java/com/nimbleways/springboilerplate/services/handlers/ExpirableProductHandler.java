@@ -5,33 +5,37 @@ import java.time.LocalDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
-import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
 
 @Component
 public class ExpirableProductHandler implements ProductTypeHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(ExpirableProductHandler.class);
 
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
+    private final ProductInventory inventory;
+    private final NotificationPublisher notificationPublisher;
 
-    public ExpirableProductHandler(ProductRepository productRepository, NotificationService notificationService) {
-        this.productRepository = productRepository;
-        this.notificationService = notificationService;
+    public ExpirableProductHandler(ProductInventory inventory, NotificationPublisher notificationPublisher) {
+        this.inventory = inventory;
+        this.notificationPublisher = notificationPublisher;
     }
 
     @Override
-    public void processProductOrder(Product product) {
-        if (isAvailableAndNotExpired(product)) {
-            logger.debug("Product {} available and not expired, decrementing", product.getName());
-            decrementStock(product);
-        } else {
-            logger.info("Product {} expired (expiry: {})", product.getName(), product.getExpiryDate());
-            markAsExpiredAndNotify(product);
+    @Transactional(propagation = Propagation.NESTED)
+    public ProductOrderOutcome processProductOrder(ProductStockView product, Long orderId) {
+        if (isAvailableAndNotExpired(product) && inventory.takeOne(product, orderId)) {
+            logger.debug("Product {} available and not expired, decremented", product.name());
+            return ProductOrderOutcome.decremented();
         }
+        logger.debug("Product {} expired (expiry: {})", product.name(), product.expiryDate());
+        markAsExpiredAndNotify(product, orderId);
+        return ProductOrderOutcome.expired();
     }
 
     @Override
@@ -39,18 +43,12 @@ public class ExpirableProductHandler implements ProductTypeHandler {
         return "EXPIRABLE";
     }
 
-    private boolean isAvailableAndNotExpired(Product product) {
-        return product.getAvailable() > 0 && product.getExpiryDate().isAfter(LocalDate.now());
+    private boolean isAvailableAndNotExpired(ProductStockView product) {
+        return product.available() > 0 && product.expiryDate().isAfter(LocalDate.now());
     }
 
-    private void decrementStock(Product product) {
-        product.setAvailable(product.getAvailable() - 1);
-        productRepository.save(product);
-    }
-
-    private void markAsExpiredAndNotify(Product product) {
-        notificationService.sendExpirationNotification(product.getName(), product.getExpiryDate());
-        product.setAvailable(0);
-        productRepository.save(product);
+    private void markAsExpiredAndNotify(ProductStockView product, Long orderId) {
+        notificationPublisher.publishExpiration(product.name(), product.expiryDate());
+        inventory.discardAll(product, StockLedgerEntry.Reason.EXPIRED, orderId);
     }
 }
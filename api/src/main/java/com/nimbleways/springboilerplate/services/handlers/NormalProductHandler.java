@@ -2,34 +2,45 @@ package com.nimbleways.springboilerplate.services.handlers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
-import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
 
 @Component
 public class NormalProductHandler implements ProductTypeHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(NormalProductHandler.class);
 
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
+    private final ProductInventory inventory;
+    private final NotificationPublisher notificationPublisher;
+    // Only present when orders.stock-combining.enabled is set
+    private final StockDecrementCombiner stockDecrementCombiner;
 
-    public NormalProductHandler(ProductRepository productRepository, NotificationService notificationService) {
-        this.productRepository = productRepository;
-        this.notificationService = notificationService;
+    public NormalProductHandler(ProductInventory inventory, NotificationPublisher notificationPublisher,
+            ObjectProvider<StockDecrementCombiner> stockDecrementCombiner) {
+        this.inventory = inventory;
+        this.notificationPublisher = notificationPublisher;
+        this.stockDecrementCombiner = stockDecrementCombiner.getIfAvailable();
     }
 
     @Override
-    public void processProductOrder(Product product) {
-        if (product.getAvailable() > 0) {
-            logger.debug("Stock available for product {}, decrementing", product.getName());
-            decrementStock(product);
-        } else {
-            logger.info("Product {} out of stock", product.getName());
-            handleOutOfStock(product);
+    @Transactional(propagation = Propagation.NESTED)
+    public ProductOrderOutcome processProductOrder(ProductStockView product, Long orderId) {
+        // Shards already spread the contention the combiner would batch, and it only knows the products row
+        if (stockDecrementCombiner != null && !product.sharded()) {
+            return processCombined(product, orderId);
         }
+        if (product.available() > 0 && inventory.takeOne(product, orderId)) {
+            logger.debug("Stock available for product {}, decremented", product.name());
+            return ProductOrderOutcome.decremented();
+        }
+        logger.debug("Product {} out of stock", product.name());
+        return handleOutOfStock(product);
     }
 
     @Override
@@ -37,22 +48,23 @@ public class NormalProductHandler implements ProductTypeHandler {
         return "NORMAL";
     }
 
-    private void decrementStock(Product product) {
-        product.setAvailable(product.getAvailable() - 1);
-        productRepository.save(product);
+    // The ledger entry is written by the batch leader, in the transaction of the combined update
+    private ProductOrderOutcome processCombined(ProductStockView product, Long orderId) {
+        if (stockDecrementCombiner.tryDecrement(product.id(), orderId)) {
+            return ProductOrderOutcome.decremented();
+        }
+        logger.debug("Product {} out of stock", product.name());
+        return handleOutOfStock(product);
     }
 
-    private void handleOutOfStock(Product product) {
-        int leadTime = product.getLeadTime();
+    // The delay is the product's own lead time, so there is nothing to write
+    private ProductOrderOutcome handleOutOfStock(ProductStockView product) {
+        int leadTime = product.leadTime();
         if (leadTime > 0) {
-            logger.info("Notifying delay of {} days for product {}", leadTime, product.getName());
-            updateLeadTimeAndNotify(leadTime, product);
+            logger.debug("Notifying delay of {} days for product {}", leadTime, product.name());
+            notificationPublisher.publishDelay(leadTime, product.name());
+            return ProductOrderOutcome.delayed(leadTime);
         }
-    }
-
-    private void updateLeadTimeAndNotify(int leadTime, Product product) {
-        product.setLeadTime(leadTime);
-        productRepository.save(product);
-        notificationService.sendDelayNotification(leadTime, product.getName());
+        return ProductOrderOutcome.outOfStock();
     }
 }
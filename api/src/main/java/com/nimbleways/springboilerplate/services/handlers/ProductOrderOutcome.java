@@ -0,0 +1,33 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+/**
+ * What a {@link ProductTypeHandler} did with one order item; {@code leadTime} is only set for {@link ProductOrderStatus#DELAYED}.
+ * {@link ProductOrderStatus#FAILED} marks an item whose processing threw and was rolled back.
+ */
+public record ProductOrderOutcome(ProductOrderStatus status, Integer leadTime) {
+
+    private static final ProductOrderOutcome DECREMENTED = new ProductOrderOutcome(ProductOrderStatus.DECREMENTED, null);
+    private static final ProductOrderOutcome OUT_OF_STOCK = new ProductOrderOutcome(ProductOrderStatus.OUT_OF_STOCK, null);
+    private static final ProductOrderOutcome EXPIRED = new ProductOrderOutcome(ProductOrderStatus.EXPIRED, null);
+    private static final ProductOrderOutcome FAILED = new ProductOrderOutcome(ProductOrderStatus.FAILED, null);
+
+    public static ProductOrderOutcome decremented() {
+        return DECREMENTED;
+    }
+
+    public static ProductOrderOutcome delayed(int leadTime) {
+        return new ProductOrderOutcome(ProductOrderStatus.DELAYED, leadTime);
+    }
+
+    public static ProductOrderOutcome outOfStock() {
+        return OUT_OF_STOCK;
+    }
+
+    public static ProductOrderOutcome expired() {
+        return EXPIRED;
+    }
+
+    public static ProductOrderOutcome failed() {
+        return FAILED;
+    }
+}
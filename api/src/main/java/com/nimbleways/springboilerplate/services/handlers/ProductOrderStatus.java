@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+public enum ProductOrderStatus {
+    DECREMENTED,
+    DELAYED,
+    OUT_OF_STOCK,
+    EXPIRED,
+    FAILED
+}
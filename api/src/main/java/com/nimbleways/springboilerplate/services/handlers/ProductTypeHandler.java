@@ -1,8 +1,17 @@
 package com.nimbleways.springboilerplate.services.handlers;
 
-import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
 
 public interface ProductTypeHandler {
-    void processProductOrder(Product product);
+    /**
+     * Runs in a nested transaction: a savepoint of the order transaction, so a failing item is rolled back alone,
+     * or a transaction of its own when items are committed one by one.
+     *
+     * Stock changes are written with {@link com.nimbleways.springboilerplate.repositories.ProductStockUpdates}, so a
+     * product changed since it was read fails with an optimistic-lock conflict and the item is retried on fresh state.
+     *
+     * @param orderId recorded with the resulting stock mutation in the ledger
+     */
+    ProductOrderOutcome processProductOrder(ProductStockView product, Long orderId);
     String getSupportedType();
 }
@@ -1,20 +1,51 @@
 package com.nimbleways.springboilerplate.services.handlers;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.nimbleways.springboilerplate.services.handlers.rules.ProductRuleCompiler;
+
+/**
+ * Handler of each product type: the handler beans, then the types defined by rules in configuration, which replace
+ * the bean of the same type.
+ */
 @Component
 public class ProductTypeHandlerFactory {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductTypeHandlerFactory.class);
+
     private final Map<String, ProductTypeHandler> handlers;
 
     public ProductTypeHandlerFactory(List<ProductTypeHandler> handlerList) {
-        this.handlers = handlerList.stream()
-                .collect(Collectors.toMap(ProductTypeHandler::getSupportedType, Function.identity()));
+        this(handlerList, List.of());
+    }
+
+    @Autowired
+    public ProductTypeHandlerFactory(List<ProductTypeHandler> handlerList, ProductRuleCompiler ruleCompiler) {
+        this(handlerList, ruleCompiler.compileHandlers());
+    }
+
+    private ProductTypeHandlerFactory(List<ProductTypeHandler> handlerList, List<ProductTypeHandler> ruleHandlers) {
+        Map<String, ProductTypeHandler> byType = new HashMap<>();
+        for (ProductTypeHandler handler : handlerList) {
+            if (byType.putIfAbsent(handler.getSupportedType(), handler) != null) {
+                throw new IllegalStateException("Duplicate handler for product type " + handler.getSupportedType());
+            }
+        }
+        for (ProductTypeHandler handler : ruleHandlers) {
+            ProductTypeHandler replaced = byType.put(handler.getSupportedType(), handler);
+            if (replaced != null) {
+                logger.info("Product type {} processed by its rules instead of {}", handler.getSupportedType(),
+                        replaced.getClass().getSimpleName());
+            }
+        }
+        this.handlers = Map.copyOf(byType);
     }
 
     public ProductTypeHandler getHandler(String productType) {
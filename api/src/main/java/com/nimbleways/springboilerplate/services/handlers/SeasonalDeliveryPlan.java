@@ -0,0 +1,13 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+import java.time.LocalDate;
+
+/**
+ * What a SEASONAL product can promise on a given business date, independent of its stock.
+ *
+ * @param inSeason            the season is running, so stock on hand can ship now
+ * @param canFulfillWithDelay the season has started and a restock after the lead time still lands in season
+ * @param delayedDeliveryDate business date plus lead time
+ */
+public record SeasonalDeliveryPlan(boolean inSeason, boolean canFulfillWithDelay, LocalDate delayedDeliveryDate) {
+}
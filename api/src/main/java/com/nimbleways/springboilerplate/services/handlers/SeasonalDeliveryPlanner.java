@@ -0,0 +1,81 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+
+/**
+ * Delivery decisions for SEASONAL products, computed once per business date and season shape. A plan only depends
+ * on the lead time and season dates, so products sharing a season share an entry; the table is dropped when the
+ * business date changes.
+ */
+@Component
+public class SeasonalDeliveryPlanner {
+
+    // Beyond this many distinct season shapes in a day, plans are computed without being kept
+    private static final int MAX_PLANS_PER_DAY = 100_000;
+
+    private final Clock clock;
+    private volatile DailyPlans dailyPlans;
+
+    public SeasonalDeliveryPlanner() {
+        this(Clock.systemDefaultZone());
+    }
+
+    SeasonalDeliveryPlanner(Clock clock) {
+        this.clock = clock;
+        this.dailyPlans = new DailyPlans(LocalDate.now(clock));
+    }
+
+    public LocalDate businessDate() {
+        return LocalDate.now(clock);
+    }
+
+    public SeasonalDeliveryPlan plan(ProductStockView product) {
+        DailyPlans plans = plansFor(businessDate());
+        PlanKey key = new PlanKey(product.leadTime(), product.seasonStartDate(), product.seasonEndDate());
+        SeasonalDeliveryPlan plan = plans.byKey.get(key);
+        if (plan == null) {
+            plan = compute(plans.date, key);
+            if (plans.byKey.size() < MAX_PLANS_PER_DAY) {
+                plans.byKey.putIfAbsent(key, plan);
+            }
+        }
+        return plan;
+    }
+
+    private DailyPlans plansFor(LocalDate date) {
+        DailyPlans plans = dailyPlans;
+        if (!plans.date.equals(date)) {
+            plans = new DailyPlans(date);
+            dailyPlans = plans;
+        }
+        return plans;
+    }
+
+    private static SeasonalDeliveryPlan compute(LocalDate today, PlanKey key) {
+        boolean inSeason = today.isAfter(key.seasonStart) && today.isBefore(key.seasonEnd);
+        LocalDate deliveryDate = today.plusDays(key.leadTime);
+        boolean seasonStarted = !key.seasonStart.isAfter(today);
+        boolean canDeliverInSeason = !deliveryDate.isAfter(key.seasonEnd);
+        return new SeasonalDeliveryPlan(inSeason, seasonStarted && canDeliverInSeason, deliveryDate);
+    }
+
+    private record PlanKey(int leadTime, LocalDate seasonStart, LocalDate seasonEnd) {
+    }
+
+    private static final class DailyPlans {
+
+        private final LocalDate date;
+        private final Map<PlanKey, SeasonalDeliveryPlan> byKey = new ConcurrentHashMap<>();
+
+        private DailyPlans(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
@@ -1,37 +1,42 @@
 package com.nimbleways.springboilerplate.services.handlers;
 
-import java.time.LocalDate;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
-import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
 
 @Component
 public class SeasonalProductHandler implements ProductTypeHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(SeasonalProductHandler.class);
 
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
+    private final ProductInventory inventory;
+    private final NotificationPublisher notificationPublisher;
+    private final SeasonalDeliveryPlanner deliveryPlanner;
 
-    public SeasonalProductHandler(ProductRepository productRepository, NotificationService notificationService) {
-        this.productRepository = productRepository;
-        this.notificationService = notificationService;
+    public SeasonalProductHandler(ProductInventory inventory, NotificationPublisher notificationPublisher,
+            SeasonalDeliveryPlanner deliveryPlanner) {
+        this.inventory = inventory;
+        this.notificationPublisher = notificationPublisher;
+        this.deliveryPlanner = deliveryPlanner;
     }
 
     @Override
-    public void processProductOrder(Product product) {
-        if (isInSeason(product) && product.getAvailable() > 0) {
-            logger.debug("Product {} in season and available, decrementing", product.getName());
-            decrementStock(product);
-        } else {
-            logger.debug("Product {} unavailable or out of season", product.getName());
-            handleUnavailableProduct(product);
+    @Transactional(propagation = Propagation.NESTED)
+    public ProductOrderOutcome processProductOrder(ProductStockView product, Long orderId) {
+        SeasonalDeliveryPlan plan = deliveryPlanner.plan(product);
+        if (plan.inSeason() && product.available() > 0 && inventory.takeOne(product, orderId)) {
+            logger.debug("Product {} in season and available, decremented", product.name());
+            return ProductOrderOutcome.decremented();
         }
+        logger.debug("Product {} unavailable or out of season", product.name());
+        return handleUnavailableProduct(product, orderId, plan);
     }
 
     @Override
@@ -39,42 +44,21 @@ public class SeasonalProductHandler implements ProductTypeHandler {
         return "SEASONAL";
     }
 
-    private boolean isInSeason(Product product) {
-        LocalDate now = LocalDate.now();
-        return now.isAfter(product.getSeasonStartDate()) && now.isBefore(product.getSeasonEndDate());
-    }
-
-    private void decrementStock(Product product) {
-        product.setAvailable(product.getAvailable() - 1);
-        productRepository.save(product);
-    }
-
-    private void handleUnavailableProduct(Product product) {
-        if (canFulfillWithDelay(product)) {
-            logger.info("Product {} can be fulfilled with delay of {} days", product.getName(), product.getLeadTime());
-            updateLeadTimeAndNotify(product.getLeadTime(), product);
-        } else {
-            logger.info("Product {} out of stock (season ended or not started)", product.getName());
-            markAsOutOfStock(product);
+    private ProductOrderOutcome handleUnavailableProduct(ProductStockView product, Long orderId,
+            SeasonalDeliveryPlan plan) {
+        if (plan.canFulfillWithDelay()) {
+            // The delay is the product's own lead time, so there is nothing to write
+            logger.debug("Product {} can be fulfilled with delay of {} days", product.name(), product.leadTime());
+            notificationPublisher.publishDelay(product.leadTime(), product.name());
+            return ProductOrderOutcome.delayed(product.leadTime());
         }
+        logger.debug("Product {} out of stock (season ended or not started)", product.name());
+        markAsOutOfStock(product, orderId);
+        return ProductOrderOutcome.outOfStock();
     }
 
-    private boolean canFulfillWithDelay(Product product) {
-        LocalDate deliveryDate = LocalDate.now().plusDays(product.getLeadTime());
-        boolean canDeliverInSeason = deliveryDate.isBefore(product.getSeasonEndDate()) || deliveryDate.isEqual(product.getSeasonEndDate());
-        boolean seasonStarted = !product.getSeasonStartDate().isAfter(LocalDate.now());
-        return seasonStarted && canDeliverInSeason;
-    }
-
-    private void updateLeadTimeAndNotify(int leadTime, Product product) {
-        product.setLeadTime(leadTime);
-        productRepository.save(product);
-        notificationService.sendDelayNotification(leadTime, product.getName());
-    }
-
-    private void markAsOutOfStock(Product product) {
-        notificationService.sendOutOfStockNotification(product.getName());
-        product.setAvailable(0);
-        productRepository.save(product);
+    private void markAsOutOfStock(ProductStockView product, Long orderId) {
+        notificationPublisher.publishOutOfStock(product.name());
+        inventory.discardAll(product, StockLedgerEntry.Reason.OUT_OF_SEASON, orderId);
     }
 }
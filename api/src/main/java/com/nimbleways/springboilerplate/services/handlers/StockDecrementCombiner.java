@@ -0,0 +1,282 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nimbleways.springboilerplate.configuration.SavepointHibernateJpaDialect;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+
+/**
+ * Merges concurrent single-unit decrements of the same product into one {@code available = available - k} update.
+ * The first caller to take a product's combiner lock waits up to {@code max-wait-micros} for others to queue, then
+ * locks the row once, grants {@code min(k, available)} units in arrival order and decrements by that amount in a
+ * transaction of its own, so the row is locked for the batch rather than for the leader's whole order. Granted callers
+ * are answered when that transaction completes, so a grant is only reported once it is committed; if it rolls back
+ * they get a conflict and the item is retried. Denied callers are answered at once.
+ * <p>
+ * Works with either {@code orders.transaction-scope}. A granted unit is given back once the caller's transaction
+ * completes if the item's savepoint or the transaction itself rolled back. A unit granted to an order whose process
+ * dies between the batch commit and its own is not given back: its ledger entry names the order, which has none of
+ * its own changes committed.
+ * <p>
+ * A leader takes a second connection for its batch while its callers each hold their order's. Fewer callers than
+ * connections are let in, so some connection is always held by an order outside the combiner, which frees it without
+ * waiting on a batch; the other callers decrement the row in their own transaction, locking it until they commit.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.stock-combining.enabled", havingValue = "true")
+@Transactional(propagation = Propagation.MANDATORY)
+public class StockDecrementCombiner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockDecrementCombiner.class);
+
+    private final ProductRepository productRepository;
+    private final ProductStockUpdates stockUpdates;
+    private final StockLedger stockLedger;
+    private final long maxWaitNanos;
+    private final int maxBatchSize;
+    private final TransactionTemplate batchTransaction;
+    private final Semaphore callers;
+    private final ConcurrentMap<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    public StockDecrementCombiner(ProductRepository productRepository, ProductStockUpdates stockUpdates,
+            StockLedger stockLedger, PlatformTransactionManager transactionManager,
+            @Value("${orders.stock-combining.max-wait-micros:1000}") long maxWaitMicros,
+            @Value("${orders.stock-combining.max-batch-size:256}") int maxBatchSize,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (maxWaitMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid stock combining window: maxWaitMicros=" + maxWaitMicros
+                    + ", maxBatchSize=" + maxBatchSize);
+        }
+        if (connectionPoolSize < 2) {
+            throw new IllegalArgumentException("Stock combining needs a second connection per batch, the pool has "
+                    + connectionPoolSize);
+        }
+        this.productRepository = productRepository;
+        this.stockUpdates = stockUpdates;
+        this.stockLedger = stockLedger;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.callers = new Semaphore(connectionPoolSize - 1);
+    }
+
+    /**
+     * @param orderId recorded in the ledger entry of a granted unit
+     * @return whether one unit of the product was reserved for the caller
+     */
+    public boolean tryDecrement(Long productId, Long orderId) {
+        if (!callers.tryAcquire()) {
+            return decrementInPlace(productId, orderId);
+        }
+        try {
+            return giveBackOnRollback(productId, orderId, combined(productId, orderId));
+        } finally {
+            callers.release();
+        }
+    }
+
+    private boolean combined(Long productId, Long orderId) {
+        Slot slot = slots.computeIfAbsent(productId, id -> new Slot());
+        Request own = new Request(orderId);
+        slot.pending.add(own);
+        if (slot.pending.size() >= maxBatchSize - 1) {
+            slot.filled.complete(null);
+        }
+        while (true) {
+            // Set before trying the lock, so a leader that releases it after we failed hands over to this one
+            CompletableFuture<Void> lead = new CompletableFuture<>();
+            own.lead = lead;
+            if (slot.lock.tryLock()) {
+                try {
+                    // Still queued means no other leader took it: lead a batch with ourselves first
+                    if (slot.pending.remove(own)) {
+                        awaitBatch(slot);
+                        return Boolean.TRUE.equals(batchTransaction.execute(status -> combine(productId, slot, own)));
+                    }
+                } finally {
+                    releaseIfIdle(productId, slot);
+                    slot.lock.unlock();
+                    handOver(slot);
+                }
+            }
+            // Answered by the batch that takes us, or handed the lead of the next one
+            CompletableFuture.anyOf(own.result, lead).exceptionally(e -> null).join();
+            if (own.result.isDone()) {
+                try {
+                    return own.result.join();
+                } catch (CompletionException e) {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+        }
+    }
+
+    int slotCount() {
+        return slots.size();
+    }
+
+    /**
+     * Drops the slot of a product nobody waits for, so the map holds the products being ordered right now rather
+     * than every product ever ordered. A caller that queued on the slot just before it was dropped leads a batch of
+     * its own on it; the row lock keeps that batch and one on a new slot from granting the same units.
+     */
+    private void releaseIfIdle(Long productId, Slot slot) {
+        if (slot.pending.isEmpty()) {
+            slots.remove(productId, slot);
+        }
+    }
+
+    // The next request waiting on the slot tries the lock again; it leads a batch unless one took it meanwhile
+    private static void handOver(Slot slot) {
+        Request next = slot.pending.peek();
+        if (next != null) {
+            next.lead.complete(null);
+        }
+    }
+
+    /**
+     * Takes the unit in the caller's own transaction, for a caller past the bound: the row stays locked until the
+     * caller commits, and rolls back with the caller's savepoint, so nothing needs giving back.
+     */
+    private boolean decrementInPlace(Long productId, Long orderId) {
+        Integer available = productRepository.lockAvailable(productId);
+        if (available == null || available <= 0) {
+            return false;
+        }
+        stockUpdates.decrementAvailable(productId, 1);
+        stockLedger.record(productId, -1, StockLedgerEntry.Reason.ORDER, orderId);
+        return true;
+    }
+
+    /**
+     * The batch committed on its own, so a unit granted to an item whose savepoint, or order transaction, then rolls
+     * back is put back, with a ledger entry reversing the one of the batch.
+     */
+    private boolean giveBackOnRollback(Long productId, Long orderId, boolean granted) {
+        if (granted) {
+            SavepointHibernateJpaDialect.onRollback(() -> giveBack(productId, orderId));
+        }
+        return granted;
+    }
+
+    private void giveBack(Long productId, Long orderId) {
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                productRepository.lockAvailable(productId);
+                // A negative decrement puts the unit back and bumps the version all the same
+                stockUpdates.decrementAvailable(productId, -1);
+                stockLedger.record(productId, 1, StockLedgerEntry.Reason.ORDER, orderId);
+            });
+            logger.debug("stock.combined.returned productId={} orderId={}", productId, orderId);
+        } catch (RuntimeException e) {
+            logger.error("stock.combined.return.failed productId={} orderId={}", productId, orderId, e);
+        }
+    }
+
+    // Until the window closes or enough requests queued to fill the batch
+    private void awaitBatch(Slot slot) {
+        CompletableFuture<Void> filled = new CompletableFuture<>();
+        slot.filled = filled;
+        if (maxWaitNanos == 0 || slot.pending.size() >= maxBatchSize - 1) {
+            return;
+        }
+        try {
+            filled.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // The window closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean combine(Long productId, Slot slot, Request leader) {
+        List<Request> followers = new ArrayList<>(Math.min(slot.pending.size(), maxBatchSize - 1));
+        slot.pending.drainTo(followers, maxBatchSize - 1);
+        try {
+            Integer available = productRepository.lockAvailable(productId);
+            int requested = followers.size() + 1;
+            int granted = Math.min(requested, available == null ? 0 : Math.max(available, 0));
+            if (granted > 0) {
+                stockUpdates.decrementAvailable(productId, granted);
+                stockLedger.record(productId, -1, StockLedgerEntry.Reason.ORDER, leader.orderId);
+            }
+            logger.debug("stock.combined productId={} requests={} granted={}", productId, requested, granted);
+            // Denied requests changed nothing, so they need not wait for the commit
+            int grantedFollowers = Math.max(granted - 1, 0);
+            followers.subList(0, grantedFollowers).forEach(request ->
+                    stockLedger.record(productId, -1, StockLedgerEntry.Reason.ORDER, request.orderId));
+            followers.subList(grantedFollowers, followers.size()).forEach(request -> request.result.complete(false));
+            if (grantedFollowers > 0) {
+                TransactionSynchronizationManager.registerSynchronization(
+                        new BatchCompletion(followers.subList(0, grantedFollowers)));
+            }
+            return granted > 0;
+        } catch (RuntimeException e) {
+            followers.forEach(request -> request.result.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    private static final class Slot {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BlockingQueue<Request> pending = new LinkedBlockingQueue<>();
+        // Completed when the batch its leader waits for is full
+        private volatile CompletableFuture<Void> filled = new CompletableFuture<>();
+    }
+
+    private static final class Request {
+        private final Long orderId;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        // Completed to hand this request the lead; replaced before each try of the lock
+        private volatile CompletableFuture<Void> lead = new CompletableFuture<>();
+
+        private Request(Long orderId) {
+            this.orderId = orderId;
+        }
+    }
+
+    private record BatchCompletion(List<Request> granted) implements TransactionSynchronization {
+
+        @Override
+        public void afterCompletion(int status) {
+            for (Request request : granted) {
+                if (status == STATUS_COMMITTED) {
+                    request.result.complete(true);
+                } else {
+                    request.result.completeExceptionally(
+                            new OptimisticLockingFailureException("Combined stock update was rolled back"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlan;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner;
+import com.nimbleways.springboilerplate.services.handlers.StockDecrementCombiner;
+import com.nimbleways.springboilerplate.services.handlers.rules.ProductRuleSet.Node;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+
+/**
+ * Turns the rules of {@code orders.product-rules} into handlers at startup, so a product type that only combines the
+ * existing conditions and actions needs no code. The ordered rules of a type become a decision tree: the first
+ * condition of the first rule is tested once, then the rules are followed with it known to hold, or without the rules
+ * that required it. Invalid rules fail the startup.
+ * <p>
+ * {@link RuleAction#DECREMENT} goes through the {@link StockDecrementCombiner} when stock combining is enabled, for
+ * products with a single stock row, as the NORMAL handler does.
+ */
+@Component
+@EnableConfigurationProperties(ProductRuleProperties.class)
+public class ProductRuleCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductRuleCompiler.class);
+
+    private final ProductRuleProperties properties;
+    private final ProductInventory inventory;
+    private final NotificationPublisher notificationPublisher;
+    private final SeasonalDeliveryPlanner deliveryPlanner;
+    // Only present when orders.stock-combining.enabled is set
+    private final StockDecrementCombiner stockDecrementCombiner;
+    private final PlatformTransactionManager transactionManager;
+
+    public ProductRuleCompiler(ProductRuleProperties properties, ProductInventory inventory,
+            NotificationPublisher notificationPublisher, SeasonalDeliveryPlanner deliveryPlanner,
+            ObjectProvider<StockDecrementCombiner> stockDecrementCombiner,
+            PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.inventory = inventory;
+        this.notificationPublisher = notificationPublisher;
+        this.deliveryPlanner = deliveryPlanner;
+        this.stockDecrementCombiner = stockDecrementCombiner.getIfAvailable();
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * @return a handler per configured product type, each processing an item in a nested transaction
+     */
+    public List<ProductTypeHandler> compileHandlers() {
+        List<ProductTypeHandler> handlers = new ArrayList<>();
+        properties.getTypes().forEach((type, rules) -> {
+            ProductRuleSet ruleSet = compile(type, rules);
+            logger.info("Product type {} processed by {} configured rules", ruleSet.getType(), rules.getRules().size());
+            handlers.add(new RuleBasedProductHandler(ruleSet, transactionManager));
+        });
+        return handlers;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the rules are empty, some are never reached or an item could get no outcome
+     */
+    public ProductRuleSet compile(String type, ProductRuleProperties.TypeRules typeRules) {
+        String productType = type.toUpperCase(Locale.ROOT);
+        List<ProductRuleProperties.Rule> rules = typeRules.getRules();
+        if (rules.isEmpty()) {
+            throw invalid(productType, "no rules");
+        }
+        List<PendingRule> pending = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            ProductRuleProperties.Rule rule = rules.get(i);
+            validate(productType, i + 1, rule, i == rules.size() - 1);
+            pending.add(new PendingRule(i + 1, rule, conditions(rule.getWhen())));
+        }
+        return new ProductRuleSet(productType, compile(productType, pending, typeRules.getExpiryGraceDays()));
+    }
+
+    private static void validate(String type, int number, ProductRuleProperties.Rule rule, boolean last) {
+        if (rule.getThen() == null) {
+            throw invalid(type, "rule " + number + " has no action");
+        }
+        boolean fallback = rule.getWhen().isEmpty() && rule.getThen() != RuleAction.DECREMENT;
+        if (last && !fallback) {
+            throw invalid(type, "the last rule must have no condition and not decrement, so every item gets an outcome");
+        }
+        if (!last && fallback) {
+            throw invalid(type, "rule " + number + " has no condition, the rules after it are never reached");
+        }
+        if (rule.getThen() == RuleAction.DECREMENT && (rule.isNotify() || rule.getDiscard() != null)) {
+            throw invalid(type, "rule " + number + " decrements, there is nothing to notify or discard");
+        }
+        StockLedgerEntry.Reason discard = rule.getDiscard();
+        if (discard == StockLedgerEntry.Reason.ORDER || discard == StockLedgerEntry.Reason.RESTORE) {
+            throw invalid(type, "rule " + number + " cannot discard stock as " + discard);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String type, String reason) {
+        return new IllegalArgumentException("Invalid rules for product type " + type + ": " + reason);
+    }
+
+    private Node compile(String type, List<PendingRule> rules, int expiryGraceDays) {
+        PendingRule first = rules.get(0);
+        if (first.conditions.isEmpty()) {
+            List<PendingRule> rest = rules.subList(1, rules.size());
+            return action(type, first, rest.isEmpty() ? null : compile(type, rest, expiryGraceDays));
+        }
+        RuleCondition condition = first.conditions.iterator().next();
+        List<PendingRule> whenTrue = new ArrayList<>();
+        List<PendingRule> whenFalse = new ArrayList<>();
+        for (PendingRule rule : rules) {
+            whenTrue.add(rule.without(condition));
+            if (!rule.conditions.contains(condition)) {
+                whenFalse.add(rule);
+            }
+        }
+        // The fallback rule has no condition, so neither branch is empty
+        return new Branch(test(condition, expiryGraceDays),
+                compile(type, whenTrue, expiryGraceDays), compile(type, whenFalse, expiryGraceDays));
+    }
+
+    private Predicate<ProductStockView> test(RuleCondition condition, int expiryGraceDays) {
+        return switch (condition) {
+            case IN_STOCK -> product -> product.available() > 0;
+            case NOT_EXPIRED -> product -> product.expiryDate() == null
+                    || product.expiryDate().plusDays(expiryGraceDays).isAfter(deliveryPlanner.businessDate());
+            case IN_SEASON -> product -> {
+                SeasonalDeliveryPlan plan = plan(product);
+                return plan != null && plan.inSeason();
+            };
+            case DELIVERABLE_IN_SEASON -> product -> {
+                SeasonalDeliveryPlan plan = plan(product);
+                return plan != null && plan.canFulfillWithDelay();
+            };
+            case HAS_LEAD_TIME -> product -> product.leadTime() > 0;
+        };
+    }
+
+    // Null for a product without season dates, which is neither in season nor deliverable in season
+    private SeasonalDeliveryPlan plan(ProductStockView product) {
+        if (product.seasonStartDate() == null || product.seasonEndDate() == null) {
+            return null;
+        }
+        return deliveryPlanner.plan(product);
+    }
+
+    /**
+     * @param next the rules after a decrement, tried when no unit could be taken; null after any other action
+     */
+    private Node action(String type, PendingRule rule, Node next) {
+        String matched = "matched " + type + " rule " + rule.number + ": " + rule.rule.getThen();
+        ProductRuleProperties.Rule settings = rule.rule;
+        return switch (settings.getThen()) {
+            case DECREMENT -> (product, orderId) -> {
+                if (decrement(product, orderId)) {
+                    logger.debug("Product {} {}", product.name(), matched);
+                    return ProductOrderOutcome.decremented();
+                }
+                return next.evaluate(product, orderId);
+            };
+            case DELAY -> (product, orderId) -> {
+                logger.debug("Product {} {}", product.name(), matched);
+                if (settings.isNotify()) {
+                    notificationPublisher.publishDelay(product.leadTime(), product.name());
+                }
+                discard(settings, product, orderId);
+                return ProductOrderOutcome.delayed(product.leadTime());
+            };
+            case OUT_OF_STOCK -> (product, orderId) -> {
+                logger.debug("Product {} {}", product.name(), matched);
+                if (settings.isNotify()) {
+                    notificationPublisher.publishOutOfStock(product.name());
+                }
+                discard(settings, product, orderId);
+                return ProductOrderOutcome.outOfStock();
+            };
+            case EXPIRE -> (product, orderId) -> {
+                logger.debug("Product {} {}", product.name(), matched);
+                if (settings.isNotify()) {
+                    notificationPublisher.publishExpiration(product.name(), product.expiryDate());
+                }
+                discard(settings, product, orderId);
+                return ProductOrderOutcome.expired();
+            };
+        };
+    }
+
+    private boolean decrement(ProductStockView product, Long orderId) {
+        // Shards already spread the contention the combiner would batch, and it only knows the products row
+        if (stockDecrementCombiner != null && !product.sharded()) {
+            return stockDecrementCombiner.tryDecrement(product.id(), orderId);
+        }
+        return inventory.takeOne(product, orderId);
+    }
+
+    private void discard(ProductRuleProperties.Rule settings, ProductStockView product, Long orderId) {
+        if (settings.getDiscard() != null) {
+            inventory.discardAll(product, settings.getDiscard(), orderId);
+        }
+    }
+
+    private static Set<RuleCondition> conditions(Set<RuleCondition> when) {
+        return when.isEmpty() ? EnumSet.noneOf(RuleCondition.class) : EnumSet.copyOf(when);
+    }
+
+    /** A rule still to be placed in the tree, with the conditions not yet tested on the way to it. */
+    private record PendingRule(int number, ProductRuleProperties.Rule rule, Set<RuleCondition> conditions) {
+
+        PendingRule without(RuleCondition condition) {
+            if (!conditions.contains(condition)) {
+                return this;
+            }
+            Set<RuleCondition> remaining = EnumSet.copyOf(conditions);
+            remaining.remove(condition);
+            return new PendingRule(number, rule, remaining);
+        }
+    }
+
+    private record Branch(Predicate<ProductStockView> test, Node whenTrue, Node whenFalse) implements Node {
+
+        @Override
+        public ProductOrderOutcome evaluate(ProductStockView product, Long orderId) {
+            return test.test(product) ? whenTrue.evaluate(product, orderId) : whenFalse.evaluate(product, orderId);
+        }
+    }
+}
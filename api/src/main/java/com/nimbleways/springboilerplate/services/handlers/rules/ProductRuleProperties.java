@@ -0,0 +1,51 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders.product-rules")
+public class ProductRuleProperties {
+
+    /** Keyed by product type; a type listed here is processed by its rules rather than by a handler bean. */
+    private Map<String, TypeRules> types = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class TypeRules {
+
+        /** Days from its expiry date on which a product still counts as {@link RuleCondition#NOT_EXPIRED}. */
+        private int expiryGraceDays;
+
+        /** Tried in order: the first one whose conditions all hold decides the outcome of the item. */
+        private List<Rule> rules = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Rule {
+
+        /** Conditions that must all hold; none for the fallback rule, which must come last. */
+        private Set<RuleCondition> when = EnumSet.noneOf(RuleCondition.class);
+
+        private RuleAction then;
+
+        /** Publishes the notification of the outcome: delay, out of stock or expiration. */
+        private boolean notify;
+
+        /** Discards all the stock of the product, recorded in the ledger with this reason. */
+        private StockLedgerEntry.Reason discard;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+
+/**
+ * The rules of a product type compiled by {@link ProductRuleCompiler} into a decision tree: each condition is tested
+ * at most once per item, and only the conditions on the path to the outcome are. Thread-safe and immutable.
+ */
+public final class ProductRuleSet {
+
+    private final String type;
+    private final Node root;
+
+    ProductRuleSet(String type, Node root) {
+        this.type = type;
+        this.root = root;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Applies the first rule that holds for the product, without a transaction of its own.
+     *
+     * @param orderId recorded with the resulting stock mutation in the ledger
+     */
+    public ProductOrderOutcome evaluate(ProductStockView product, Long orderId) {
+        return root.evaluate(product, orderId);
+    }
+
+    // Nothing is allocated on the way down, so the tree costs no more than the handler beans' if/else
+    interface Node {
+        ProductOrderOutcome evaluate(ProductStockView product, Long orderId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+public enum RuleAction {
+    /** Takes one unit; when none could be taken, the following rules are tried. */
+    DECREMENT,
+    /** Delayed by the product's lead time. */
+    DELAY,
+    OUT_OF_STOCK,
+    EXPIRE
+}
@@ -0,0 +1,35 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
+
+/**
+ * Handler of a product type defined by configuration. Not a bean, so the nested transaction the handler beans get
+ * from {@code @Transactional} is opened with a template.
+ */
+final class RuleBasedProductHandler implements ProductTypeHandler {
+
+    private final ProductRuleSet rules;
+    private final TransactionTemplate transactionTemplate;
+
+    RuleBasedProductHandler(ProductRuleSet rules, PlatformTransactionManager transactionManager) {
+        this.rules = rules;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    @Override
+    public ProductOrderOutcome processProductOrder(ProductStockView product, Long orderId) {
+        return transactionTemplate.execute(status -> rules.evaluate(product, orderId));
+    }
+
+    @Override
+    public String getSupportedType() {
+        return rules.getType();
+    }
+}
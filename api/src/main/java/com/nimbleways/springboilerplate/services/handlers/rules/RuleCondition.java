@@ -0,0 +1,18 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+/**
+ * What a rule can test about a product, on the business date of the
+ * {@link com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner}.
+ */
+public enum RuleCondition {
+    /** Its stock, shards included, is not empty. */
+    IN_STOCK,
+    /** It has no expiry date, or that date plus the grace days of its type is still ahead. */
+    NOT_EXPIRED,
+    /** Its season is running, so stock on hand can ship now. */
+    IN_SEASON,
+    /** Its season has started and a restock after the lead time still lands in season. */
+    DELIVERABLE_IN_SEASON,
+    /** It can be restocked: its lead time is positive. */
+    HAS_LEAD_TIME
+}
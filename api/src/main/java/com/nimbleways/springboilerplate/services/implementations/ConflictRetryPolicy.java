@@ -0,0 +1,94 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded retry for optimistic-lock conflicts on hot products. The uncontended path is a single call with no
+ * overhead; on conflict the caller retries after a full-jitter exponential backoff, so colliding requests spread
+ * out instead of colliding again, and gives up after {@code maxAttempts} with the last conflict.
+ */
+@Component
+public class ConflictRetryPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConflictRetryPolicy.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public ConflictRetryPolicy(MeterRegistry meterRegistry,
+            @Value("${orders.conflict-retry.max-attempts:4}") int maxAttempts,
+            @Value("${orders.conflict-retry.initial-backoff-ms:5}") long initialBackoffMs,
+            @Value("${orders.conflict-retry.max-backoff-ms:100}") long maxBackoffMs) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Conflict retry needs at least one attempt: " + maxAttempts);
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * @param productType metric tag
+     * @param attempt     called with the attempt number, starting at 0; later attempts must work on fresh state
+     */
+    public <T> T execute(String productType, IntFunction<T> attempt) {
+        return execute(productType, true, attempt);
+    }
+
+    /**
+     * Same bounded retry without the backoff, for callers that hold locks or a connection while they would sleep:
+     * each attempt already works on fresh state, and waiting would only stall the orders queued on those locks.
+     */
+    public <T> T executeWithoutBackoff(String productType, IntFunction<T> attempt) {
+        return execute(productType, false, attempt);
+    }
+
+    private <T> T execute(String productType, boolean backOff, IntFunction<T> attempt) {
+        for (int attemptNumber = 0; ; attemptNumber++) {
+            try {
+                return attempt.apply(attemptNumber);
+            } catch (OptimisticLockingFailureException conflict) {
+                counter("orders.item.conflicts", productType).increment();
+                if (attemptNumber + 1 >= maxAttempts) {
+                    counter("orders.item.retries.exhausted", productType).increment();
+                    throw conflict;
+                }
+                counter("orders.item.retries", productType).increment();
+                logger.debug("Conflict on {} product, retry {}/{}", productType, attemptNumber + 1, maxAttempts - 1);
+                if (backOff) {
+                    backOff(attemptNumber, conflict);
+                }
+            }
+        }
+    }
+
+    private void backOff(int attemptNumber, OptimisticLockingFailureException conflict) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attemptNumber, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private Counter counter(String name, String productType) {
+        return meterRegistry.counter(name, "type", String.valueOf(productType));
+    }
+}
@@ -0,0 +1,27 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides, once per order, whether the per-item traces of that order are logged at INFO.
+ * Sampling the whole order keeps sampled traces complete instead of scattering single items.
+ */
+@Component
+public class ItemTraceSampler {
+
+    private final double sampleRate;
+
+    public ItemTraceSampler(@Value("${orders.logging.item-trace-sample-rate:0.01}") double sampleRate) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("Item trace sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean shouldTrace() {
+        return sampleRate > 0.0 && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
@@ -1,18 +1,53 @@
 package com.nimbleways.springboilerplate.services.implementations;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.nimbleways.springboilerplate.dto.product.OrderDetailsResponse;
+import com.nimbleways.springboilerplate.dto.product.OrderItemOutcomeResponse;
+import com.nimbleways.springboilerplate.dto.product.OrderItemResponse;
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderReportResponse;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
 import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
 import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.diagnostics.OrderProcessingEvent;
+import com.nimbleways.springboilerplate.services.diagnostics.ProductHandlerEvent;
+import com.nimbleways.springboilerplate.services.diagnostics.TraceAttributes;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderStatus;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
 import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandlerFactory;
+import com.nimbleways.springboilerplate.services.limiting.ProductTypeLimiter;
+import com.nimbleways.springboilerplate.services.lookup.OrderIdFilter;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -20,29 +55,270 @@ public class OrderServiceImpl implements OrderService {
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
 
     private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
     private final ProductTypeHandlerFactory productTypeHandlerFactory;
+    private final ItemTraceSampler itemTraceSampler;
+    private final ConflictRetryPolicy conflictRetryPolicy;
+    private final ProductTypeLimiter productTypeLimiter;
+    private final EntityManager entityManager;
+    private final OrderTransactionScope transactionScope;
+    private final TransactionTemplate transactionTemplate;
+    private final Tracer tracer;
+    private final OrderIdFilter orderIdFilter;
 
-    public OrderServiceImpl(OrderRepository orderRepository, ProductTypeHandlerFactory productTypeHandlerFactory) {
+    public OrderServiceImpl(OrderRepository orderRepository, ProductRepository productRepository,
+            ProductTypeHandlerFactory productTypeHandlerFactory, ItemTraceSampler itemTraceSampler,
+            ConflictRetryPolicy conflictRetryPolicy, ProductTypeLimiter productTypeLimiter,
+            PlatformTransactionManager transactionManager, EntityManager entityManager,
+            @Value("${orders.transaction-scope:order}") OrderTransactionScope transactionScope, Tracer tracer,
+            ObjectProvider<OrderIdFilter> orderIdFilter) {
         this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
         this.productTypeHandlerFactory = productTypeHandlerFactory;
+        this.itemTraceSampler = itemTraceSampler;
+        this.conflictRetryPolicy = conflictRetryPolicy;
+        this.productTypeLimiter = productTypeLimiter;
+        this.entityManager = entityManager;
+        this.transactionScope = transactionScope;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tracer = tracer;
+        this.orderIdFilter = orderIdFilter.getIfAvailable();
     }
 
     @Override
     public ProcessOrderResponse processOrder(Long orderId) {
-        logger.info("Processing order {}", orderId);
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new OrderNotFoundException(orderId));
+        return new ProcessOrderResponse(processOrderWithReport(orderId).id());
+    }
+
+    @Override
+    public ProcessOrderReportResponse processOrderWithReport(Long orderId) {
+        rejectIfAbsent(orderId);
+        OrderProcessingEvent event = new OrderProcessingEvent();
+        event.begin();
+        Span span = tracer.spanBuilder("order.process")
+                .setAttribute(TraceAttributes.ORDER_ID, orderId)
+                .setAttribute(TraceAttributes.TRANSACTION_SCOPE, transactionScope.name())
+                .startSpan();
+        String outcome = "PROCESSED";
+        Scope scope = span.makeCurrent();
+        ProductTypeLimiter.Permit permit = null;
+        try {
+            permit = admit(orderId);
+            if (transactionScope == OrderTransactionScope.ITEM) {
+                return processItems(orderId, null, event);
+            }
+            return transactionTemplate.execute(status -> processItems(orderId, status, event));
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
+            scope.close();
+            span.setAttribute(TraceAttributes.OUTCOME, outcome);
+            span.end();
+            if (event.shouldCommit()) {
+                event.orderId = orderId;
+                event.transactionScope = transactionScope.name();
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    // Read-only: served by the replica when one is configured
+    @Override
+    @Transactional(readOnly = true)
+    public OrderDetailsResponse getOrder(Long orderId) {
+        rejectIfAbsent(orderId);
+        Order order = fetch("OrderRepository.findById", orderId, () -> orderRepository.findById(orderId))
+                .orElseThrow(() -> notFound(orderId));
+        List<OrderItemResponse> items = order.getItems().stream()
+                .sorted(Comparator.comparing(Product::getId))
+                .map(product -> new OrderItemResponse(product.getId(), product.getName(), product.getType(),
+                        product.getTotalAvailable(), product.getLeadTime()))
+                .toList();
+        return new OrderDetailsResponse(order.getId(), items);
+    }
+
+    /**
+     * @param orderTransaction status of the order transaction, {@code null} when each item commits on its own
+     * @param event committed by the caller, once the order transaction is
+     */
+    private ProcessOrderReportResponse processItems(Long orderId, TransactionStatus orderTransaction,
+            OrderProcessingEvent event) {
+        long startNanos = System.nanoTime();
+        // Projections sorted by id, so that concurrent orders lock their products in the same order
+        List<ProductStockView> products = fetch("OrderRepository.findItemStockByOrderId", orderId,
+                () -> orderRepository.findItemStockByOrderId(orderId));
+        if (products.isEmpty() && !orderRepository.existsById(orderId)) {
+            throw notFound(orderId);
+        }
+
+        boolean traced = itemTraceSampler.shouldTrace();
+        List<OrderItemOutcomeResponse> outcomes = new ArrayList<>(products.size());
+        int[] statusCounts = new int[ProductOrderStatus.values().length];
+        for (ProductStockView product : products) {
+            ProductOrderOutcome outcome = processOrderItem(orderId, product, orderTransaction, traced);
+            statusCounts[outcome.status().ordinal()]++;
+            outcomes.add(new OrderItemOutcomeResponse(product.id(), product.type(),
+                    outcome.status().name(), outcome.leadTime()));
+        }
+
+        logger.info("order.processed orderId={} items={} decremented={} delayed={} outOfStock={} expired={} failed={} durationMicros={}",
+                orderId, products.size(),
+                statusCounts[ProductOrderStatus.DECREMENTED.ordinal()],
+                statusCounts[ProductOrderStatus.DELAYED.ordinal()],
+                statusCounts[ProductOrderStatus.OUT_OF_STOCK.ordinal()],
+                statusCounts[ProductOrderStatus.EXPIRED.ordinal()],
+                statusCounts[ProductOrderStatus.FAILED.ordinal()],
+                (System.nanoTime() - startNanos) / 1_000);
+        event.items = products.size();
+        event.decremented = statusCounts[ProductOrderStatus.DECREMENTED.ordinal()];
+        event.failed = statusCounts[ProductOrderStatus.FAILED.ordinal()];
+        return new ProcessOrderReportResponse(orderId, outcomes);
+    }
+
+    private ProductOrderOutcome processOrderItem(Long orderId, ProductStockView product,
+            TransactionStatus orderTransaction, boolean traced) {
+        ProductOrderOutcome outcome;
+        try {
+            ProductTypeHandler handler = productTypeHandlerFactory.getHandler(product.type());
+            // No row lock: a versioned update that loses to another order fails inside the handler's savepoint,
+            // which rolls back alone, and the item is retried on the current row
+            IntFunction<ProductOrderOutcome> attempts =
+                    attempt -> handle(handler, attempt == 0 ? product : reload(product), orderId, attempt);
+            // Inside the order transaction a backoff would sleep on its connection and on the rows its earlier
+            // items updated, so the retry happens at once
+            outcome = orderTransaction != null
+                    ? conflictRetryPolicy.executeWithoutBackoff(product.type(), attempts)
+                    : conflictRetryPolicy.execute(product.type(), attempts);
+        } catch (OptimisticLockingFailureException conflict) {
+            // Still conflicting after the retries: the whole order rolls back and the client gets a 409 it can retry.
+            // Items committed on their own cannot be taken back, so they report FAILED instead of failing the order
+            if (orderTransaction != null) {
+                throw conflict;
+            }
+            logger.warn("order.item.failed orderId={} productId={} type={}", orderId, product.id(), product.type(),
+                    conflict);
+            return ProductOrderOutcome.failed();
+        } catch (RuntimeException e) {
+            // A failure that already doomed the order transaction cannot be confined to this item
+            if (orderTransaction != null && orderTransaction.isRollbackOnly()) {
+                throw e;
+            }
+            logger.warn("order.item.failed orderId={} productId={} type={}", orderId, product.id(), product.type(), e);
+            return ProductOrderOutcome.failed();
+        }
+        if (orderTransaction != null) {
+            // Written now, outside the next item's savepoint, so a later failure cannot roll it back
+            withEntityManager(EntityManager::flush);
+        }
+        if (traced) {
+            logger.info("order.item orderId={} productId={} type={} status={}",
+                    orderId, product.id(), product.type(), outcome.status());
+        } else {
+            logger.debug("order.item orderId={} productId={} type={} status={}",
+                    orderId, product.id(), product.type(), outcome.status());
+        }
+        return outcome;
+    }
+
+    private ProductOrderOutcome handle(ProductTypeHandler handler, ProductStockView product, Long orderId,
+            int attempt) {
+        ProductHandlerEvent event = new ProductHandlerEvent();
+        event.begin();
+        Span span = tracer.spanBuilder("handler.process")
+                .setAttribute(TraceAttributes.ORDER_ID, orderId)
+                .setAttribute(TraceAttributes.PRODUCT_ID, product.id())
+                .setAttribute(TraceAttributes.PRODUCT_TYPE, product.type())
+                .setAttribute(TraceAttributes.ATTEMPT, (long) attempt)
+                .startSpan();
+        String outcome = null;
+        Scope scope = span.makeCurrent();
+        try {
+            ProductOrderOutcome result = handler.processProductOrder(product, orderId);
+            outcome = result.status().name();
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            scope.close();
+            span.setAttribute(TraceAttributes.OUTCOME, outcome);
+            span.end();
+            if (event.shouldCommit()) {
+                event.orderId = orderId;
+                event.productId = product.id();
+                event.productType = product.type();
+                event.attempt = attempt;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Takes the permits of the order's product types before its transaction opens, so a refused order holds no
+     * connection and loads nothing; the types alone are looked up, and only when some type is limited.
+     */
+    private ProductTypeLimiter.Permit admit(Long orderId) {
+        if (!productTypeLimiter.hasLimits()) {
+            return null;
+        }
+        return productTypeLimiter.acquire(fetch("OrderRepository.findItemTypesByOrderId", orderId,
+                () -> orderRepository.findItemTypesByOrderId(orderId)));
+    }
+
+    // Ids the filter flags are confirmed by primary key alone, without a transaction, an event or a span
+    private void rejectIfAbsent(Long orderId) {
+        if (orderIdFilter != null && orderId != null
+                && orderIdFilter.lookup(orderId) == OrderIdFilter.Lookup.ABSENT) {
+            if (!orderRepository.existsById(orderId)) {
+                throw new OrderNotFoundException(orderId, true);
+            }
+            orderIdFilter.recordPresent(orderId);
+        }
+    }
 
-        Set<Product> products = order.getItems();
-        logger.debug("Order {} contains {} products", orderId, products.size());
-        products.forEach(this::processOrderItem);
+    private OrderNotFoundException notFound(Long orderId) {
+        if (orderIdFilter != null && orderId != null) {
+            orderIdFilter.recordMissing(orderId);
+        }
+        return new OrderNotFoundException(orderId);
+    }
+
+    private <T> T fetch(String spanName, Long orderId, Supplier<T> query) {
+        Span span = tracer.spanBuilder(spanName).setAttribute(TraceAttributes.ORDER_ID, orderId).startSpan();
+        Scope scope = span.makeCurrent();
+        try {
+            return query.get();
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
 
-        logger.info("Order {} processed successfully", orderId);
-        return new ProcessOrderResponse(order.getId());
+    private ProductStockView reload(ProductStockView product) {
+        return productRepository.findStockById(product.id()).orElse(product);
     }
 
-    private void processOrderItem(Product product) {
-        logger.debug("Processing product: {} (type: {})", product.getName(), product.getType());
-        productTypeHandlerFactory.getHandler(product.getType()).processProductOrder(product);
+    // The shared EntityManager does not translate persistence exceptions the way repositories do
+    private void withEntityManager(Consumer<EntityManager> work) {
+        try {
+            work.accept(entityManager);
+        } catch (RuntimeException e) {
+            DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
     }
 }
@@ -0,0 +1,11 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+/**
+ * How {@link OrderServiceImpl} commits an order. {@code ORDER} runs the whole order in one transaction with a
+ * savepoint per item; {@code ITEM} commits each item in its own transaction. Either way a failing item is rolled
+ * back alone and reported as failed, while the other items of the order go through.
+ */
+public enum OrderTransactionScope {
+    ORDER,
+    ITEM
+}
@@ -1,22 +1,31 @@
 package com.nimbleways.springboilerplate.services.implementations;
 
-import java.time.LocalDate;
+import java.util.List;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.nimbleways.springboilerplate.dto.product.SeasonalForecastResponse;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlan;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner;
 
 @Service
 public class ProductService {
 
     private final ProductRepository productRepository;
     private final NotificationService notificationService;
+    private final SeasonalDeliveryPlanner seasonalDeliveryPlanner;
 
-    public ProductService(ProductRepository productRepository, NotificationService notificationService) {
+    public ProductService(ProductRepository productRepository, NotificationService notificationService,
+            SeasonalDeliveryPlanner seasonalDeliveryPlanner) {
         this.productRepository = productRepository;
         this.notificationService = notificationService;
+        this.seasonalDeliveryPlanner = seasonalDeliveryPlanner;
     }
 
     public void notifyDelay(int leadTime, Product p) {
@@ -24,4 +33,28 @@ public class ProductService {
         productRepository.save(p);
         notificationService.sendDelayNotification(leadTime, p.getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * Answers what an order for each SEASONAL product would get today, using the same plans as order processing
+     * but without touching stock or sending notifications.
+     */
+    @Transactional(readOnly = true)
+    public List<SeasonalForecastResponse> getSeasonalForecast(int page, int size) {
+        return productRepository.findStockByType("SEASONAL", PageRequest.of(page, size, Sort.by("id"))).stream()
+                .map(this::forecast)
+                .toList();
+    }
+
+    private SeasonalForecastResponse forecast(ProductStockView product) {
+        SeasonalDeliveryPlan plan = seasonalDeliveryPlanner.plan(product);
+        if (plan.inSeason() && product.available() > 0) {
+            return new SeasonalForecastResponse(product.id(), product.name(), "IN_STOCK",
+                    seasonalDeliveryPlanner.businessDate());
+        }
+        if (plan.canFulfillWithDelay()) {
+            return new SeasonalForecastResponse(product.id(), product.name(), "DELAYED",
+                    plan.delayedDeliveryDate());
+        }
+        return new SeasonalForecastResponse(product.id(), product.name(), "UNAVAILABLE", null);
+    }
+}
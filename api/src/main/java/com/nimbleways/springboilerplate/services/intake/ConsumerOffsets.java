@@ -0,0 +1,94 @@
+package com.nimbleways.springboilerplate.services.intake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Next offset of each journal consumer, kept in a small memory-mapped file next to the segments. A write reaches the
+ * page cache at once, so it survives a crash of the process; {@link #force()} also makes it survive one of the host.
+ */
+final class ConsumerOffsets implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerOffsets.class);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final AtomicLongArray offsets;
+
+    private ConsumerOffsets(FileChannel channel, long[] initial) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) initial.length * Long.BYTES);
+        this.offsets = new AtomicLongArray(initial);
+        for (int consumer = 0; consumer < initial.length; consumer++) {
+            buffer.putLong(consumer * Long.BYTES, initial[consumer]);
+        }
+        buffer.force();
+    }
+
+    /**
+     * When the number of consumers changed, every consumer restarts from the lowest stored offset: orders move to
+     * another consumer, and starting lower replays some commands rather than skipping any.
+     */
+    static ConsumerOffsets open(Path file, int consumers, long firstOffset) throws IOException {
+        long[] initial = new long[consumers];
+        if (Files.exists(file)) {
+            ByteBuffer stored = ByteBuffer.wrap(Files.readAllBytes(file));
+            long[] previous = new long[stored.remaining() / Long.BYTES];
+            for (int consumer = 0; consumer < previous.length; consumer++) {
+                previous[consumer] = Math.max(stored.getLong(), firstOffset);
+            }
+            if (previous.length == consumers) {
+                initial = previous;
+            } else {
+                long lowest = Arrays.stream(previous).min().orElse(firstOffset);
+                logger.warn("Intake journal consumers changed from {} to {}, all restart at offset {}",
+                        previous.length, consumers, lowest);
+                Arrays.fill(initial, lowest);
+            }
+        } else {
+            Arrays.fill(initial, firstOffset);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        channel.truncate((long) consumers * Long.BYTES);
+        return new ConsumerOffsets(channel, initial);
+    }
+
+    long get(int consumer) {
+        return offsets.get(consumer);
+    }
+
+    void set(int consumer, long offset) {
+        offsets.set(consumer, offset);
+        buffer.putLong(consumer * Long.BYTES, offset);
+    }
+
+    long min() {
+        long min = Long.MAX_VALUE;
+        for (int consumer = 0; consumer < offsets.length(); consumer++) {
+            min = Math.min(min, offsets.get(consumer));
+        }
+        return min;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.nimbleways.springboilerplate.services.intake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped file of fixed-size records, named after the offset of its first record. A record is
+ * {@code magic, crc, offset, orderId, appendedAt} in 32 bytes, so records never straddle a page; the CRC covers the
+ * last three fields and the magic is written last, so a record torn by a crash reads as absent.
+ */
+final class JournalSegment implements Closeable {
+
+    static final int RECORD_SIZE = 32;
+    static final String SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x4F524431;
+    private static final int PAYLOAD_POSITION = 8;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - PAYLOAD_POSITION;
+
+    private final Path path;
+    private final long baseOffset;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, long baseOffset, int capacity, FileChannel channel) throws IOException {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+    }
+
+    static JournalSegment create(Path directory, long baseOffset, int capacity) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new JournalSegment(path, baseOffset, capacity, channel);
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long baseOffset = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        int capacity = Math.toIntExact(Files.size(path) / RECORD_SIZE);
+        return new JournalSegment(path, baseOffset, capacity, FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    void write(long offset, long orderId, long appendedAtMillis) {
+        int position = position(offset);
+        buffer.putLong(position + PAYLOAD_POSITION, offset);
+        buffer.putLong(position + PAYLOAD_POSITION + 8, orderId);
+        buffer.putLong(position + PAYLOAD_POSITION + 16, appendedAtMillis);
+        buffer.putInt(position + 4, checksum(position));
+        buffer.putInt(position, MAGIC);
+    }
+
+    /**
+     * @return the record, or {@code null} if none was completely written at this offset
+     */
+    OrderIntakeJournal.Entry read(long offset) {
+        int position = position(offset);
+        if (buffer.getInt(position) != MAGIC
+                || buffer.getInt(position + 4) != checksum(position)
+                || buffer.getLong(position + PAYLOAD_POSITION) != offset) {
+            return null;
+        }
+        return new OrderIntakeJournal.Entry(offset, buffer.getLong(position + PAYLOAD_POSITION + 8),
+                Instant.ofEpochMilli(buffer.getLong(position + PAYLOAD_POSITION + 16)));
+    }
+
+    /**
+     * @return the number of leading records that were completely written, where a crash recovery resumes appending
+     */
+    int writtenRecords() {
+        int written = 0;
+        while (written < capacity && read(baseOffset + written) != null) {
+            written++;
+        }
+        return written;
+    }
+
+    void force(long fromOffset, long toOffset) {
+        if (toOffset > fromOffset) {
+            buffer.force(position(fromOffset), (int) (toOffset - fromOffset) * RECORD_SIZE);
+        }
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    long endOffset() {
+        return baseOffset + capacity;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    Instant lastModified() throws IOException {
+        return Files.getLastModifiedTime(path).toInstant();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int position(long offset) {
+        return Math.toIntExact(offset - baseOffset) * RECORD_SIZE;
+    }
+
+    private int checksum(int position) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + PAYLOAD_POSITION, PAYLOAD_SIZE));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,300 @@
+package com.nimbleways.springboilerplate.services.intake;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.exceptions.IntakeJournalUnavailableException;
+
+/**
+ * Append-only journal of order processing commands in memory-mapped segment files. Appends are written to the
+ * mapping under a lock and made durable by a single flusher thread that forces every record appended since its last
+ * pass at once (group commit), so an append returns after one fsync shared with the concurrent appends.
+ * On startup the segments are reopened and appending resumes after the last completely written record.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.intake.journal.enabled", havingValue = "true")
+public class OrderIntakeJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeJournal.class);
+
+    public record Entry(long offset, long orderId, Instant appendedAt) {
+    }
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long groupCommitNanos;
+    private final long flushTimeoutNanos;
+    private final ConcurrentNavigableMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Signalled by append and close, so an idle flusher sleeps instead of polling the lock
+    private final Condition appended = appendLock.newCondition();
+    private final Object durability = new Object();
+    private final Thread flusher;
+
+    private JournalSegment activeSegment;
+    private long endOffset;
+    private volatile long durableOffset;
+    private volatile RuntimeException flushFailure;
+    private volatile boolean closed;
+
+    public OrderIntakeJournal(@Value("${orders.intake.journal.directory:data/order-intake}") Path directory,
+            @Value("${orders.intake.journal.segment-records:1048576}") int segmentRecords,
+            @Value("${orders.intake.journal.group-commit-micros:200}") long groupCommitMicros,
+            @Value("${orders.intake.journal.flush-timeout-ms:5000}") long flushTimeoutMs) {
+        if (segmentRecords < 1 || groupCommitMicros < 0 || flushTimeoutMs < 1) {
+            throw new IllegalArgumentException("Invalid intake journal settings: segmentRecords=" + segmentRecords
+                    + ", groupCommitMicros=" + groupCommitMicros + ", flushTimeoutMs=" + flushTimeoutMs);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.flushTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(flushTimeoutMs);
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the intake journal in " + directory, e);
+        }
+        this.flusher = new Thread(this::flushLoop, "intake-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * @return the offset of the command, durable once this returns
+     * @throws IntakeJournalUnavailableException if it could not be made durable within the flush timeout
+     */
+    public long append(long orderId) {
+        long offset;
+        appendLock.lock();
+        try {
+            if (closed || flushFailure != null) {
+                throw new IntakeJournalUnavailableException(closed ? "Intake journal is closed"
+                        : "Intake journal flush failed: " + flushFailure.getMessage());
+            }
+            if (endOffset == activeSegment.endOffset()) {
+                roll();
+            }
+            offset = endOffset;
+            activeSegment.write(offset, orderId, System.currentTimeMillis());
+            endOffset = offset + 1;
+            appended.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        if (!awaitDurable(offset + 1, flushTimeoutNanos)) {
+            RuntimeException failure = flushFailure;
+            throw new IntakeJournalUnavailableException(failure != null
+                    ? "Intake journal flush failed: " + failure.getMessage()
+                    : "Intake journal not flushed within " + Duration.ofNanos(flushTimeoutNanos).toMillis() + " ms");
+        }
+        return offset;
+    }
+
+    /**
+     * @return whether every record below {@code offset} is durable, after waiting up to {@code timeoutNanos}
+     */
+    public boolean awaitDurable(long offset, long timeoutNanos) {
+        if (durableOffset >= offset) {
+            return true;
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        synchronized (durability) {
+            while (durableOffset < offset && flushFailure == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(durability, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return durableOffset >= offset;
+        }
+    }
+
+    /**
+     * @return the durable record at this offset, or {@code null} if it is not durable yet or was deleted
+     */
+    public Entry read(long offset) {
+        if (offset >= durableOffset) {
+            return null;
+        }
+        Map.Entry<Long, JournalSegment> segment = segments.floorEntry(offset);
+        return segment == null ? null : segment.getValue().read(offset);
+    }
+
+    /**
+     * @return the offset of the oldest record still kept
+     */
+    public long firstOffset() {
+        return segments.firstKey();
+    }
+
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Deletes the segments whose records are all below {@code offset} and that were last written before
+     * {@code writtenBefore}; the segment being appended to is always kept.
+     *
+     * @return the number of segments deleted
+     */
+    public int deleteSegmentsBefore(long offset, Instant writtenBefore) {
+        int deleted = 0;
+        for (JournalSegment segment : List.copyOf(segments.values())) {
+            if (segment.endOffset() > offset || isActive(segment)) {
+                break;
+            }
+            try {
+                if (segment.lastModified().isBefore(writtenBefore)) {
+                    segments.remove(segment.baseOffset());
+                    segment.close();
+                    Files.delete(segment.path());
+                    deleted++;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not delete intake journal segment {}", segment.path(), e);
+            }
+        }
+        return deleted;
+    }
+
+    @PreDestroy
+    public void close() {
+        appendLock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        // Cuts a group commit wait short
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushTimeoutNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (JournalSegment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Could not close intake journal segment {}", segment.path(), e);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(file -> file.getFileName().toString().endsWith(JournalSegment.SUFFIX)).toList()) {
+                JournalSegment segment = JournalSegment.open(path);
+                segments.put(segment.baseOffset(), segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            JournalSegment segment = JournalSegment.create(directory, 0, segmentRecords);
+            segments.put(0L, segment);
+        }
+        activeSegment = segments.lastEntry().getValue();
+        endOffset = activeSegment.baseOffset() + activeSegment.writtenRecords();
+        durableOffset = endOffset;
+        logger.info("Intake journal opened in {}: {} segment(s), records {} to {}", directory, segments.size(),
+                segments.firstKey(), endOffset);
+    }
+
+    // Called under the append lock; the full segment is forced here so the flusher only ever forces the active one
+    private void roll() {
+        try {
+            activeSegment.force(Math.max(durableOffset, activeSegment.baseOffset()), endOffset);
+            JournalSegment next = JournalSegment.create(directory, endOffset, segmentRecords);
+            segments.put(next.baseOffset(), next);
+            activeSegment = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll the intake journal at offset " + endOffset, e);
+        }
+    }
+
+    private boolean isActive(JournalSegment segment) {
+        appendLock.lock();
+        try {
+            return segment == activeSegment;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            boolean stopping;
+            appendLock.lock();
+            try {
+                while (endOffset == durableOffset && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (endOffset == durableOffset) {
+                    return;
+                }
+                stopping = closed;
+            } finally {
+                appendLock.unlock();
+            }
+            if (groupCommitNanos > 0 && !stopping) {
+                // Lets the appends of a burst join this fsync instead of waiting for the next one
+                LockSupport.parkNanos(this, groupCommitNanos);
+            }
+            JournalSegment segment;
+            long target;
+            appendLock.lock();
+            try {
+                segment = activeSegment;
+                target = endOffset;
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                segment.force(Math.max(durableOffset, segment.baseOffset()), target);
+            } catch (RuntimeException e) {
+                logger.error("Intake journal flush failed, appends are refused", e);
+                flushFailure = e;
+                synchronized (durability) {
+                    durability.notifyAll();
+                }
+                return;
+            }
+            synchronized (durability) {
+                durableOffset = target;
+                durability.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.nimbleways.springboilerplate.services.intake;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.OrderThrottledException;
+import com.nimbleways.springboilerplate.services.OrderService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replays the intake journal into {@link OrderService#processOrder}. Each consumer thread reads the whole journal and
+ * processes the orders whose id falls in its share, so commands for one order stay in journal order. Offsets are
+ * persisted after every record, which makes delivery at-least-once: a command being processed during a crash is
+ * processed again on restart, as with the partitioned queue.
+ * <p>
+ * A throttled command or one failing because the database is unavailable is retried until it goes through, holding
+ * back the commands after it. Only a command that cannot succeed, for an unknown order or product type, is skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.intake.journal.enabled", havingValue = "true")
+public class OrderJournalConsumers {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderJournalConsumers.class);
+
+    static final String OFFSETS_FILE = "consumer-offsets";
+
+    private static final int FORCE_EVERY_RECORDS = 1024;
+
+    private final OrderIntakeJournal journal;
+    private final OrderService orderService;
+    private final int consumers;
+    private final long pollIntervalNanos;
+    private final Duration retention;
+    private final long retryInitialBackoffMs;
+    private final long retryMaxBackoffMs;
+    private final ConsumerOffsets offsets;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public OrderJournalConsumers(OrderIntakeJournal journal, OrderService orderService, MeterRegistry meterRegistry,
+            @Value("${orders.intake.journal.consumers:2}") int consumers,
+            @Value("${orders.intake.journal.poll-interval-ms:100}") long pollIntervalMs,
+            @Value("${orders.intake.journal.retention:24h}") Duration retention,
+            @Value("${orders.intake.journal.retry-initial-backoff-ms:100}") long retryInitialBackoffMs,
+            @Value("${orders.intake.journal.retry-max-backoff-ms:5000}") long retryMaxBackoffMs) {
+        if (consumers < 1) {
+            throw new IllegalArgumentException("Intake journal needs at least one consumer: " + consumers);
+        }
+        this.journal = journal;
+        this.orderService = orderService;
+        this.consumers = consumers;
+        this.pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+        this.retention = retention;
+        this.retryInitialBackoffMs = retryInitialBackoffMs;
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+        try {
+            this.offsets = ConsumerOffsets.open(journal.directory().resolve(OFFSETS_FILE), consumers,
+                    journal.firstOffset());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the intake journal consumer offsets", e);
+        }
+        Gauge.builder("orders.intake.journal.lag", this, self -> journal.durableOffset() - self.offsets.min())
+                .description("Durable commands not yet processed by the slowest consumer")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int consumer = 0; consumer < consumers; consumer++) {
+            int id = consumer;
+            Thread thread = new Thread(() -> consume(id), "intake-journal-consumer-" + id);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        logger.info("Intake journal consumers started at offsets {}..{} of {}", offsets.min(),
+                journal.durableOffset(), journal.durableOffset());
+    }
+
+    @Scheduled(fixedDelayString = "${orders.intake.journal.retention-check-interval-ms:60000}")
+    public void deleteConsumedSegments() {
+        int deleted = journal.deleteSegmentsBefore(offsets.min(), Instant.now().minus(retention));
+        if (deleted > 0) {
+            logger.info("Deleted {} consumed intake journal segment(s)", deleted);
+        }
+    }
+
+    /**
+     * @return the next offset of the slowest consumer
+     */
+    public long committedOffset() {
+        return offsets.min();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(pollIntervalNanos) + 5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            offsets.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the intake journal consumer offsets", e);
+        }
+    }
+
+    private void consume(int consumer) {
+        long offset = Math.max(offsets.get(consumer), journal.firstOffset());
+        while (running) {
+            if (!journal.awaitDurable(offset + 1, pollIntervalNanos)) {
+                continue;
+            }
+            OrderIntakeJournal.Entry entry = journal.read(offset);
+            if (entry == null) {
+                logger.error("Intake journal record {} is unreadable, skipped", offset);
+            } else if (Math.floorMod(entry.orderId(), consumers) == consumer && !process(entry)) {
+                return;
+            }
+            offset++;
+            offsets.set(consumer, offset);
+            if (offset % FORCE_EVERY_RECORDS == 0 || offset == journal.durableOffset()) {
+                offsets.force();
+            }
+        }
+    }
+
+    /**
+     * @return false if stopped before the command was processed, which leaves it for the next start
+     */
+    private boolean process(OrderIntakeJournal.Entry entry) {
+        for (int failures = 0; running; ) {
+            long backoffMs;
+            try {
+                orderService.processOrder(entry.orderId());
+                return true;
+            } catch (OrderThrottledException e) {
+                logger.debug("Journaled order {} throttled, retried in {}", entry.orderId(), e.getRetryAfter());
+                backoffMs = e.getRetryAfter().toMillis();
+            } catch (TransientDataAccessException | DataAccessResourceFailureException
+                    | CannotCreateTransactionException e) {
+                backoffMs = Math.min(retryMaxBackoffMs, retryInitialBackoffMs << Math.min(failures++, 20));
+                logger.warn("Journaled order {} at offset {} failed, retried in {} ms", entry.orderId(), entry.offset(),
+                        backoffMs, e);
+            } catch (OrderNotFoundException | IllegalArgumentException e) {
+                logger.warn("Journaled order {} at offset {} cannot be processed, skipped", entry.orderId(),
+                        entry.offset(), e);
+                return true;
+            } catch (RuntimeException e) {
+                logger.error("Journaled order {} at offset {} failed, skipped", entry.orderId(), entry.offset(), e);
+                return true;
+            }
+            try {
+                Thread.sleep(Math.max(1, backoffMs));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+package com.nimbleways.springboilerplate.services.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+
+/**
+ * Stock changes made by order processing, each recorded in the ledger. A product with a single stock row is written
+ * with a versioned update of that row; a sharded product is decremented on one of its shards, so concurrent orders
+ * for a hot product mostly lock different rows.
+ */
+@Component
+public class ProductInventory {
+
+    private final ProductStockUpdates stockUpdates;
+    private final StockLedger stockLedger;
+    private final ShardSelection shardSelection;
+
+    public ProductInventory(ProductStockUpdates stockUpdates, StockLedger stockLedger,
+            @Value("${stock.sharding.shard-selection:random}") ShardSelection shardSelection) {
+        this.stockUpdates = stockUpdates;
+        this.stockLedger = stockLedger;
+        this.shardSelection = shardSelection;
+    }
+
+    /**
+     * Takes one unit of a product whose view shows stock.
+     *
+     * @return whether the unit was taken; only a sharded product can turn out to be empty, since its shards are not
+     * versioned
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if an unsharded product changed
+     */
+    public boolean takeOne(ProductStockView product, Long orderId) {
+        if (product.sharded()) {
+            if (!stockUpdates.takeFromShards(product, shardSelection.firstShard(product.stockShards()))) {
+                return false;
+            }
+        } else {
+            stockUpdates.updateAvailable(product, product.available() - 1);
+        }
+        stockLedger.record(product.id(), -1, StockLedgerEntry.Reason.ORDER, orderId);
+        return true;
+    }
+
+    /**
+     * Removes all the stock of a product, e.g. once it expired. Stock already empty changes nothing and is not
+     * recorded.
+     */
+    public void discardAll(ProductStockView product, StockLedgerEntry.Reason reason, Long orderId) {
+        int discarded;
+        if (product.sharded()) {
+            discarded = stockUpdates.emptyShards(product);
+        } else {
+            discarded = product.available();
+            if (discarded != 0) {
+                stockUpdates.updateAvailable(product, 0);
+            }
+        }
+        if (discarded != 0) {
+            stockLedger.record(product.id(), -discarded, reason, orderId);
+        }
+    }
+}
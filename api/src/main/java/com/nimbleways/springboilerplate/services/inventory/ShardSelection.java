@@ -0,0 +1,25 @@
+package com.nimbleways.springboilerplate.services.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Which shard of a sharded product an order tries first; the others are only tried when it is empty.
+ */
+public enum ShardSelection {
+    // Spreads concurrent orders evenly whatever thread they run on
+    RANDOM {
+        @Override
+        int firstShard(int shards) {
+            return ThreadLocalRandom.current().nextInt(shards);
+        }
+    },
+    // A worker thread keeps hitting the same shard, so it rarely waits on a row another worker just locked
+    THREAD {
+        @Override
+        int firstShard(int shards) {
+            return (int) Math.floorMod(Thread.currentThread().getId(), (long) shards);
+        }
+    };
+
+    abstract int firstShard(int shards);
+}
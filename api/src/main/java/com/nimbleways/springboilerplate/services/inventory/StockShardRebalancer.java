@@ -0,0 +1,134 @@
+package com.nimbleways.springboilerplate.services.inventory;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductStockShard;
+import com.nimbleways.springboilerplate.exceptions.ProductNotFoundException;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockShardRepository;
+
+/**
+ * Spreads the stock of sharded products evenly over their shards: units added to the {@code products} row, shards
+ * drained by orders that kept picking them, and shard counts changed by {@link #reshard}. A product is rebalanced
+ * under the lock of its row and of all its shards, so the total it moves around cannot change meanwhile; that total,
+ * the row plus the shards, is what the ledger sees, so rebalancing records nothing.
+ */
+@Component
+public class StockShardRebalancer {
+
+    /**
+     * @param undistributed units on the {@code products} row, not spread over the shards yet
+     * @param shards units in each shard, by shard number
+     */
+    public record ShardedStock(Long productId, int undistributed, List<Integer> shards) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(StockShardRebalancer.class);
+
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxShards;
+
+    public StockShardRebalancer(ProductRepository productRepository, ProductStockShardRepository shardRepository,
+            EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+            @Value("${stock.sharding.rebalance.enabled:true}") boolean enabled,
+            @Value("${stock.sharding.rebalance.batch-size:100}") int batchSize,
+            @Value("${stock.sharding.max-shards:64}") int maxShards) {
+        this.productRepository = productRepository;
+        this.shardRepository = shardRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxShards = maxShards;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.sharding.rebalance.interval-ms:5000}",
+            initialDelayString = "${stock.sharding.rebalance.interval-ms:5000}")
+    public void rebalanceAll() {
+        if (!enabled) {
+            return;
+        }
+        int rebalanced;
+        do {
+            rebalanced = rebalanceBatch();
+        } while (rebalanced == batchSize);
+    }
+
+    /**
+     * @return the number of products rebalanced
+     */
+    public int rebalanceBatch() {
+        List<Long> productIds = shardRepository.findProductsToRebalance(PageRequest.of(0, batchSize));
+        productIds.forEach(productId -> rebalance(productId, null));
+        if (!productIds.isEmpty()) {
+            logger.debug("stock.sharding.rebalanced products={}", productIds.size());
+        }
+        return productIds.size();
+    }
+
+    /**
+     * Splits the stock of a product across {@code shards} rows, or merges it back into its {@code products} row
+     * with 0.
+     *
+     * @return the stock of the product after the change
+     */
+    public ShardedStock reshard(Long productId, int shards) {
+        if (shards < 0 || shards > maxShards) {
+            throw new IllegalArgumentException("Shard count must be between 0 and " + maxShards + ": " + shards);
+        }
+        rebalance(productId, shards);
+        logger.info("stock.sharding.reshard productId={} shards={}", productId, shards);
+        return describe(productId);
+    }
+
+    public ShardedStock describe(Long productId) {
+        return transactionTemplate.execute(status -> {
+            Product product = productRepository.findCurrentById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
+            return new ShardedStock(productId, product.getAvailable(),
+                    shardRepository.findByProductIdOrderByShard(productId).stream()
+                            .map(ProductStockShard::getAvailable).toList());
+        });
+    }
+
+    private void rebalance(Long productId, Integer newShards) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (productRepository.lockAvailable(productId) == null) {
+                throw new ProductNotFoundException(productId);
+            }
+            Product product = productRepository.findCurrentById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException(productId));
+            List<ProductStockShard> current = shardRepository.lockByProductId(productId);
+            int total = product.getAvailable() + current.stream().mapToInt(ProductStockShard::getAvailable).sum();
+            int shards = newShards != null ? newShards : product.getStockShards();
+
+            shardRepository.deleteShardsFrom(productId, shards);
+            for (int shard = 0; shard < shards; shard++) {
+                int share = total / shards + (shard < total % shards ? 1 : 0);
+                shardRepository.save(new ProductStockShard(productId, shard, share));
+            }
+            product.setStockShards(shards);
+            product.setAvailable(shards == 0 ? total : 0);
+            productRepository.save(product);
+        });
+        // The cached product holds the shard total it was loaded with
+        entityManagerFactory.getCache().evict(Product.class, productId);
+    }
+}
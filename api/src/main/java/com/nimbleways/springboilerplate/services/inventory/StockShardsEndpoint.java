@@ -0,0 +1,38 @@
+package com.nimbleways.springboilerplate.services.inventory;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.services.inventory.StockShardRebalancer.ShardedStock;
+
+/**
+ * Stock sharding of hot products, off unless {@code management.endpoint.stockshards.enabled} is set:
+ * <ul>
+ *     <li>{@code GET /actuator/stockshards/{productId}}: units per shard and not distributed yet</li>
+ *     <li>{@code POST /actuator/stockshards/{productId}} with {@code {"shards": n}}: splits its stock across n rows,
+ *     or merges it back with 0</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "stockshards")
+public class StockShardsEndpoint {
+
+    private final StockShardRebalancer rebalancer;
+
+    public StockShardsEndpoint(StockShardRebalancer rebalancer) {
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public ShardedStock shards(@Selector Long productId) {
+        return rebalancer.describe(productId);
+    }
+
+    @WriteOperation
+    public ShardedStock reshard(@Selector Long productId, int shards) {
+        return rebalancer.reshard(productId, shards);
+    }
+}
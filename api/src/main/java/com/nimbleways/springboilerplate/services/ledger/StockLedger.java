@@ -0,0 +1,31 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import java.time.Instant;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+
+/**
+ * Appends stock mutations to the ledger. Must run inside the transaction that changes {@code products.available},
+ * so that the entry and the change commit or roll back together.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class StockLedger {
+
+    private final StockLedgerRepository ledgerRepository;
+
+    public StockLedger(StockLedgerRepository ledgerRepository) {
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    public void record(Long productId, int delta, StockLedgerEntry.Reason reason, Long orderId) {
+        if (delta != 0) {
+            ledgerRepository.save(new StockLedgerEntry(null, productId, orderId, delta, reason, false, Instant.now()));
+        }
+    }
+}
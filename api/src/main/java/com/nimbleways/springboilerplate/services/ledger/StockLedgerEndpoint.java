@@ -0,0 +1,51 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.services.ledger.StockLedgerReplay.ProductStock;
+
+/**
+ * Incident tooling over the stock ledger, off unless {@code management.endpoint.stockledger.enabled} is set:
+ * <ul>
+ *     <li>{@code GET /actuator/stockledger}: products whose stock differs from their ledger</li>
+ *     <li>{@code GET /actuator/stockledger/{productId}[/{asOf}]}: stock replayed from the ledger</li>
+ *     <li>{@code POST /actuator/stockledger/{productId}} with {@code {"asOf": "..."}}: restores it</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "stockledger")
+public class StockLedgerEndpoint {
+
+    private final StockLedgerReplay replay;
+
+    public StockLedgerEndpoint(StockLedgerReplay replay) {
+        this.replay = replay;
+    }
+
+    @ReadOperation
+    public List<ProductStock> drifted() {
+        return replay.verify();
+    }
+
+    @ReadOperation
+    public ProductStock current(@Selector Long productId) {
+        return replay.replay(productId, null);
+    }
+
+    @ReadOperation
+    public ProductStock asOf(@Selector Long productId, @Selector Instant asOf) {
+        return replay.replay(productId, asOf);
+    }
+
+    @WriteOperation
+    public ProductStock restore(@Selector Long productId, Instant asOf) {
+        return replay.restore(productId, asOf);
+    }
+}
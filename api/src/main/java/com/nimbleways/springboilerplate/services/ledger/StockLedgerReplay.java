@@ -0,0 +1,127 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.exceptions.ProductNotFoundException;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockShardRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository.StockBalance;
+
+/**
+ * Rebuilds stock from the ledger: the snapshot plus the uncompacted tail is the current stock, and subtracting the
+ * entries made after an instant gives the stock at that instant, as long as it is within the ledger retention.
+ */
+@Service
+public class StockLedgerReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerReplay.class);
+
+    private static final int VERIFY_PAGE_SIZE = 500;
+
+    public record ProductStock(Long productId, int available, long derived, boolean snapshotted) {
+
+        public long drift() {
+            return available - derived;
+        }
+    }
+
+    private final StockLedgerRepository ledgerRepository;
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final StockLedger stockLedger;
+    private final Duration retention;
+
+    public StockLedgerReplay(StockLedgerRepository ledgerRepository, ProductRepository productRepository,
+            ProductStockShardRepository shardRepository, StockLedger stockLedger, @Value("${stock.ledger.retention:30d}") Duration retention) {
+        this.ledgerRepository = ledgerRepository;
+        this.productRepository = productRepository;
+        this.shardRepository = shardRepository;
+        this.stockLedger = stockLedger;
+        this.retention = retention;
+    }
+
+    @Transactional(readOnly = true)
+    public ProductStock replay(Long productId, Instant asOf) {
+        ProductStock current = current(productId);
+        if (asOf == null) {
+            return current;
+        }
+        if (asOf.isBefore(Instant.now().minus(retention))) {
+            throw new IllegalArgumentException("Cannot replay before the ledger retention of " + retention + ": " + asOf);
+        }
+        long derived = current.derived() - ledgerRepository.sumDeltasSince(productId, asOf);
+        return new ProductStock(productId, current.available(), derived, current.snapshotted());
+    }
+
+    /**
+     * @return the snapshotted products whose {@code available} differs from the ledger
+     */
+    @Transactional(readOnly = true)
+    public List<ProductStock> verify() {
+        List<ProductStock> drifted = new ArrayList<>();
+        List<StockBalance> page;
+        long after = Long.MIN_VALUE;
+        do {
+            page = ledgerRepository.findBalances(after, VERIFY_PAGE_SIZE);
+            for (StockBalance balance : page) {
+                ProductStock stock = toProductStock(balance);
+                if (stock.snapshotted() && stock.drift() != 0) {
+                    drifted.add(stock);
+                }
+                after = balance.getProductId();
+            }
+        } while (page.size() == VERIFY_PAGE_SIZE);
+        return drifted;
+    }
+
+    /**
+     * Sets {@code available} to the ledger stock at {@code asOf}. Going back in time is recorded as a
+     * {@link StockLedgerEntry.Reason#RESTORE} entry, so the ledger and the product agree afterwards. The shards of a
+     * sharded product are emptied into its row, and refilled by the rebalancer.
+     */
+    @Transactional
+    public ProductStock restore(Long productId, Instant asOf) {
+        productRepository.lockAvailable(productId);
+        boolean sharded = !shardRepository.lockAvailable(productId).isEmpty();
+        ProductStock target = replay(productId, asOf);
+        if (!target.snapshotted()) {
+            throw new IllegalArgumentException("Product " + productId + " has no stock snapshot yet");
+        }
+        ProductStock current = current(productId);
+        stockLedger.record(productId, Math.toIntExact(target.derived() - current.derived()),
+                StockLedgerEntry.Reason.RESTORE, null);
+        if (sharded) {
+            shardRepository.emptyShards(productId);
+        }
+        Product product = productRepository.findCurrentById(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+        logger.info("stock.ledger.restore productId={} asOf={} available={} restored={}",
+                productId, asOf, current.available(), target.derived());
+        product.setAvailable(Math.toIntExact(target.derived()));
+        productRepository.save(product);
+        return new ProductStock(productId, product.getAvailable(), target.derived(), target.snapshotted());
+    }
+
+    private ProductStock current(Long productId) {
+        return ledgerRepository.findBalance(productId)
+                .map(StockLedgerReplay::toProductStock)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+    }
+
+    private static ProductStock toProductStock(StockBalance balance) {
+        return new ProductStock(balance.getProductId(), balance.getAvailable(), balance.getDerived(),
+                balance.isSnapshotted());
+    }
+}
@@ -0,0 +1,110 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.entities.StockSnapshot;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockShardRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.repositories.StockSnapshotRepository;
+
+/**
+ * Folds the ledger tail of each product into its snapshot, then deletes compacted entries past the retention.
+ * A product is compacted under the lock of its row and of its stock shards: every transaction that appends to its
+ * ledger also updates one of them, so the visible tail cannot change meanwhile, and an entry committed later is simply
+ * left for the next run.
+ */
+@Component
+@ConditionalOnProperty(name = "stock.ledger.compaction.enabled", havingValue = "true", matchIfMissing = true)
+public class StockSnapshotCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockSnapshotCompactor.class);
+
+    // Keeps the markCompacted IN list bounded; a longer tail is finished by the following batches
+    private static final int MAX_ENTRIES_PER_PRODUCT = 1000;
+
+    private final StockLedgerRepository ledgerRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final ProductRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    public StockSnapshotCompactor(StockLedgerRepository ledgerRepository, StockSnapshotRepository snapshotRepository,
+            ProductRepository productRepository, ProductStockShardRepository shardRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${stock.ledger.compaction.batch-size:100}") int batchSize,
+            @Value("${stock.ledger.retention:30d}") Duration retention) {
+        this.ledgerRepository = ledgerRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.productRepository = productRepository;
+        this.shardRepository = shardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.ledger.compaction.interval-ms:60000}",
+            initialDelayString = "${stock.ledger.compaction.interval-ms:60000}")
+    public void compactAll() {
+        int compacted;
+        do {
+            compacted = compactBatch();
+        } while (compacted == batchSize);
+        Integer deleted = transactionTemplate.execute(status ->
+                ledgerRepository.deleteCompactedBefore(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            logger.debug("stock.ledger.deleted entries={}", deleted);
+        }
+    }
+
+    /**
+     * @return the number of products whose snapshot was written
+     */
+    public int compactBatch() {
+        Set<Long> productIds = new LinkedHashSet<>(ledgerRepository.findProductsWithTail(PageRequest.of(0, batchSize)));
+        if (productIds.size() < batchSize) {
+            productIds.addAll(ledgerRepository.findProductsWithoutSnapshot(
+                    PageRequest.of(0, batchSize - productIds.size())));
+        }
+        productIds.forEach(productId -> transactionTemplate.executeWithoutResult(status -> compact(productId)));
+        if (!productIds.isEmpty()) {
+            logger.debug("stock.ledger.compacted products={}", productIds.size());
+        }
+        return productIds.size();
+    }
+
+    private void compact(Long productId) {
+        Integer row = productRepository.lockAvailable(productId);
+        int available = (row == null ? 0 : row)
+                + shardRepository.lockAvailable(productId).stream().mapToInt(Integer::intValue).sum();
+        List<StockLedgerEntry> tail = ledgerRepository.findByProductIdAndCompactedFalseOrderById(productId,
+                PageRequest.of(0, MAX_ENTRIES_PER_PRODUCT));
+        int tailDelta = tail.stream().mapToInt(StockLedgerEntry::getDelta).sum();
+        StockSnapshot snapshot = snapshotRepository.findById(productId)
+                // Opening balance of a product created outside the ledger: everything visible is in its row
+                .orElseGet(() -> new StockSnapshot(productId, available - tailDelta, null));
+        snapshot.setAvailable(snapshot.getAvailable() + tailDelta);
+        snapshot.setCompactedAt(Instant.now());
+        snapshotRepository.save(snapshot);
+        if (!tail.isEmpty()) {
+            ledgerRepository.markCompacted(tail.stream().map(StockLedgerEntry::getId).toList());
+        }
+    }
+}
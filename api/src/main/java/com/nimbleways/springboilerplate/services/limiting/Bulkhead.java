@@ -0,0 +1,39 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking concurrency limit: callers over the limit are refused instead of queued.
+ */
+final class Bulkhead {
+
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    Bulkhead(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Invalid bulkhead size: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
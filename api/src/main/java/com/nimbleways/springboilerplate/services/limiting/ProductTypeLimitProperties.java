@@ -0,0 +1,32 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders.limits")
+public class ProductTypeLimitProperties {
+
+    /** Keyed by product type; types not listed are not limited. */
+    private Map<String, Limit> types = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        /** Orders holding items of this type processed at once; 0 for no limit. */
+        private int maxConcurrent;
+
+        /** Items of this type admitted per second; 0 for no limit. */
+        private double ratePerSecond;
+
+        /** Items that may be admitted at once after an idle period; defaults to one second worth of rate. */
+        private Integer burst;
+    }
+}
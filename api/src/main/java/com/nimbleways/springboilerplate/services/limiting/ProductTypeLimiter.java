@@ -0,0 +1,160 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.exceptions.BulkheadFullException;
+import com.nimbleways.springboilerplate.exceptions.RateLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-product-type admission control for orders: a bulkhead bounds how many orders with items of a type are
+ * processed at once, and a token bucket bounds how many such items are admitted per second. An order takes every
+ * permit it needs before its first item is processed, so a refused order has not changed anything. Both limits are
+ * lock-free; the per-type table is built once and only read afterwards.
+ */
+@Component
+@EnableConfigurationProperties(ProductTypeLimitProperties.class)
+public class ProductTypeLimiter {
+
+    private static final Permit NO_PERMIT = new Permit(List.of());
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final Map<String, TypeLimits> limitsByType;
+
+    @Autowired
+    public ProductTypeLimiter(ProductTypeLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    ProductTypeLimiter(ProductTypeLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        Map<String, TypeLimits> limits = new HashMap<>();
+        properties.getTypes().forEach((type, limit) -> {
+            String productType = type.toUpperCase(Locale.ROOT);
+            Bulkhead bulkhead = limit.getMaxConcurrent() > 0 ? new Bulkhead(limit.getMaxConcurrent()) : null;
+            TokenBucket bucket = limit.getRatePerSecond() > 0
+                    ? new TokenBucket(limit.getRatePerSecond(), burstOf(limit), nanoClock)
+                    : null;
+            if (bulkhead != null || bucket != null) {
+                limits.put(productType, new TypeLimits(productType, bulkhead, bucket, meterRegistry));
+            }
+        });
+        this.limitsByType = Map.copyOf(limits);
+    }
+
+    /**
+     * @return whether any type is limited, so that callers can skip looking up the types of an order
+     */
+    public boolean hasLimits() {
+        return !limitsByType.isEmpty();
+    }
+
+    /**
+     * @param itemTypes the product type of each item of the order
+     * @throws BulkheadFullException      when a type already has its maximum of orders in progress
+     * @throws RateLimitExceededException when a type has no tokens left for this order's items
+     */
+    public Permit acquire(Collection<String> itemTypes) {
+        if (limitsByType.isEmpty()) {
+            return NO_PERMIT;
+        }
+        // Sorted so that concurrent orders take bulkheads in the same order
+        Map<TypeLimits, Integer> itemsPerType = new TreeMap<>((a, b) -> a.type.compareTo(b.type));
+        for (String type : itemTypes) {
+            TypeLimits limits = type == null ? null : limitsByType.get(type);
+            if (limits != null) {
+                itemsPerType.merge(limits, 1, Integer::sum);
+            }
+        }
+        if (itemsPerType.isEmpty()) {
+            return NO_PERMIT;
+        }
+
+        List<Bulkhead> held = new ArrayList<>(itemsPerType.size());
+        List<Map.Entry<TypeLimits, Integer>> charged = new ArrayList<>(itemsPerType.size());
+        try {
+            for (TypeLimits limits : itemsPerType.keySet()) {
+                if (limits.bulkhead != null) {
+                    if (!limits.bulkhead.tryAcquire()) {
+                        limits.rejectedByBulkhead.increment();
+                        throw new BulkheadFullException(limits.type, BULKHEAD_RETRY_AFTER);
+                    }
+                    held.add(limits.bulkhead);
+                }
+            }
+            for (Map.Entry<TypeLimits, Integer> entry : itemsPerType.entrySet()) {
+                TypeLimits limits = entry.getKey();
+                if (limits.bucket != null) {
+                    if (!limits.bucket.tryAcquire(entry.getValue())) {
+                        limits.rejectedByRate.increment();
+                        throw new RateLimitExceededException(limits.type,
+                                Duration.ofNanos(limits.bucket.nanosUntilAvailable(entry.getValue())));
+                    }
+                    charged.add(entry);
+                }
+            }
+            return new Permit(held);
+        } catch (RuntimeException rejected) {
+            charged.forEach(entry -> entry.getKey().bucket.refund(entry.getValue()));
+            held.forEach(Bulkhead::release);
+            throw rejected;
+        }
+    }
+
+    private static int burstOf(ProductTypeLimitProperties.Limit limit) {
+        return limit.getBurst() != null ? limit.getBurst() : Math.max(1, (int) Math.ceil(limit.getRatePerSecond()));
+    }
+
+    /** Releases the bulkheads taken for an order; tokens are spent and not returned. */
+    public static final class Permit {
+
+        private final List<Bulkhead> bulkheads;
+
+        private Permit(List<Bulkhead> bulkheads) {
+            this.bulkheads = bulkheads;
+        }
+
+        public void release() {
+            bulkheads.forEach(Bulkhead::release);
+        }
+    }
+
+    private static final class TypeLimits {
+
+        private final String type;
+        private final Bulkhead bulkhead;
+        private final TokenBucket bucket;
+        private final Counter rejectedByBulkhead;
+        private final Counter rejectedByRate;
+
+        private TypeLimits(String type, Bulkhead bulkhead, TokenBucket bucket, MeterRegistry meterRegistry) {
+            this.type = type;
+            this.bulkhead = bulkhead;
+            this.bucket = bucket;
+            this.rejectedByBulkhead = meterRegistry.counter("orders.limiter.rejected", "type", type, "limit", "bulkhead");
+            this.rejectedByRate = meterRegistry.counter("orders.limiter.rejected", "type", type, "limit", "rate");
+            if (bulkhead != null) {
+                Gauge.builder("orders.limiter.in.flight", bulkhead, Bulkhead::inFlight)
+                        .tag("type", type).register(meterRegistry);
+            }
+            if (bucket != null) {
+                Gauge.builder("orders.limiter.tokens.available", bucket, TokenBucket::availableTokens)
+                        .tag("type", type).register(meterRegistry);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket in its virtual-scheduling form (GCRA): the whole state is the theoretical arrival time of
+ * the next token, advanced with a single compare-and-set. Taking {@code n} tokens moves it {@code n} intervals
+ * ahead; a request is refused when that would put it more than a full bucket ahead of now.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double ratePerSecond, int burst, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid token bucket: rate=" + ratePerSecond + ", burst=" + burst);
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000d / ratePerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.theoreticalArrival = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Requests larger than the bucket are admitted only when it is full, and leave it in debt.
+     */
+    boolean tryAcquire(int tokens) {
+        long cost = intervalNanos * tokens;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = theoreticalArrival.get();
+            long start = Math.max(current, now);
+            if (start - now + cost > capacityNanos && start > now) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + cost)) {
+                return true;
+            }
+        }
+    }
+
+    /** Gives back tokens taken by a request that was then refused elsewhere. */
+    void refund(int tokens) {
+        theoreticalArrival.addAndGet(-intervalNanos * tokens);
+    }
+
+    long nanosUntilAvailable(int tokens) {
+        long now = nanoClock.getAsLong();
+        long needed = Math.min(intervalNanos * tokens, capacityNanos);
+        return Math.max(0, theoreticalArrival.get() - now + needed - capacityNanos);
+    }
+
+    double availableTokens() {
+        long backlog = Math.max(0, theoreticalArrival.get() - nanoClock.getAsLong());
+        return Math.max(0, (double) (capacityNanos - backlog) / intervalNanos);
+    }
+}
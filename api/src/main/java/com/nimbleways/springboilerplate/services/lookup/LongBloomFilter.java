@@ -0,0 +1,91 @@
+package com.nimbleways.springboilerplate.services.lookup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of {@code long} keys. Bits are set with an atomic OR, so keys can be added while others are looked up
+ * without a lock. The {@code k} bit positions of a key are derived from two 64-bit mixes of it (double hashing).
+ */
+final class LongBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final LongAdder bitsSet = new LongAdder();
+
+    private LongBloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Sized for {@code expectedKeys} at {@code falsePositiveProbability}: {@code -n ln p / ln² 2} bits and
+     * {@code (m / n) ln 2} hashes.
+     */
+    static LongBloomFilter forCapacity(long expectedKeys, double falsePositiveProbability) {
+        if (expectedKeys < 1 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid bloom filter: expectedKeys=" + expectedKeys
+                    + ", falsePositiveProbability=" + falsePositiveProbability);
+        }
+        long bits = Math.max(64, (long) Math.ceil(-expectedKeys * Math.log(falsePositiveProbability) / (LN2 * LN2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / expectedKeys * LN2));
+        return new LongBloomFilter(bits, hashes);
+    }
+
+    void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+            if ((previous & mask) == 0) {
+                bitsSet.increment();
+            }
+        }
+    }
+
+    boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Probability that a key never added is reported present, from the share of bits set: {@code (X / m)^k}.
+     */
+    double falsePositiveProbability() {
+        return Math.pow((double) bitsSet.sum() / bits, hashes);
+    }
+
+    /**
+     * Distinct keys added, estimated from the bits set: {@code -(m / k) ln(1 - X / m)}. Adding a key twice does
+     * not count it twice.
+     */
+    long estimatedKeys() {
+        double fill = Math.min((double) bitsSet.sum() / bits, 1 - 1d / bits);
+        return Math.round(-(double) bits / hashes * Math.log1p(-fill));
+    }
+
+    long sizeInBytes() {
+        return words.length() * 8L;
+    }
+
+    // SplitMix64 finalizer: sequential ids land on unrelated bits
+    private static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,275 @@
+package com.nimbleways.springboilerplate.services.lookup;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.entities.Order;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Flags order ids that most likely do not exist, from a bloom filter of {@code orders.id}, so that they are confirmed
+ * by primary key alone instead of going through order processing. It is built at startup; orders inserted through
+ * JPA are added once their transaction commits, and {@link #refresh} adds the ids above the watermark inserted since
+ * the previous round by any other writer.
+ * <p>
+ * Only ids up to the watermark are flagged. The watermark lags one round behind the newest id seen: an id is given
+ * when the insert runs but only becomes visible on commit, so an id below the newest one may still belong to an open
+ * transaction. Ids above the watermark, and every id until the second round, are left to the database.
+ * <p>
+ * A commit from another writer can still land below the watermark: a bulk load or slow batch, or ids from a block
+ * another instance reserved earlier. Each round therefore scans again the {@code rescan-ids} ids below the watermark,
+ * and every {@code rebuild-interval} the filter is rebuilt from all ids, on a thread of its own, which also drops
+ * deleted orders. Until then such a late order is flagged though it exists: the filter never answers for an order on
+ * its own, {@link #lookup} only tells whether to confirm it, and {@link #recordPresent} adds the ones it missed.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.id-filter.enabled", havingValue = "true")
+public class OrderIdFilter {
+
+    public enum Lookup {
+        /** At or below the watermark and not in the filter: most likely missing, to be confirmed by primary key. */
+        ABSENT,
+        /** In the filter: the order exists, or this is a false positive. */
+        MAYBE_PRESENT,
+        /** Above the watermark: not covered by the filter yet. */
+        NOT_COVERED
+    }
+
+    private record Snapshot(LongBloomFilter ids, long watermark) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdFilter.class);
+
+    private static final String SELECT_IDS_ABOVE = "select id from orders where id > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedIds;
+    private final double falsePositiveProbability;
+    private final long rescanIds;
+    private final long rebuildIntervalNanos;
+    private final Counter absent;
+    private final Counter maybePresent;
+    private final Counter notCovered;
+    private final Counter falsePositives;
+    private final Counter falseNegatives;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "order-id-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+    // Filter being rebuilt, also given the ids added meanwhile
+    private volatile LongBloomFilter rebuilding;
+    private boolean rebuildPending;
+    // Newest id seen by the previous round, the next watermark
+    private long previousMaxId;
+    private long lastRebuildNanos = System.nanoTime();
+
+    public OrderIdFilter(DataSource dataSource, EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry,
+            @Value("${orders.id-filter.expected-ids:1000000}") long expectedIds,
+            @Value("${orders.id-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+            @Value("${orders.id-filter.rescan-ids:10000}") long rescanIds,
+            @Value("${orders.id-filter.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.expectedIds = expectedIds;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.rescanIds = rescanIds;
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+        this.snapshot = new Snapshot(LongBloomFilter.forCapacity(expectedIds, falsePositiveProbability), 0);
+        this.absent = meterRegistry.counter("orders.id.filter.lookups", "result", "absent");
+        this.maybePresent = meterRegistry.counter("orders.id.filter.lookups", "result", "maybe.present");
+        this.notCovered = meterRegistry.counter("orders.id.filter.lookups", "result", "not.covered");
+        this.falsePositives = meterRegistry.counter("orders.id.filter.false.positives");
+        this.falseNegatives = meterRegistry.counter("orders.id.filter.false.negatives");
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_COMMIT_INSERT, new CommittedOrderListener(this));
+
+        Gauge.builder("orders.id.filter.memory", this, self -> self.snapshot.ids().sizeInBytes())
+                .baseUnit("bytes")
+                .description("Size of the bloom filter bit array")
+                .register(meterRegistry);
+        Gauge.builder("orders.id.filter.false.positive.rate", this, OrderIdFilter::observedFalsePositiveRate)
+                .description("Share of the lookups of missing orders the filter let through to the database")
+                .register(meterRegistry);
+        Gauge.builder("orders.id.filter.expected.false.positive.rate", this,
+                        self -> self.snapshot.ids().falsePositiveProbability())
+                .description("False positive probability estimated from the bits set")
+                .register(meterRegistry);
+        Gauge.builder("orders.id.filter.watermark", this, self -> self.snapshot.watermark())
+                .description("Highest order id the filter answers for")
+                .register(meterRegistry);
+    }
+
+    public Lookup lookup(long orderId) {
+        Snapshot current = snapshot;
+        if (orderId > current.watermark()) {
+            notCovered.increment();
+            return Lookup.NOT_COVERED;
+        }
+        if (current.ids().mightContain(orderId)) {
+            maybePresent.increment();
+            return Lookup.MAYBE_PRESENT;
+        }
+        absent.increment();
+        return Lookup.ABSENT;
+    }
+
+    /**
+     * Reports an order the database found though the filter flagged it, committed since the filter last saw its id.
+     */
+    public void recordPresent(long orderId) {
+        falseNegatives.increment();
+        add(orderId);
+    }
+
+    /**
+     * Reports an order the database did not find, counted as a false positive if the filter had let it through.
+     */
+    public void recordMissing(long orderId) {
+        Snapshot current = snapshot;
+        if (orderId <= current.watermark() && current.ids().mightContain(orderId)) {
+            falsePositives.increment();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${orders.id-filter.refresh-interval-ms:5000}",
+            initialDelayString = "${orders.id-filter.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        Snapshot current = snapshot;
+        boolean overfilled = current.ids().falsePositiveProbability() > 2 * falsePositiveProbability;
+        if (!rebuildPending && (overfilled || System.nanoTime() - lastRebuildNanos >= rebuildIntervalNanos)) {
+            // Twice as large once filled past its capacity
+            long expected = Math.max(expectedIds, current.ids().estimatedKeys());
+            rebuildPending = true;
+            rebuilder.execute(() -> rebuild(overfilled ? 2 * expected : expected));
+        }
+        long scannedMaxId = addIdsAbove(Math.max(0, current.watermark() - rescanIds));
+        long maxId = Math.max(previousMaxId, scannedMaxId);
+        snapshot = new Snapshot(snapshot.ids(), Math.max(current.watermark(), previousMaxId));
+        previousMaxId = maxId;
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Fills a new filter from every id, published once complete; the rounds keep the current one up to date meanwhile.
+     */
+    private void rebuild(long expected) {
+        LongBloomFilter rebuilt = LongBloomFilter.forCapacity(expected, falsePositiveProbability);
+        rebuilding = rebuilt;
+        try {
+            jdbcTemplate.query(SELECT_IDS_ABOVE, row -> {
+                rebuilt.add(row.getLong(1));
+            }, 0L);
+            synchronized (this) {
+                snapshot = new Snapshot(rebuilt, snapshot.watermark());
+            }
+            logger.info("orders.id.filter.rebuilt keys={} bytes={}", rebuilt.estimatedKeys(), rebuilt.sizeInBytes());
+        } catch (RuntimeException e) {
+            logger.error("orders.id.filter.rebuild.failed, keeping the current filter", e);
+        } finally {
+            rebuilding = null;
+            synchronized (this) {
+                lastRebuildNanos = System.nanoTime();
+                rebuildPending = false;
+            }
+        }
+    }
+
+    /**
+     * @return the highest id added, 0 if none
+     */
+    private long addIdsAbove(long fromExclusive) {
+        long[] maxId = {0};
+        jdbcTemplate.query(SELECT_IDS_ABOVE, row -> {
+            long id = row.getLong(1);
+            add(id);
+            maxId[0] = Math.max(maxId[0], id);
+        }, fromExclusive);
+        return maxId[0];
+    }
+
+    private void add(long id) {
+        snapshot.ids().add(id);
+        LongBloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(id);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double letThrough = falsePositives.count();
+        double missing = letThrough + absent.count() - falseNegatives.count();
+        return missing <= 0 ? 0 : letThrough / missing;
+    }
+
+    /**
+     * Adds each order inserted through JPA once its transaction has committed, so this instance's own orders are
+     * never flagged; a rolled back insert leaves the filter alone.
+     */
+    private static final class CommittedOrderListener implements PostCommitInsertEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient OrderIdFilter filter;
+
+        CommittedOrderListener(OrderIdFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (event.getEntity() instanceof Order && event.getId() instanceof Long id) {
+                filter.add(id);
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+            // Nothing was added
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return Order.class.equals(persister.getMappedClass());
+        }
+
+        // Still abstract in Hibernate 5, superseded by the method above
+        @Override
+        @Deprecated
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return requiresPostCommitHandling(persister);
+        }
+    }
+}
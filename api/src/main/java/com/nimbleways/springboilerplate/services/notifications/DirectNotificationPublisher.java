@@ -0,0 +1,43 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import java.time.LocalDate;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.services.diagnostics.NotificationInstrumentation;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+
+@Component
+@ConditionalOnProperty(name = "notifications.delivery", havingValue = "direct", matchIfMissing = true)
+public class DirectNotificationPublisher implements NotificationPublisher {
+
+    private static final String DELIVERY = "direct";
+
+    private final NotificationService notificationService;
+    private final NotificationInstrumentation instrumentation;
+
+    public DirectNotificationPublisher(NotificationService notificationService,
+            NotificationInstrumentation instrumentation) {
+        this.notificationService = notificationService;
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public void publishDelay(int leadTime, String productName) {
+        instrumentation.record("DELAY", productName, DELIVERY,
+                () -> notificationService.sendDelayNotification(leadTime, productName));
+    }
+
+    @Override
+    public void publishOutOfStock(String productName) {
+        instrumentation.record("OUT_OF_STOCK", productName, DELIVERY,
+                () -> notificationService.sendOutOfStockNotification(productName));
+    }
+
+    @Override
+    public void publishExpiration(String productName, LocalDate expiryDate) {
+        instrumentation.record("EXPIRATION", productName, DELIVERY,
+                () -> notificationService.sendExpirationNotification(productName, expiryDate));
+    }
+}
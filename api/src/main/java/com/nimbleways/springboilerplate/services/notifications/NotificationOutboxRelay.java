@@ -0,0 +1,93 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEvent;
+import com.nimbleways.springboilerplate.repositories.NotificationOutboxRepository;
+import com.nimbleways.springboilerplate.services.diagnostics.NotificationInstrumentation;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+
+/**
+ * Drains the notification outbox in batches. Each batch is claimed with {@code SELECT ... FOR UPDATE SKIP LOCKED},
+ * so several instances can relay in parallel without sending the same event twice. Delivery is at-least-once:
+ * an event whose send fails stays in the outbox and is retried on the next poll.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.delivery", havingValue = "outbox")
+public class NotificationOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxRelay.class);
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final NotificationInstrumentation instrumentation;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public NotificationOutboxRelay(NotificationOutboxRepository outboxRepository, NotificationService notificationService,
+            NotificationInstrumentation instrumentation, PlatformTransactionManager transactionManager,
+            @Value("${notifications.outbox.batch-size:100}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.instrumentation = instrumentation;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:500}")
+    public void relayPending() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * @return the number of events delivered and removed from the outbox
+     */
+    public int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<NotificationOutboxEvent> batch = outboxRepository.claimBatch(PageRequest.of(0, batchSize));
+            List<NotificationOutboxEvent> delivered = new ArrayList<>(batch.size());
+            for (NotificationOutboxEvent event : batch) {
+                if (deliver(event)) {
+                    delivered.add(event);
+                }
+            }
+            outboxRepository.deleteAllInBatch(delivered);
+            return delivered.size();
+        });
+        if (relayed != null && relayed > 0) {
+            logger.debug("outbox.relayed events={}", relayed);
+        }
+        return relayed == null ? 0 : relayed;
+    }
+
+    private boolean deliver(NotificationOutboxEvent event) {
+        try {
+            instrumentation.record(event.getType().name(), event.getProductName(), "outbox", () -> {
+                switch (event.getType()) {
+                    case DELAY -> notificationService.sendDelayNotification(event.getLeadTime(), event.getProductName());
+                    case OUT_OF_STOCK -> notificationService.sendOutOfStockNotification(event.getProductName());
+                    case EXPIRATION -> notificationService.sendExpirationNotification(event.getProductName(),
+                            event.getExpiryDate());
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to relay outbox event {} ({}), will retry", event.getId(), event.getType(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import java.time.LocalDate;
+
+/**
+ * Entry point for the notifications raised while processing order items.
+ * Implementations either call {@code NotificationService} right away or defer delivery through the outbox.
+ */
+public interface NotificationPublisher {
+    void publishDelay(int leadTime, String productName);
+
+    void publishOutOfStock(String productName);
+
+    void publishExpiration(String productName, LocalDate expiryDate);
+}
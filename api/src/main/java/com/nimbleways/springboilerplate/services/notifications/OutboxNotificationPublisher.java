@@ -0,0 +1,47 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEvent;
+import com.nimbleways.springboilerplate.repositories.NotificationOutboxRepository;
+
+/**
+ * Writes notifications to the outbox table. Must run inside the caller's transaction so the event
+ * commits or rolls back together with the stock update that raised it; {@link NotificationOutboxRelay} delivers it.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.delivery", havingValue = "outbox")
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxNotificationPublisher implements NotificationPublisher {
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    public OutboxNotificationPublisher(NotificationOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Override
+    public void publishDelay(int leadTime, String productName) {
+        append(NotificationOutboxEvent.Type.DELAY, productName, leadTime, null);
+    }
+
+    @Override
+    public void publishOutOfStock(String productName) {
+        append(NotificationOutboxEvent.Type.OUT_OF_STOCK, productName, null, null);
+    }
+
+    @Override
+    public void publishExpiration(String productName, LocalDate expiryDate) {
+        append(NotificationOutboxEvent.Type.EXPIRATION, productName, null, expiryDate);
+    }
+
+    private void append(NotificationOutboxEvent.Type type, String productName, Integer leadTime, LocalDate expiryDate) {
+        outboxRepository.save(new NotificationOutboxEvent(null, type, productName, leadTime, expiryDate, Instant.now()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.nimbleways.springboilerplate.services.partitioning;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nimbleways.springboilerplate.entities.OrderProcessingRequest;
+import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import com.nimbleways.springboilerplate.repositories.OrderProcessingRequestRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+
+@Service
+@ConditionalOnProperty(name = "orders.partitioning.enabled", havingValue = "true")
+public class OrderProcessingQueue {
+
+    private final OrderProcessingRequestRepository requestRepository;
+    private final OrderRepository orderRepository;
+    private final PartitionLeaseManager leaseManager;
+
+    public OrderProcessingQueue(OrderProcessingRequestRepository requestRepository, OrderRepository orderRepository,
+            PartitionLeaseManager leaseManager) {
+        this.requestRepository = requestRepository;
+        this.orderRepository = orderRepository;
+        this.leaseManager = leaseManager;
+    }
+
+    /**
+     * Idempotent while the order is pending or processing; an order that already went through is queued again.
+     */
+    @Transactional
+    public void enqueue(Long orderId) {
+        if (!orderRepository.existsById(orderId)) {
+            throw new OrderNotFoundException(orderId);
+        }
+        OrderProcessingRequest request = requestRepository.findById(orderId)
+                .orElseGet(() -> new OrderProcessingRequest(orderId, leaseManager.partitionOf(orderId), null, null, null, null));
+        if (request.getStatus() == OrderProcessingRequest.Status.PENDING
+                || request.getStatus() == OrderProcessingRequest.Status.PROCESSING) {
+            return;
+        }
+        request.setStatus(OrderProcessingRequest.Status.PENDING);
+        request.setClaimedBy(null);
+        request.setEnqueuedAt(Instant.now());
+        request.setProcessedAt(null);
+        requestRepository.save(request);
+    }
+
+    @Transactional
+    public List<Long> claimPending(List<Integer> partitions, int limit) {
+        List<Long> claimed = new ArrayList<>();
+        for (Long orderId : requestRepository.findPendingOrderIds(partitions, PageRequest.of(0, limit))) {
+            if (requestRepository.claim(orderId, leaseManager.getInstanceId()) == 1) {
+                claimed.add(orderId);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Back to pending for a later poll, by whichever instance then owns the partition.
+     *
+     * @return false if the request is no longer claimed by this instance
+     */
+    @Transactional
+    public boolean requeue(Long orderId) {
+        return requestRepository.requeue(orderId, leaseManager.getInstanceId()) == 1;
+    }
+
+    /**
+     * @return false if the request is no longer claimed by this instance, which then leaves it to its new owner
+     */
+    @Transactional
+    public boolean complete(Long orderId, OrderProcessingRequest.Status status) {
+        return requestRepository.complete(orderId, leaseManager.getInstanceId(), status, Instant.now()) == 1;
+    }
+}
@@ -0,0 +1,181 @@
+package com.nimbleways.springboilerplate.services.partitioning;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nimbleways.springboilerplate.entities.PartitionLease;
+import com.nimbleways.springboilerplate.entities.ProcessingInstance;
+import com.nimbleways.springboilerplate.repositories.OrderProcessingRequestRepository;
+import com.nimbleways.springboilerplate.repositories.PartitionLeaseRepository;
+import com.nimbleways.springboilerplate.repositories.ProcessingInstanceRepository;
+
+/**
+ * Spreads the order partitions over the live instances through time-bound leases in the shared database.
+ * Every rebalance heartbeats this instance, renews its leases, gives back partitions above its fair share and
+ * picks up free or expired ones, so partitions move to the survivors when an instance stops renewing.
+ * Between rebalances, {@link #heartbeat} keeps the leases of a long batch alive, and {@link #holds} tells the batch
+ * whether a partition is still its own.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.partitioning.enabled", havingValue = "true")
+public class PartitionLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionLeaseManager.class);
+
+    private final PartitionLeaseRepository leaseRepository;
+    private final ProcessingInstanceRepository instanceRepository;
+    private final OrderProcessingRequestRepository requestRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    private final int partitions;
+    private final Duration leaseDuration;
+
+    private volatile boolean partitionsSeeded;
+    private volatile List<Integer> ownedPartitions = List.of();
+    // Expiry of the leases as last renewed: past it, another instance may have taken them
+    private volatile Instant leasedUntil = Instant.MIN;
+
+    public PartitionLeaseManager(PartitionLeaseRepository leaseRepository, ProcessingInstanceRepository instanceRepository,
+            OrderProcessingRequestRepository requestRepository, PlatformTransactionManager transactionManager,
+            @Value("${orders.partitioning.instance-id:${random.uuid}}") String instanceId,
+            @Value("${orders.partitioning.partitions:16}") int partitions,
+            @Value("${orders.partitioning.lease-duration-ms:10000}") long leaseDurationMs) {
+        this.leaseRepository = leaseRepository;
+        this.instanceRepository = instanceRepository;
+        this.requestRepository = requestRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.instanceId = instanceId;
+        this.partitions = partitions;
+        this.leaseDuration = Duration.ofMillis(leaseDurationMs);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public List<Integer> getOwnedPartitions() {
+        return ownedPartitions;
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    /**
+     * Whether this instance still leases the partition, as of the last renewal.
+     */
+    public boolean holds(int partition) {
+        return Instant.now().isBefore(leasedUntil) && ownedPartitions.contains(partition);
+    }
+
+    public int partitionOf(Long orderId) {
+        return Math.floorMod(Long.hashCode(orderId), partitions);
+    }
+
+    public synchronized List<Integer> rebalance() {
+        seedPartitions();
+        Instant now = Instant.now();
+        Instant liveSince = now.minus(leaseDuration);
+        Instant until = now.plus(leaseDuration);
+        List<Integer> owned = transactionTemplate.execute(status -> {
+            instanceRepository.save(new ProcessingInstance(instanceId, now));
+            leaseRepository.renew(instanceId, now, until);
+            instanceRepository.deleteStale(now.minus(leaseDuration.multipliedBy(2)));
+            List<Integer> current = new ArrayList<>(leaseRepository.findOwnedPartitions(instanceId, now));
+
+            long liveInstances = Math.max(1, instanceRepository.countLive(liveSince));
+            int fairShare = (int) ((partitions + liveInstances - 1) / liveInstances);
+            while (current.size() > fairShare) {
+                leaseRepository.release(current.remove(current.size() - 1), instanceId);
+            }
+            for (Integer partition : leaseRepository.findFreePartitions(now)) {
+                if (current.size() >= fairShare) {
+                    break;
+                }
+                if (leaseRepository.tryAcquire(partition, instanceId, now, until) == 1) {
+                    requestRepository.releaseAbandoned(partition, liveSince);
+                    current.add(partition);
+                }
+            }
+            return current;
+        });
+        List<Integer> snapshot = owned == null ? List.of() : List.copyOf(owned);
+        if (!snapshot.equals(ownedPartitions)) {
+            logger.info("partitions.rebalanced instance={} owned={}", instanceId, snapshot);
+        }
+        ownedPartitions = snapshot;
+        leasedUntil = until;
+        return snapshot;
+    }
+
+    /**
+     * Renews this instance's heartbeat and leases without taking or giving back any partition; a lease found taken
+     * over is dropped. Runs on a timer of its own, so a batch longer than the lease does not let it expire.
+     */
+    public synchronized void heartbeat() {
+        Instant now = Instant.now();
+        Instant until = now.plus(leaseDuration);
+        List<Integer> owned = transactionTemplate.execute(status -> {
+            instanceRepository.save(new ProcessingInstance(instanceId, now));
+            leaseRepository.renew(instanceId, now, until);
+            return leaseRepository.findOwnedPartitions(instanceId, now);
+        });
+        List<Integer> snapshot = owned == null ? List.of() : List.copyOf(owned);
+        if (!snapshot.equals(ownedPartitions)) {
+            logger.warn("partitions.lost instance={} owned={} was={}", instanceId, snapshot, ownedPartitions);
+        }
+        ownedPartitions = snapshot;
+        leasedUntil = until;
+    }
+
+    @PreDestroy
+    public synchronized void releaseAll() {
+        List<Integer> released = ownedPartitions;
+        ownedPartitions = List.of();
+        leasedUntil = Instant.MIN;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                released.forEach(partition -> leaseRepository.release(partition, instanceId));
+                instanceRepository.findById(instanceId).ifPresent(instanceRepository::delete);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not release partitions {} of instance {}, they will expire", released, instanceId, e);
+        }
+    }
+
+    private void seedPartitions() {
+        if (partitionsSeeded) {
+            return;
+        }
+        for (int partition = 0; partition < partitions; partition++) {
+            int id = partition;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!leaseRepository.existsById(id)) {
+                        leaseRepository.save(new PartitionLease(id, null, null));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Partition {} seeded concurrently by another instance", id);
+            }
+        }
+        partitionsSeeded = true;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nimbleways.springboilerplate.services.partitioning;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.entities.OrderProcessingRequest;
+import com.nimbleways.springboilerplate.exceptions.OrderThrottledException;
+import com.nimbleways.springboilerplate.services.OrderService;
+
+/**
+ * Processes the queued orders of the partitions this instance currently leases, on a scheduler of its own: a batch
+ * of orders can take seconds, and the shared {@code @Scheduled} thread also runs the outbox relay and the id filter
+ * refresh. The leases are renewed on a second thread every third of their duration, whatever the batch is doing, and
+ * the batch stops at the first order of a partition no longer leased, leaving the rest to the partition's new owner.
+ * <p>
+ * Partitions are hashes of order ids, so they spread orders over instances but not products: two orders for the
+ * same product can still be processed at once on two instances, and conflict on its stock row as they would on one.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.partitioning.enabled", havingValue = "true")
+public class PartitionedOrderWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedOrderWorker.class);
+
+    private final PartitionLeaseManager leaseManager;
+    private final OrderProcessingQueue queue;
+    private final OrderService orderService;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public PartitionedOrderWorker(PartitionLeaseManager leaseManager, OrderProcessingQueue queue, OrderService orderService,
+            @Value("${orders.partitioning.batch-size:50}") int batchSize,
+            @Value("${orders.partitioning.poll-interval-ms:500}") long pollIntervalMs) {
+        this.leaseManager = leaseManager;
+        this.queue = queue;
+        this.orderService = orderService;
+        this.batchSize = batchSize;
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        scheduler.setThreadNamePrefix("partition-worker-");
+        // One thread polls, the other renews the leases
+        scheduler.setPoolSize(2);
+        // The order being processed completes before the leases are released
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::poll, pollInterval);
+        Duration renewInterval = leaseManager.getLeaseDuration().dividedBy(3);
+        scheduler.scheduleWithFixedDelay(leaseManager::heartbeat, Instant.now().plus(renewInterval), renewInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+    }
+
+    public void poll() {
+        List<Integer> partitions = leaseManager.rebalance();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        List<Long> claimed = queue.claimPending(partitions, batchSize);
+        for (int i = 0; i < claimed.size(); i++) {
+            Long orderId = claimed.get(i);
+            if (!leaseManager.holds(leaseManager.partitionOf(orderId))) {
+                // Another instance may already be processing this partition: give back what is left of the batch
+                List<Long> remaining = claimed.subList(i, claimed.size());
+                logger.warn("partition.lease.lost instance={} requeued={}", leaseManager.getInstanceId(), remaining);
+                remaining.forEach(queue::requeue);
+                return;
+            }
+            process(orderId);
+        }
+    }
+
+    private void process(Long orderId) {
+        try {
+            orderService.processOrder(orderId);
+            complete(orderId, OrderProcessingRequest.Status.DONE);
+        } catch (OrderThrottledException e) {
+            logger.debug("Queued order {} throttled, requeued: {}", orderId, e.getMessage());
+            queue.requeue(orderId);
+        } catch (RuntimeException e) {
+            logger.warn("Queued order {} failed on instance {}", orderId, leaseManager.getInstanceId(), e);
+            complete(orderId, OrderProcessingRequest.Status.FAILED);
+        }
+    }
+
+    private void complete(Long orderId, OrderProcessingRequest.Status status) {
+        if (!queue.complete(orderId, status)) {
+            logger.warn("Queued order {} was claimed again by another instance while instance {} processed it",
+                    orderId, leaseManager.getInstanceId());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import java.util.Locale;
+
+/**
+ * Class of service of a process-order request, given by the client.
+ */
+public enum OrderPriority {
+
+    /** Interactive checkout: kept at low latency. */
+    EXPRESS,
+    STANDARD,
+    /** Bulk reprocessing, e.g. the nightly backfill: takes the capacity the others leave. */
+    BACKFILL;
+
+    /**
+     * @throws IllegalArgumentException for an unknown priority, reported as a 400
+     */
+    public static OrderPriority parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown order priority: " + value, e);
+        }
+    }
+}
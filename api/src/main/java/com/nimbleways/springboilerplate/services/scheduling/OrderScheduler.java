@@ -0,0 +1,275 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.nimbleways.springboilerplate.exceptions.OrderQueueFullException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bounds how many orders are processed at once and decides, by priority, who goes next. A request that finds every
+ * slot taken waits in the {@link WeightedFairQueue} lane of its priority: while all lanes have orders waiting, freed
+ * slots go to them in proportion to their weights, so express orders keep a low wait under a backfill, and a backfill
+ * alone gets the whole capacity. Each lane is bounded in length and in wait; an order over either bound is refused
+ * with a 503 before anything was processed.
+ * <p>
+ * The number of slots is either fixed or a {@link VegasLimit} fed with the processing time of every order completed.
+ * With the adaptive limit, lanes are also bounded to a multiple of it, so the excess is refused on arrival rather
+ * than after waiting in vain.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(OrderSchedulerProperties.class)
+public class OrderScheduler {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private static final class Waiter {
+
+        private final Condition granted;
+        private boolean admitted;
+        private long epoch;
+
+        private Waiter(Condition granted) {
+            this.granted = granted;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final VegasLimit adaptiveLimit;
+    private final double queueFactor;
+    private final Map<OrderPriority, PriorityLane> lanes = new EnumMap<>(OrderPriority.class);
+    private final WeightedFairQueue<Waiter> queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongSupplier nanoClock;
+    private int inFlight;
+
+    @Autowired
+    public OrderScheduler(OrderSchedulerProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    OrderScheduler(OrderSchedulerProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (properties.getMaxConcurrent() < 1) {
+            throw new IllegalArgumentException("Invalid order scheduler size: " + properties.getMaxConcurrent());
+        }
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.nanoClock = nanoClock;
+        OrderSchedulerProperties.Limit limit = properties.getLimit();
+        this.adaptiveLimit = limit.getAlgorithm() == OrderSchedulerProperties.LimitAlgorithm.VEGAS
+                ? new VegasLimit(maxConcurrent, limit, nanoClock.getAsLong())
+                : null;
+        this.queueFactor = limit.getQueueFactor();
+        Map<OrderPriority, Integer> weights = new EnumMap<>(OrderPriority.class);
+        for (OrderPriority priority : OrderPriority.values()) {
+            OrderSchedulerProperties.PriorityClass settings = properties.getPriorities()
+                    .getOrDefault(priority, new OrderSchedulerProperties.PriorityClass());
+            weights.put(priority, settings.getWeight());
+            lanes.put(priority, new PriorityLane(priority, settings, meterRegistry));
+        }
+        this.queue = new WeightedFairQueue<>(weights);
+        for (OrderPriority priority : OrderPriority.values()) {
+            Gauge.builder("orders.scheduler.queued", this, self -> self.queued(priority))
+                    .tag("priority", lanes.get(priority).tag)
+                    .description("Orders waiting for a processing slot")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("orders.scheduler.in.flight", this, OrderScheduler::inFlight)
+                .description("Orders being processed")
+                .register(meterRegistry);
+        Gauge.builder("orders.scheduler.limit", this, OrderScheduler::limit)
+                .description("Orders processed at once at most")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code work} once a slot is granted to it, in the calling thread.
+     *
+     * @throws OrderQueueFullException when the lane of {@code priority} is full or the wait is over
+     */
+    public <T> T execute(OrderPriority priority, Supplier<T> work) {
+        PriorityLane lane = lanes.get(priority);
+        long queuedAt = nanoClock.getAsLong();
+        long epoch = acquire(priority, lane);
+        long startedAt = nanoClock.getAsLong();
+        lane.queueWait.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+        boolean completed = false;
+        try {
+            T result = work.get();
+            completed = true;
+            return result;
+        } finally {
+            long processingNanos = nanoClock.getAsLong() - startedAt;
+            release(completed ? processingNanos : -1, epoch);
+            lane.processing.record(processingNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued(OrderPriority priority) {
+        lock.lock();
+        try {
+            return queue.size(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the epoch of the adaptive limit the order was admitted in, 0 without one
+     */
+    private long acquire(OrderPriority priority, PriorityLane lane) {
+        lock.lock();
+        try {
+            // Nobody waiting: no one to be fair to
+            if (inFlight < currentLimit() && queue.isEmpty()) {
+                inFlight++;
+                return currentEpoch();
+            }
+            if (queue.size(priority) >= maxQueued(lane)) {
+                lane.rejectedQueueFull.increment();
+                throw new OrderQueueFullException("Too many " + priority + " orders waiting", RETRY_AFTER);
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.add(priority, waiter);
+            long remainingNanos = lane.maxWaitNanos;
+            while (!waiter.admitted) {
+                if (remainingNanos <= 0) {
+                    queue.remove(priority, waiter);
+                    lane.rejectedTimeout.increment();
+                    throw new OrderQueueFullException(priority + " order waited longer than " + lane.maxWait,
+                            RETRY_AFTER);
+                }
+                try {
+                    remainingNanos = waiter.granted.awaitNanos(remainingNanos);
+                } catch (InterruptedException e) {
+                    if (waiter.admitted) {
+                        // Granted meanwhile: handed on to the next in line
+                        inFlight--;
+                        dispatch();
+                    } else {
+                        queue.remove(priority, waiter);
+                    }
+                    Thread.currentThread().interrupt();
+                    throw new OrderQueueFullException("Interrupted while waiting for a processing slot", RETRY_AFTER);
+                }
+            }
+            return waiter.epoch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param processingNanos time taken by an order that completed, negative for one that failed: a failure says
+     *                        nothing about the latency under load
+     * @param epoch           returned by {@link #acquire} for that order
+     */
+    private void release(long processingNanos, long epoch) {
+        lock.lock();
+        try {
+            if (adaptiveLimit != null && processingNanos >= 0) {
+                adaptiveLimit.onSample(processingNanos, inFlight, epoch, nanoClock.getAsLong());
+            }
+            inFlight--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long currentEpoch() {
+        return adaptiveLimit != null ? adaptiveLimit.epoch() : 0;
+    }
+
+    private int currentLimit() {
+        return adaptiveLimit != null ? adaptiveLimit.current() : maxConcurrent;
+    }
+
+    private int maxQueued(PriorityLane lane) {
+        if (adaptiveLimit == null) {
+            return lane.maxQueued;
+        }
+        return (int) Math.min(lane.maxQueued, Math.ceil(adaptiveLimit.current() * queueFactor));
+    }
+
+    private void dispatch() {
+        while (inFlight < currentLimit()) {
+            Waiter next = queue.poll();
+            if (next == null) {
+                return;
+            }
+            next.admitted = true;
+            next.epoch = currentEpoch();
+            inFlight++;
+            next.granted.signal();
+        }
+    }
+
+    private static final class PriorityLane {
+
+        private final String tag;
+        private final int maxQueued;
+        private final Duration maxWait;
+        private final long maxWaitNanos;
+        private final Timer queueWait;
+        private final Timer processing;
+        private final Counter rejectedQueueFull;
+        private final Counter rejectedTimeout;
+
+        private PriorityLane(OrderPriority priority, OrderSchedulerProperties.PriorityClass settings,
+                MeterRegistry meterRegistry) {
+            this.tag = priority.name().toLowerCase(Locale.ROOT);
+            this.maxQueued = settings.getMaxQueued();
+            this.maxWait = settings.getMaxWait();
+            this.maxWaitNanos = settings.getMaxWait().toNanos();
+            this.queueWait = Timer.builder("orders.scheduler.queue.wait")
+                    .tag("priority", tag)
+                    .description("Time from arrival to a processing slot")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            // Its count over time is the throughput of the priority
+            this.processing = Timer.builder("orders.scheduler.processing")
+                    .tag("priority", tag)
+                    .description("Processing time once admitted")
+                    .register(meterRegistry);
+            this.rejectedQueueFull = meterRegistry.counter("orders.scheduler.rejected",
+                    "priority", tag, "reason", "queue.full");
+            this.rejectedTimeout = meterRegistry.counter("orders.scheduler.rejected",
+                    "priority", tag, "reason", "timeout");
+        }
+    }
+}
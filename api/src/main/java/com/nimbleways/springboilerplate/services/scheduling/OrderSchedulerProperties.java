@@ -0,0 +1,66 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders.scheduler")
+public class OrderSchedulerProperties {
+
+    /** Orders processed at once, whatever their priority; the initial limit when adaptive. */
+    private int maxConcurrent = 8;
+
+    /** How the number of orders processed at once is set; starts from {@code maxConcurrent} when adaptive. */
+    private Limit limit = new Limit();
+
+    /** Keyed by priority; priorities not listed get the defaults of {@link PriorityClass}. */
+    private Map<OrderPriority, PriorityClass> priorities = new EnumMap<>(OrderPriority.class);
+
+    @Getter
+    @Setter
+    public static class PriorityClass {
+
+        /** Share of the capacity while every priority has orders waiting, relative to the other weights. */
+        private int weight = 1;
+
+        /** Orders of this priority waiting at once; more are refused with a 503. */
+        private int maxQueued = 100;
+
+        /** Longest wait for a slot before the order is refused with a 503. */
+        private Duration maxWait = Duration.ofSeconds(5);
+    }
+
+    public enum LimitAlgorithm {
+        /** {@code maxConcurrent}, always. */
+        FIXED,
+        /** Adjusted from the processing latency, see {@link VegasLimit}. */
+        VEGAS
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private LimitAlgorithm algorithm = LimitAlgorithm.FIXED;
+
+        private int min = 2;
+
+        private int max = 64;
+
+        /** How often the limit drops to {@code min} to measure the latency of an idle database. */
+        private Duration probeInterval = Duration.ofSeconds(10);
+
+        /** Orders completed at the minimum limit per probe. */
+        private int probeSamples = 10;
+
+        /** With an adaptive limit, orders of a priority waiting at once as a multiple of it, within {@code maxQueued}. */
+        private double queueFactor = 2;
+    }
+}
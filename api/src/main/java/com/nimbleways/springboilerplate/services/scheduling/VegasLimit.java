@@ -0,0 +1,94 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+/**
+ * Concurrency limit adjusted from the latency it causes, after TCP Vegas. {@code limit * (1 - noLoadRtt / rtt)} of
+ * the orders in flight are estimated to be queued in the database rather than served: the limit grows by
+ * {@code log10(limit)} while that queue is under {@code 3 log10(limit)} and shrinks by as much over
+ * {@code 6 log10(limit)}, so it settles a few orders above what the database serves at once, whatever that is for
+ * the current mix of products.
+ * <p>
+ * The no-load latency cannot be seen while the database is kept busy, so it is measured again every probe interval:
+ * the limit drops to its minimum for a few samples and their fastest one becomes the new baseline. Each admission is
+ * tagged with the probe {@link #epoch()}, and only orders admitted since the probe started count as its samples: the
+ * limit being at its minimum, they were admitted once the orders in flight had drained to it, whereas the orders
+ * admitted before ran under the full limit. Between probes a baseline that became too low, e.g. after the database
+ * got slower, makes the limit too cautious, never too loose.
+ * Not thread-safe.
+ */
+final class VegasLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long probeIntervalNanos;
+    private final int probeSamples;
+
+    private double limit;
+    private double noLoadRtt;
+    private long nextProbeAt;
+    private int probeRemaining;
+    private double probeMinRtt;
+    private long epoch;
+
+    VegasLimit(int initialLimit, OrderSchedulerProperties.Limit settings, long now) {
+        if (settings.getMin() < 1 || settings.getMax() < settings.getMin() || settings.getProbeSamples() < 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit: min=" + settings.getMin()
+                    + ", max=" + settings.getMax() + ", probeSamples=" + settings.getProbeSamples());
+        }
+        this.minLimit = settings.getMin();
+        this.maxLimit = settings.getMax();
+        this.probeIntervalNanos = settings.getProbeInterval().toNanos();
+        this.probeSamples = settings.getProbeSamples();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.nextProbeAt = now + probeIntervalNanos;
+    }
+
+    int current() {
+        return probeRemaining > 0 ? minLimit : (int) limit;
+    }
+
+    /**
+     * @return the tag of an order admitted now, passed back with its sample
+     */
+    long epoch() {
+        return epoch;
+    }
+
+    /**
+     * @param rttNanos        processing time of an order that completed
+     * @param inFlight        orders in flight when it completed, itself included
+     * @param admittedInEpoch {@link #epoch()} when the order was admitted
+     */
+    void onSample(long rttNanos, int inFlight, long admittedInEpoch, long now) {
+        double rtt = Math.max(1, rttNanos);
+        if (probeRemaining > 0) {
+            if (admittedInEpoch != epoch) {
+                // Admitted under the full limit before the probe: its latency is not the no-load one
+                return;
+            }
+            probeMinRtt = Math.min(probeMinRtt, rtt);
+            if (--probeRemaining == 0) {
+                noLoadRtt = probeMinRtt;
+                nextProbeAt = now + probeIntervalNanos;
+            }
+            return;
+        }
+        if (now - nextProbeAt >= 0 && noLoadRtt > 0) {
+            probeRemaining = probeSamples;
+            probeMinRtt = Double.MAX_VALUE;
+            epoch++;
+            return;
+        }
+        if (noLoadRtt == 0 || rtt < noLoadRtt) {
+            noLoadRtt = rtt;
+        }
+
+        double queued = limit * (1 - noLoadRtt / rtt);
+        double step = Math.max(1, Math.log10(limit));
+        if (queued > 6 * step) {
+            limit = Math.max(minLimit, limit - step);
+        } else if (queued < 3 * step && inFlight >= limit / 2) {
+            // Only grown while used: an idle service proves nothing about a higher limit
+            limit = Math.min(maxLimit, limit + step);
+        }
+    }
+}
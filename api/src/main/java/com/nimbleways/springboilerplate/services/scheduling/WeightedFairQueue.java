@@ -0,0 +1,84 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One FIFO per priority, served in proportion to their weights while they all have work: start-time fair queueing
+ * with a unit cost per element. Polling a priority advances its virtual time by {@code 1 / weight}; the priority with
+ * the lowest virtual time is served next. A priority that was idle restarts at the current virtual time, so it gets
+ * no credit for the time it had nothing queued. Not thread-safe.
+ */
+final class WeightedFairQueue<T> {
+
+    private static final class Lane<T> {
+
+        private final ArrayDeque<T> elements = new ArrayDeque<>();
+        private final double stride;
+        private double pass;
+
+        private Lane(int weight) {
+            this.stride = 1d / weight;
+        }
+    }
+
+    private final Map<OrderPriority, Lane<T>> lanes = new EnumMap<>(OrderPriority.class);
+    private double virtualTime;
+    private int size;
+
+    WeightedFairQueue(Map<OrderPriority, Integer> weights) {
+        for (OrderPriority priority : OrderPriority.values()) {
+            int weight = weights.getOrDefault(priority, 1);
+            if (weight < 1) {
+                throw new IllegalArgumentException("Invalid weight for " + priority + ": " + weight);
+            }
+            lanes.put(priority, new Lane<>(weight));
+        }
+    }
+
+    void add(OrderPriority priority, T element) {
+        Lane<T> lane = lanes.get(priority);
+        if (lane.elements.isEmpty()) {
+            lane.pass = Math.max(lane.pass, virtualTime);
+        }
+        lane.elements.addLast(element);
+        size++;
+    }
+
+    /**
+     * @return the next element to serve, {@code null} when empty
+     */
+    T poll() {
+        Lane<T> next = null;
+        // Ties go to the higher priority, declared first
+        for (Lane<T> lane : lanes.values()) {
+            if (!lane.elements.isEmpty() && (next == null || lane.pass < next.pass)) {
+                next = lane;
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+        virtualTime = next.pass;
+        next.pass += next.stride;
+        size--;
+        return next.elements.pollFirst();
+    }
+
+    boolean remove(OrderPriority priority, T element) {
+        boolean removed = lanes.get(priority).elements.remove(element);
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    int size(OrderPriority priority) {
+        return lanes.get(priority).elements.size();
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
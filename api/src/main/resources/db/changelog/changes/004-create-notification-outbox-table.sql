@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset merjane-refacto:004-create-notification-outbox-table
+CREATE TABLE notification_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    lead_time INT,
+    expiry_date DATE,
+    created_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,24 @@
+--liquibase formatted sql
+
+--changeset merjane-refacto:005-create-order-partitioning-tables
+CREATE TABLE order_processing_requests (
+    order_id BIGINT PRIMARY KEY,
+    partition_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    claimed_by VARCHAR(100),
+    enqueued_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP,
+    CONSTRAINT fk_order_processing_requests_order FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE
+);
+CREATE INDEX idx_order_processing_requests_partition_status ON order_processing_requests (partition_id, status);
+
+CREATE TABLE partition_leases (
+    partition_id INT PRIMARY KEY,
+    owner VARCHAR(100),
+    lease_until TIMESTAMP
+);
+
+CREATE TABLE processing_instances (
+    instance_id VARCHAR(100) PRIMARY KEY,
+    heartbeat_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,4 @@
+--liquibase formatted sql
+
+--changeset merjane-refacto:006-add-products-version
+ALTER TABLE products ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
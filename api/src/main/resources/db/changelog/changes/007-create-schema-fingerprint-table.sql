@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset merjane-refacto:007-create-schema-fingerprint-table
+CREATE TABLE schema_fingerprints (
+    name VARCHAR(64) PRIMARY KEY,
+    fingerprint VARCHAR(64) NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
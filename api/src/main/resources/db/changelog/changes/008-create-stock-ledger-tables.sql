@@ -0,0 +1,25 @@
+--liquibase formatted sql
+
+--changeset merjane-refacto:008-create-stock-ledger-tables
+-- No foreign key to products: the ledger is an audit trail and outlives the rows it describes
+CREATE TABLE stock_ledger (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    order_id BIGINT,
+    delta INT NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    compacted BOOLEAN DEFAULT FALSE NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX idx_stock_ledger_product_compacted ON stock_ledger (product_id, compacted);
+CREATE INDEX idx_stock_ledger_created_at ON stock_ledger (created_at);
+
+CREATE TABLE stock_snapshots (
+    product_id BIGINT PRIMARY KEY,
+    available INT NOT NULL,
+    compacted_at TIMESTAMP NOT NULL
+);
+
+-- Opening balances: the current stock of every existing product
+INSERT INTO stock_snapshots (product_id, available, compacted_at)
+SELECT id, available, CURRENT_TIMESTAMP FROM products;
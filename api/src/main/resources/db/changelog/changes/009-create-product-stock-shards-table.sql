@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset merjane-refacto:009-create-product-stock-shards-table
+-- 0: the stock of the product is products.available. N: it is split across N rows of product_stock_shards, and
+-- products.available only holds units the rebalancer has not distributed yet
+ALTER TABLE products ADD COLUMN stock_shards INT DEFAULT 0 NOT NULL;
+
+CREATE TABLE product_stock_shards (
+    product_id BIGINT NOT NULL,
+    shard INT NOT NULL,
+    available INT NOT NULL,
+    PRIMARY KEY (product_id, shard),
+    CONSTRAINT fk_product_stock_shards_product FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
@@ -0,0 +1,18 @@
+package com.nimbleways.springboilerplate;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@UnitTest
+class ApplicationTest {
+
+	@Test
+	void shouldBufferStartupStepsOnlyForTheFaststartProfile() {
+		assertTrue(Application.isProfileActive("faststart", "--spring.profiles.active=prod,faststart"));
+		assertFalse(Application.isProfileActive("faststart", "--spring.profiles.active=prod"));
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.nimbleways.springboilerplate;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bursts order processing against a deliberately small pool on the local H2 datasource and reads
+ * the time spent waiting for a connection from the Hikari metrics published to Actuator.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.pool-name=load-test-pool",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=10000"
+})
+@AutoConfigureMockMvc
+class ConnectionPoolLoadIntegrationTests {
+
+        private static final int CLIENTS = 16;
+        private static final int ORDERS_PER_CLIENT = 10;
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        void shouldPublishPoolWaitTimeUnderBurst() throws Exception {
+                List<Long> orderIds = createOrders(CLIENTS * ORDERS_PER_CLIENT);
+                Timer acquire = meterRegistry.get("hikaricp.connections.acquire").tag("pool", "load-test-pool").timer();
+                long acquiredBefore = acquire.count();
+
+                ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+                try {
+                        List<Future<?>> results = new ArrayList<>();
+                        for (int client = 0; client < CLIENTS; client++) {
+                                List<Long> clientOrders = orderIds.subList(client * ORDERS_PER_CLIENT, (client + 1) * ORDERS_PER_CLIENT);
+                                results.add(clients.submit(() -> {
+                                        for (Long orderId : clientOrders) {
+                                                mockMvc.perform(post("/orders/{orderId}/process", orderId)).andExpect(status().isOk());
+                                        }
+                                        return null;
+                                }));
+                        }
+                        for (Future<?> result : results) {
+                                result.get(60, TimeUnit.SECONDS);
+                        }
+                } finally {
+                        clients.shutdownNow();
+                }
+
+                long acquired = acquire.count() - acquiredBefore;
+                double maxWaitMs = acquire.max(TimeUnit.MILLISECONDS);
+                double timeouts = meterRegistry.get("hikaricp.connections.timeout").tag("pool", "load-test-pool")
+                                .counter().count();
+
+                assertTrue(acquired >= orderIds.size(), "every request should acquire a connection, got " + acquired);
+                assertTrue(maxWaitMs > 0, "16 clients on 2 connections should wait for the pool, max wait " + maxWaitMs + "ms");
+                assertEquals(0, timeouts, "waits should stay within the connection timeout");
+                assertNotNull(meterRegistry.find("hikaricp.connections.pending").tag("pool", "load-test-pool").gauge());
+                assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "load-test-pool").gauge());
+                assertNotNull(meterRegistry.find("hikaricp.connections.idle").tag("pool", "load-test-pool").gauge());
+        }
+
+        private List<Long> createOrders(int count) {
+                List<Long> orderIds = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                        Product product = productRepository.save(new Product(null, 5, 100, "NORMAL", "Pool cable " + i, null, null, null));
+                        orderIds.add(orderRepository.save(new Order(null, Set.of(product))).getId());
+                }
+                return orderIds;
+        }
+}
@@ -0,0 +1,37 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Allocation-light stand-ins for Spring Data repositories and services in benchmarks, where Mockito's
+ * invocation bookkeeping would dominate the measured cost.
+ */
+final class BenchmarkStubs {
+
+    private BenchmarkStubs() {
+    }
+
+    /** Every method returns its argument when it takes exactly one (like {@code save}), otherwise null. */
+    static <T> T passThrough(Class<T> type) {
+        return answering(type, Map.of());
+    }
+
+    /** Methods named in {@code answers} return the mapped value; the others behave like {@link #passThrough}. */
+    static <T> T answering(Class<T> type, Map<String, Object> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            if (answers.containsKey(method.getName())) {
+                return answers.get(method.getName());
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            return args != null && args.length == 1 && method.getReturnType().isInstance(args[0]) ? args[0] : null;
+        });
+        return type.cast(proxy);
+    }
+}
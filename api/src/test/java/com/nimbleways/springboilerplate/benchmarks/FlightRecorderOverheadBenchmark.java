@@ -0,0 +1,59 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.joran.spi.JoranException;
+import com.nimbleways.springboilerplate.services.diagnostics.FlightRecordings;
+import com.nimbleways.springboilerplate.services.implementations.OrderServiceImpl;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per processed order of the order, handler and notification JFR events: no recording, the continuous recording
+ * ({@code default} settings, slow handler calls only) and an on-demand {@code profile} recording keeping every event.
+ * Repositories are stubbed as in {@link OrderLoggingBenchmark}, so the recording weighs more here than next to real
+ * database round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class FlightRecorderOverheadBenchmark {
+
+    @Param({"none", "continuous", "on-demand"})
+    private String recording;
+
+    private OrderServiceImpl orderService;
+
+    @Setup
+    public void setUp() throws JoranException {
+        // The order summary is logged at INFO: kept off the console, which would dominate the timings
+        OrderLoggingBenchmark.configureLogback("/logback-benchmark-async.xml");
+        orderService = OrderLoggingBenchmark.stubbedOrderService(0.0);
+        FlightRecordings recordings = new FlightRecordings(true, "default", Duration.ofMinutes(5),
+                Path.of("target", "recordings"));
+        switch (recording) {
+            case "continuous" -> recordings.startContinuousRecording();
+            case "on-demand" -> recordings.start("on-demand", "profile", Duration.ofMinutes(5));
+            default -> { }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlightRecorder.getFlightRecorder().getRecordings().forEach(Recording::close);
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public Object processOrder() {
+        return orderService.processOrder(OrderLoggingBenchmark.ORDER_ID);
+    }
+}
@@ -0,0 +1,50 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.services.intake.OrderIntakeJournal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable appends per second to the intake journal from 8 concurrent request threads, each append waiting for the
+ * fsync that covers it. A group-commit window of 0 forces as soon as the flusher sees a record; a wider window lets
+ * more appends share one fsync at the cost of latency. The journal lives in a temporary directory, so the numbers
+ * depend on the disk behind java.io.tmpdir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class OrderIntakeJournalBenchmark {
+
+    @Param({"0", "200", "1000"})
+    private long groupCommitMicros;
+
+    private final AtomicLong orderIds = new AtomicLong();
+    private Path directory;
+    private OrderIntakeJournal journal;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("order-intake-benchmark");
+        journal = new OrderIntakeJournal(directory, 1 << 20, groupCommitMicros, 5000);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long append() {
+        return journal.append(orderIds.incrementAndGet());
+    }
+}
@@ -0,0 +1,140 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.core.joran.spi.JoranException;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.services.diagnostics.NotificationInstrumentation;
+import com.nimbleways.springboilerplate.services.handlers.ExpirableProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.NormalProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandlerFactory;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.StockDecrementCombiner;
+import com.nimbleways.springboilerplate.services.implementations.ConflictRetryPolicy;
+import com.nimbleways.springboilerplate.services.implementations.ItemTraceSampler;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.services.implementations.OrderServiceImpl;
+import com.nimbleways.springboilerplate.services.implementations.OrderTransactionScope;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.inventory.ShardSelection;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import com.nimbleways.springboilerplate.services.limiting.ProductTypeLimitProperties;
+import com.nimbleways.springboilerplate.services.limiting.ProductTypeLimiter;
+import com.nimbleways.springboilerplate.services.lookup.OrderIdFilter;
+import com.nimbleways.springboilerplate.services.notifications.DirectNotificationPublisher;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost per processed order: summary-only (sample rate 0) versus a per-item trace for every item
+ * (sample rate 1, equivalent to the former per-item INFO logs), each through a synchronous and an async file appender.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderLoggingBenchmark {
+
+    static final long ORDER_ID = 1L;
+    private static final int ITEMS_PER_ORDER = 20;
+
+    @Param({"0.0", "0.01", "1.0"})
+    private double sampleRate;
+
+    @Param({"sync", "async"})
+    private String appender;
+
+    private OrderServiceImpl orderService;
+
+    @Setup
+    public void setUp() throws JoranException {
+        configureLogback("/logback-benchmark-" + appender + ".xml");
+        orderService = stubbedOrderService(sampleRate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public Object processOrder() {
+        return orderService.processOrder(ORDER_ID);
+    }
+
+    /**
+     * Order processing over stubbed repositories: processes {@code ORDER_ID}, whose items are always in stock.
+     */
+    static OrderServiceImpl stubbedOrderService(double sampleRate) {
+        return stubbedOrderService(sampleRate, OpenTelemetry.noop().getTracer("benchmark"));
+    }
+
+    static OrderServiceImpl stubbedOrderService(double sampleRate, Tracer tracer) {
+        ProductRepository productRepository = BenchmarkStubs.passThrough(ProductRepository.class);
+        ProductStockUpdates stockUpdates = BenchmarkStubs.passThrough(ProductStockUpdates.class);
+        NotificationPublisher notificationPublisher = new DirectNotificationPublisher(new NotificationService(),
+                new NotificationInstrumentation(tracer));
+        OrderRepository orderRepository = BenchmarkStubs.answering(OrderRepository.class,
+                Map.of("findItemStockByOrderId", createItems()));
+
+        StockLedger stockLedger = new StockLedger(BenchmarkStubs.passThrough(StockLedgerRepository.class));
+        ProductInventory inventory = new ProductInventory(stockUpdates, stockLedger, ShardSelection.RANDOM);
+
+        ProductTypeHandlerFactory factory = new ProductTypeHandlerFactory(List.of(
+                new NormalProductHandler(inventory, notificationPublisher,
+                        new StaticListableBeanFactory().getBeanProvider(StockDecrementCombiner.class)),
+                new SeasonalProductHandler(inventory, notificationPublisher, new SeasonalDeliveryPlanner()),
+                new ExpirableProductHandler(inventory, notificationPublisher)));
+        return new OrderServiceImpl(orderRepository, productRepository, factory, new ItemTraceSampler(sampleRate),
+                new ConflictRetryPolicy(new SimpleMeterRegistry(), 1, 0, 0),
+                new ProductTypeLimiter(new ProductTypeLimitProperties(), new SimpleMeterRegistry()),
+                BenchmarkStubs.passThrough(PlatformTransactionManager.class), BenchmarkStubs.passThrough(EntityManager.class),
+                OrderTransactionScope.ORDER, tracer,
+                new StaticListableBeanFactory().getBeanProvider(OrderIdFilter.class));
+    }
+
+    static void configureLogback(String resource) throws JoranException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(OrderLoggingBenchmark.class.getResource(resource));
+    }
+
+    private static List<ProductStockView> createItems() {
+        List<ProductStockView> items = new ArrayList<>();
+        LocalDate now = LocalDate.now();
+        for (long i = 0; i < ITEMS_PER_ORDER; i++) {
+            switch ((int) (i % 3)) {
+                case 0 -> items.add(new ProductStockView(i, "NORMAL", "Normal " + i, Integer.MAX_VALUE, 10, null, null,
+                        null, null, 0));
+                case 1 -> items.add(new ProductStockView(i, "SEASONAL", "Seasonal " + i, Integer.MAX_VALUE, 10, null,
+                        now.minusDays(10), now.plusDays(60), null, 0));
+                default -> items.add(new ProductStockView(i, "EXPIRABLE", "Expirable " + i, Integer.MAX_VALUE, 10,
+                        now.plusDays(30), null, null, null, 0));
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,99 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per order of reading and decrementing every item: managed {@link Product} entities loaded with the order and
+ * written back by dirty checking at commit, as order processing used to, versus {@link ProductStockView} projections
+ * and one targeted versioned update per item. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the allocation
+ * per order. H2 in memory with the Liquibase schema, with and without the second-level cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadPathBenchmark {
+
+    @Param({"10", "50"})
+    private int itemsPerOrder;
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private ProductStockUpdates stockUpdates;
+    private TransactionTemplate transactionTemplate;
+    private long orderId;
+
+    @Setup
+    public void setUp() {
+        // The test application.yml disables Liquibase, so the main configuration is restored on the command line
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:order-read-path-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.liquibase.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--cache.second-level.enabled=" + secondLevelCache,
+                        "--stock.ledger.compaction.enabled=false",
+                        "--logging.level.root=WARN");
+        orderRepository = context.getBean(OrderRepository.class);
+        stockUpdates = context.getBean(ProductStockUpdates.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("insert into orders default values");
+        orderId = jdbcTemplate.queryForObject("select max(id) from orders", Long.class);
+        for (int i = 0; i < itemsPerOrder; i++) {
+            jdbcTemplate.update("insert into products (lead_time, available, type, name, version) "
+                    + "values (10, ?, 'NORMAL', ?, 0)", Integer.MAX_VALUE, "Product " + i);
+            jdbcTemplate.update("insert into order_items (order_id, product_id) "
+                    + "values (?, (select max(id) from products))", orderId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int managedEntities() {
+        return transactionTemplate.execute(status -> {
+            Order order = orderRepository.findById(orderId).orElseThrow();
+            for (Product product : order.getItems()) {
+                product.setAvailable(product.getAvailable() - 1);
+            }
+            return order.getItems().size();
+        });
+    }
+
+    @Benchmark
+    public int projections() {
+        return transactionTemplate.execute(status -> {
+            int processed = 0;
+            for (ProductStockView product : orderRepository.findItemStockByOrderId(orderId)) {
+                stockUpdates.updateAvailable(product, product.available() - 1);
+                processed++;
+            }
+            return processed;
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders processed per second for the transaction layouts of an order: one commit per item (transaction-scope item),
+ * one transaction with a savepoint per item (transaction-scope order), and one transaction without savepoints as the
+ * all-or-nothing baseline. Each item locks its product row, decrements it and appends a ledger entry, as the
+ * handlers do. H2 in memory with the Liquibase schema, so a commit costs no disk flush or network round trip here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTransactionBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int itemsPerOrder;
+
+    private final AtomicLong orderIds = new AtomicLong();
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate orderTransaction;
+    private TransactionTemplate itemTransaction;
+
+    @Setup
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:order-transaction-benchmark;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (long id = 1; id <= itemsPerOrder; id++) {
+            jdbcTemplate.update("insert into products (id, lead_time, available, type, name, version) "
+                    + "values (?, 10, ?, 'NORMAL', ?, 0)", id, Integer.MAX_VALUE, "Product " + id);
+        }
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        orderTransaction = new TransactionTemplate(transactionManager);
+        itemTransaction = new TransactionTemplate(transactionManager);
+        itemTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int commitPerItem() {
+        long orderId = orderIds.incrementAndGet();
+        int processed = 0;
+        for (long productId = 1; productId <= itemsPerOrder; productId++) {
+            long id = productId;
+            processed += itemTransaction.execute(status -> processItem(orderId, id));
+        }
+        return processed;
+    }
+
+    @Benchmark
+    public int savepointPerItem() {
+        long orderId = orderIds.incrementAndGet();
+        return orderTransaction.execute(status -> {
+            int processed = 0;
+            for (long productId = 1; productId <= itemsPerOrder; productId++) {
+                long id = productId;
+                processed += itemTransaction.execute(nested -> processItem(orderId, id));
+            }
+            return processed;
+        });
+    }
+
+    @Benchmark
+    public int singleTransaction() {
+        long orderId = orderIds.incrementAndGet();
+        return orderTransaction.execute(status -> {
+            int processed = 0;
+            for (long productId = 1; productId <= itemsPerOrder; productId++) {
+                processed += processItem(orderId, productId);
+            }
+            return processed;
+        });
+    }
+
+    private int processItem(long orderId, long productId) {
+        jdbcTemplate.queryForObject("select available from products where id = ? for update", Integer.class, productId);
+        jdbcTemplate.update("update products set available = available - 1, version = version + 1 where id = ?",
+                productId);
+        return jdbcTemplate.update("insert into stock_ledger (product_id, order_id, delta, reason, compacted, created_at) "
+                + "values (?, ?, -1, 'ORDER', false, ?)", productId, orderId, Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.services.handlers.ExpirableProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.NormalProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.StockDecrementCombiner;
+import com.nimbleways.springboilerplate.services.handlers.rules.BuiltInProductRules;
+import com.nimbleways.springboilerplate.services.handlers.rules.ProductRuleCompiler;
+import com.nimbleways.springboilerplate.services.handlers.rules.ProductRuleProperties;
+import com.nimbleways.springboilerplate.services.handlers.rules.ProductRuleSet;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.inventory.ShardSelection;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per item of deciding and applying its outcome: the handler bean of its type versus the same logic written as
+ * rules and compiled by {@link ProductRuleCompiler}. Both without their nested transaction, against stubbed
+ * repositories and notifications, so the difference is the decision itself. {@code available} items are decremented
+ * by the first rule; the others go down to the last one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductRulesBenchmark {
+
+    private static final Long ORDER_ID = 1L;
+
+    @Param({"NORMAL", "SEASONAL", "EXPIRABLE"})
+    private String type;
+
+    @Param({"true", "false"})
+    private boolean available;
+
+    private ProductTypeHandler handler;
+    private ProductRuleSet rules;
+    private ProductStockView product;
+
+    @Setup
+    public void setUp() {
+        ProductInventory inventory = new ProductInventory(BenchmarkStubs.passThrough(ProductStockUpdates.class),
+                new StockLedger(BenchmarkStubs.passThrough(StockLedgerRepository.class)), ShardSelection.RANDOM);
+        NotificationPublisher notificationPublisher = BenchmarkStubs.passThrough(NotificationPublisher.class);
+        SeasonalDeliveryPlanner deliveryPlanner = new SeasonalDeliveryPlanner();
+        ProductRuleCompiler compiler = new ProductRuleCompiler(new ProductRuleProperties(), inventory,
+                notificationPublisher, deliveryPlanner,
+                new StaticListableBeanFactory().getBeanProvider(StockDecrementCombiner.class),
+                BenchmarkStubs.passThrough(PlatformTransactionManager.class));
+
+        LocalDate today = LocalDate.now();
+        int stock = available ? 10 : 0;
+        switch (type) {
+            case "SEASONAL" -> {
+                handler = new SeasonalProductHandler(inventory, notificationPublisher, deliveryPlanner);
+                rules = compiler.compile(type, BuiltInProductRules.seasonal());
+                // Out of stock and too late for a restock: the last rule
+                product = new ProductStockView(1L, type, "Watermelon", stock, 15, null, today.minusDays(10),
+                        available ? today.plusDays(50) : today.plusDays(5), 0L, 0);
+            }
+            case "EXPIRABLE" -> {
+                handler = new ExpirableProductHandler(inventory, notificationPublisher);
+                rules = compiler.compile(type, BuiltInProductRules.expirable(0));
+                product = new ProductStockView(1L, type, "Butter", stock, 15, today.plusDays(10), null, null, 0L, 0);
+            }
+            default -> {
+                handler = new NormalProductHandler(inventory, notificationPublisher,
+                        new StaticListableBeanFactory().getBeanProvider(StockDecrementCombiner.class));
+                rules = compiler.compile(type, BuiltInProductRules.normal());
+                product = new ProductStockView(1L, type, "USB Cable", stock, 0, null, null, null, 0L, 0);
+            }
+        }
+    }
+
+    @Benchmark
+    public ProductOrderOutcome handler() {
+        return handler.processProductOrder(product, ORDER_ID);
+    }
+
+    @Benchmark
+    public ProductOrderOutcome compiledRules() {
+        return rules.evaluate(product, ORDER_ID);
+    }
+}
@@ -0,0 +1,51 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from {@code SpringApplication.run} to a started context, with Liquibase and the H2 schema of the main
+ * configuration, for the default profile and the {@code faststart} profile. The schema is migrated once in the
+ * trial setup, as it is for a replica joining a running deployment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"default", "faststart"})
+    private String profile;
+
+    @Setup(Level.Trial)
+    public void migrateSchema() {
+        start().close();
+    }
+
+    @Benchmark
+    public void startAndStop() {
+        start().close();
+    }
+
+    private ConfigurableApplicationContext start() {
+        // The test application.yml disables Liquibase, so the main configuration is restored on the command line
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:startup-benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.liquibase.enabled=true",
+                "--server.port=0"));
+        if (!"faststart".equals(profile)) {
+            args.add("--spring.jpa.hibernate.ddl-auto=validate");
+        }
+        return new SpringApplicationBuilder(Application.class)
+                .profiles(profile)
+                .run(args.toArray(String[]::new));
+    }
+}
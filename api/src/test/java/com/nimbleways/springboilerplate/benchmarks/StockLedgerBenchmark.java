@@ -0,0 +1,71 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock mutation throughput on one hot product, from 8 threads each committing one mutation per operation:
+ * the in-place {@code available = available - 1} update, which serialises on the row lock, versus appending a
+ * ledger entry, which only contends on the index. H2 in memory with the Liquibase schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockLedgerBenchmark {
+
+    private static final long PRODUCT_ID = 1L;
+
+    private final AtomicLong orderIds = new AtomicLong();
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:stock-ledger-benchmark;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(8);
+        dataSource = new HikariDataSource(config);
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into products (id, lead_time, available, type, name, version) "
+                + "values (?, 10, ?, 'NORMAL', 'Hot SKU', 0)", PRODUCT_ID, Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int inPlaceUpdate() {
+        return jdbcTemplate.update("update products set available = available - 1, version = version + 1 where id = ?",
+                PRODUCT_ID);
+    }
+
+    @Benchmark
+    public int ledgerAppend() {
+        return jdbcTemplate.update("insert into stock_ledger (product_id, order_id, delta, reason, compacted, created_at) "
+                + "values (?, ?, -1, 'ORDER', false, ?)", PRODUCT_ID, orderIds.incrementAndGet(),
+                Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.inventory.StockShardRebalancer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second when every order is for the same hot product, processed by 8 threads at once: unsharded (0),
+ * where each order holds the product row lock until it commits, versus its stock split across 1 or 8 shard rows that
+ * concurrent orders decrement independently. 1 shard shows the cost of the shard path itself, with the same
+ * contention as a single row. H2 in memory with the Liquibase schema, transaction-scope order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockShardingBenchmark {
+
+    @Param({"0", "1", "8"})
+    private int shards;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private long orderId;
+
+    @Setup
+    public void setUp() {
+        // The test application.yml disables Liquibase, so the main configuration is restored on the command line
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:stock-sharding-benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.liquibase.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--stock.ledger.compaction.enabled=false",
+                        "--stock.sharding.rebalance.enabled=false",
+                        "--logging.level.root=WARN");
+        orderService = context.getBean(OrderService.class);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("insert into products (lead_time, available, type, name, version) "
+                + "values (10, ?, 'NORMAL', 'Hot SKU', 0)", Integer.MAX_VALUE);
+        long productId = jdbcTemplate.queryForObject("select max(id) from products", Long.class);
+        jdbcTemplate.update("insert into orders default values");
+        orderId = jdbcTemplate.queryForObject("select max(id) from orders", Long.class);
+        jdbcTemplate.update("insert into order_items (order_id, product_id) values (?, ?)", orderId, productId);
+        if (shards > 0) {
+            context.getBean(StockShardRebalancer.class).reshard(productId, shards);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long processHotOrder() {
+        return orderService.processOrder(orderId).id();
+    }
+}
@@ -0,0 +1,85 @@
+package com.nimbleways.springboilerplate.benchmarks;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.joran.spi.JoranException;
+import com.nimbleways.springboilerplate.configuration.TracingConfiguration;
+import com.nimbleways.springboilerplate.services.implementations.OrderServiceImpl;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per processed order of the order, fetch, handler and notification spans: the no-op API, then the SDK with
+ * {@code tracing.sampling.probability} at 0, 1% and 100%, exporting in batches to an exporter that drops the spans.
+ * Repositories are stubbed as in {@link OrderLoggingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class TracingOverheadBenchmark {
+
+    @Param({"noop", "0.0", "0.01", "1.0"})
+    private String sampling;
+
+    private SdkTracerProvider tracerProvider;
+    private OrderServiceImpl orderService;
+
+    @Setup
+    public void setUp() throws JoranException {
+        // The order summary is logged at INFO: kept off the console, which would dominate the timings
+        OrderLoggingBenchmark.configureLogback("/logback-benchmark-async.xml");
+        if (sampling.equals("noop")) {
+            orderService = OrderLoggingBenchmark.stubbedOrderService(0.0, OpenTelemetry.noop().getTracer("benchmark"));
+            return;
+        }
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("discardingSpanExporter", new DiscardingSpanExporter());
+        TracingConfiguration configuration = new TracingConfiguration();
+        tracerProvider = configuration.tracerProvider(beanFactory.getBeanProvider(SpanExporter.class),
+                Double.parseDouble(sampling), "benchmark");
+        orderService = OrderLoggingBenchmark.stubbedOrderService(0.0,
+                configuration.tracer(configuration.openTelemetry(tracerProvider)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public Object processOrder() {
+        return orderService.processOrder(OrderLoggingBenchmark.ORDER_ID);
+    }
+
+    private static final class DiscardingSpanExporter implements SpanExporter {
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@UnitTest
+class CdsTrainingRunTest {
+
+    @Test
+    void shouldCloseTheContextOnceReadySoThatTheArchiveIsWritten() {
+        ConfigurableApplicationContext context = Mockito.mock(ConfigurableApplicationContext.class);
+
+        new CdsTrainingRun().onApplicationEvent(
+                new ApplicationReadyEvent(new SpringApplication(), new String[0], context, null));
+
+        Mockito.verify(context).close();
+    }
+}
@@ -0,0 +1,96 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import com.nimbleways.springboilerplate.contollers.OrderController;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:faststart;DB_CLOSE_DELAY=-1",
+        "spring.liquibase.enabled=true"
+})
+@ActiveProfiles("faststart")
+@AutoConfigureMockMvc
+class FastStartIntegrationTests {
+
+        private static final String CHANGE_LOG = "classpath:db/changelog/db.changelog-master.yaml";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private LiquibaseFingerprintGuard fingerprintGuard;
+
+        @Autowired
+        private DataSource dataSource;
+
+        @Autowired
+        private ConfigurableListableBeanFactory beanFactory;
+
+        @Test
+        void shouldServeOrdersOnceStartedWithDeferredJpaBootstrap() throws Exception {
+                mockMvc.perform(get("/products/seasonal/forecast")).andExpect(status().isOk());
+        }
+
+        @Test
+        void shouldStillServeApiDocsOnFirstUse() throws Exception {
+                mockMvc.perform(get("/v3/api-docs")).andExpect(status().isOk());
+        }
+
+        @Test
+        void shouldSkipLiquibaseOnlyWhileTheChangelogIsUnchanged() {
+                String fingerprint = fingerprintGuard.fingerprint(CHANGE_LOG);
+                assertEquals(fingerprint, fingerprintGuard.storedFingerprint(liquibase()).orElseThrow());
+
+                ProbeLiquibase unchanged = liquibase();
+                fingerprintGuard.postProcessBeforeInitialization(unchanged, "liquibase");
+                assertFalse(unchanged.willRun());
+
+                new JdbcTemplate(dataSource)
+                                .update("update schema_fingerprints set fingerprint = 'stale'");
+                ProbeLiquibase changed = liquibase();
+                fingerprintGuard.postProcessBeforeInitialization(changed, "liquibase");
+                assertTrue(changed.willRun());
+                fingerprintGuard.postProcessAfterInitialization(changed, "liquibase");
+                assertEquals(fingerprint, fingerprintGuard.storedFingerprint(changed).orElseThrow());
+        }
+
+        @Test
+        void shouldCreateDocumentationAndInfoBeansLazily() {
+                List<String> springdocBeans = Arrays.stream(beanFactory.getBeanDefinitionNames())
+                                .filter(name -> String.valueOf(beanFactory.getType(name)).contains(" org.springdoc."))
+                                .toList();
+
+                assertFalse(springdocBeans.isEmpty());
+                springdocBeans.forEach(name -> assertTrue(beanFactory.getBeanDefinition(name).isLazyInit(), name));
+                assertFalse(beanFactory.getBeanDefinition(beanFactory.getBeanNamesForType(OrderController.class)[0])
+                                .isLazyInit());
+        }
+
+        private ProbeLiquibase liquibase() {
+                ProbeLiquibase liquibase = new ProbeLiquibase();
+                liquibase.setDataSource(dataSource);
+                liquibase.setChangeLog(CHANGE_LOG);
+                return liquibase;
+        }
+
+        private static class ProbeLiquibase extends SpringLiquibase {
+                boolean willRun() {
+                        return shouldRun;
+                }
+        }
+}
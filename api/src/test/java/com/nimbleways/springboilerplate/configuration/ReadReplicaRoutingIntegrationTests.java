@@ -0,0 +1,103 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two unrelated H2 databases stand in for the primary and its replica. Nothing replicates between them, so which
+ * one answered is visible from the data.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.replica.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.username=sa",
+        // The shared second-level cache would answer reads without reaching either database
+        "cache.second-level.enabled=false"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingIntegrationTests {
+
+        private static final long REPLICA_ONLY_ID = 9001L;
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        @Qualifier("primaryDataSource")
+        private DataSource primaryDataSource;
+
+        @Autowired
+        @Qualifier("replicaDataSource")
+        private DataSource replicaDataSource;
+
+        @BeforeEach
+        void createReplicaSchema() throws Exception {
+                SpringLiquibase liquibase = new SpringLiquibase();
+                liquibase.setDataSource(replicaDataSource);
+                liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+                liquibase.setResourceLoader(new DefaultResourceLoader());
+                liquibase.afterPropertiesSet();
+        }
+
+        @Test
+        void shouldServeOrderLookupsFromTheReplica() throws Exception {
+                JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+                replica.update("merge into products (id, lead_time, available, type, name, version) key (id) "
+                                + "values (?, 5, 7, 'NORMAL', 'Replica Cable', 0)", REPLICA_ONLY_ID);
+                replica.update("merge into orders (id) key (id) values (?)", REPLICA_ONLY_ID);
+                replica.update("merge into order_items (order_id, product_id) key (order_id, product_id) values (?, ?)",
+                                REPLICA_ONLY_ID, REPLICA_ONLY_ID);
+
+                mockMvc.perform(get("/orders/{orderId}", REPLICA_ONLY_ID))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items[0].name").value("Replica Cable"))
+                                .andExpect(jsonPath("$.items[0].available").value(7));
+
+                assertTrue(orderRepository.findById(REPLICA_ONLY_ID).isEmpty());
+        }
+
+        @Test
+        void shouldKeepOrderProcessingOnThePrimary() throws Exception {
+                Product product = productRepository.save(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(product)));
+
+                mockMvc.perform(post("/orders/{orderId}/process", order.getId())).andExpect(status().isOk());
+
+                Integer available = new JdbcTemplate(primaryDataSource)
+                                .queryForObject("select available from products where id = ?", Integer.class, product.getId());
+                assertEquals(29, available);
+                mockMvc.perform(get("/orders/{orderId}", order.getId())).andExpect(status().isNotFound());
+        }
+}
@@ -0,0 +1,116 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class SecondLevelCacheIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private ProductStockUpdates stockUpdates;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        private Statistics statistics;
+
+        @BeforeEach
+        void setUp() {
+                statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        }
+
+        @Test
+        void shouldServeReReadOrdersFromCacheInsteadOfTheDatabase() throws Exception {
+                Product cable = productRepository.save(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
+                Product dongle = productRepository.save(new Product(null, 10, 10, "NORMAL", "USB Dongle", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(cable, dongle)));
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())).andExpect(status().isOk());
+                // Processing reads projections and evicts the products it updates, so the first read fills the cache
+                statementsToReadOrder(order.getId());
+
+                long warm = statementsToReadOrder(order.getId());
+                long warmHits = statistics.getSecondLevelCacheHitCount();
+                entityManagerFactory.getCache().evictAll();
+                long cold = statementsToReadOrder(order.getId());
+
+                assertEquals(0, warm, "statements to re-read a cached order with 2 items");
+                assertTrue(cold > 0, "statements to re-read it uncached: " + cold);
+                assertTrue(warmHits > 0);
+        }
+
+        @Test
+        void shouldSeeStockChangesThroughTheCache() throws Exception {
+                Product cable = productRepository.save(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(cable)));
+                productRepository.findById(cable.getId());
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())).andExpect(status().isOk());
+
+                assertEquals(29, productRepository.findById(cable.getId()).orElseThrow().getAvailable());
+        }
+
+        @Test
+        void shouldEvictUpdatedProductAndRefuseUpdatesFromStaleViews() {
+                Product cable = productRepository.save(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
+                ProductStockView view = productRepository.findStockById(cable.getId()).orElseThrow();
+                productRepository.findById(cable.getId());
+
+                stockUpdates.updateAvailable(view, 29);
+
+                assertFalse(entityManagerFactory.getCache().contains(Product.class, cable.getId()));
+                assertEquals(29, productRepository.findById(cable.getId()).orElseThrow().getAvailable());
+                assertThrows(ObjectOptimisticLockingFailureException.class, () -> stockUpdates.updateAvailable(view, 28));
+                assertEquals(29, productRepository.findCurrentById(cable.getId()).orElseThrow().getAvailable());
+        }
+
+        private long statementsToReadOrder(Long orderId) {
+                statistics.clear();
+                transactionTemplate.executeWithoutResult(status -> orderRepository.findById(orderId).orElseThrow()
+                                .getItems().forEach(Product::getAvailable));
+                return statistics.getPrepareStatementCount();
+        }
+}
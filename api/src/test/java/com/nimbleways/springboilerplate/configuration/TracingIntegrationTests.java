@@ -0,0 +1,138 @@
+package com.nimbleways.springboilerplate.configuration;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.diagnostics.TraceAttributes;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "tracing.sampling.probability=1.0",
+        "notifications.delivery=direct"
+})
+@AutoConfigureMockMvc
+class TracingIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+        private static final String GATEWAY_TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+        private static final String GATEWAY_SPAN_ID = "00f067aa0ba902b7";
+
+        @TestConfiguration
+        static class InMemoryExporterConfiguration {
+
+                @Bean
+                InMemorySpanExporter inMemorySpanExporter() {
+                        return InMemorySpanExporter.create();
+                }
+        }
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private InMemorySpanExporter spanExporter;
+
+        @Autowired
+        private SdkTracerProvider tracerProvider;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @BeforeEach
+        void setUp() {
+                spanExporter.reset();
+        }
+
+        @Test
+        void shouldTraceOrderItemsAndNotificationsWithinTheGatewayTrace() throws Exception {
+                Product cable = productRepository.save(new Product(null, 10, 5, "NORMAL", "USB Cable", null, null, null));
+                Product milk = productRepository.save(
+                                new Product(null, 90, 6, "EXPIRABLE", "Milk", LocalDate.now().minusDays(2), null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(cable, milk))).getId();
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, orderId)
+                                .header("traceparent", "00-" + GATEWAY_TRACE_ID + "-" + GATEWAY_SPAN_ID + "-01"))
+                                .andExpect(status().isOk());
+
+                List<SpanData> spans = exportedSpans();
+                assertTrue(spans.stream().allMatch(span -> span.getTraceId().equals(GATEWAY_TRACE_ID)));
+                SpanData request = only(spans, "POST /orders/{orderId}/process");
+                assertEquals(SpanKind.SERVER, request.getKind());
+                assertEquals(GATEWAY_SPAN_ID, request.getParentSpanId());
+                assertEquals(200L, request.getAttributes().get(AttributeKey.longKey("http.status_code")));
+
+                SpanData order = only(spans, "order.process");
+                assertEquals(request.getSpanId(), order.getParentSpanId());
+                assertEquals(orderId, order.getAttributes().get(TraceAttributes.ORDER_ID));
+                assertEquals("PROCESSED", order.getAttributes().get(TraceAttributes.OUTCOME));
+                assertEquals(order.getSpanId(), only(spans, "OrderRepository.findItemStockByOrderId").getParentSpanId());
+
+                List<String> handled = spans.stream()
+                                .filter(span -> span.getName().equals("handler.process"))
+                                .peek(span -> assertEquals(order.getSpanId(), span.getParentSpanId()))
+                                .map(span -> span.getAttributes().get(TraceAttributes.PRODUCT_TYPE) + ":"
+                                                + span.getAttributes().get(TraceAttributes.OUTCOME))
+                                .sorted()
+                                .toList();
+                assertEquals(List.of("EXPIRABLE:EXPIRED", "NORMAL:DECREMENTED"), handled);
+
+                SpanData notification = only(spans, "notification.send");
+                assertEquals("EXPIRATION", notification.getAttributes().get(TraceAttributes.NOTIFICATION_TYPE));
+                assertEquals("direct", notification.getAttributes().get(TraceAttributes.DELIVERY));
+                assertEquals("SENT", notification.getAttributes().get(TraceAttributes.OUTCOME));
+        }
+
+        @Test
+        void shouldFollowTheGatewayDecisionNotToSample() throws Exception {
+                Product cable = productRepository.save(new Product(null, 10, 5, "NORMAL", "USB Cable", null, null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(cable))).getId();
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, orderId)
+                                .header("traceparent", "00-" + GATEWAY_TRACE_ID + "-" + GATEWAY_SPAN_ID + "-00"))
+                                .andExpect(status().isOk());
+
+                assertEquals(List.of(), exportedSpans());
+        }
+
+        private List<SpanData> exportedSpans() {
+                tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+                return spanExporter.getFinishedSpanItems();
+        }
+
+        private static SpanData only(List<SpanData> spans, String name) {
+                List<SpanData> named = spans.stream().filter(span -> span.getName().equals(name)).toList();
+                assertEquals(1, named.size(), () -> name + " in " + spans);
+                return named.get(0);
+        }
+}
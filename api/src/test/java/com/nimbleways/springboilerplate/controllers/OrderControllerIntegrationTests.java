@@ -5,6 +5,7 @@ import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
 import com.nimbleways.springboilerplate.repositories.ProductRepository;
 import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -22,6 +23,10 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -62,6 +67,75 @@ class OrderControllerIntegrationTests {
                 assertEquals(resultOrder.getId(), order.getId());
         }
 
+        @Test
+        void shouldReportItemOutcomesInExpandedView() throws Exception {
+                Product inStock = productRepository.save(new Product(null, 15, 10, TYPE_NORMAL, "USB Cable", null, null, null));
+                Product delayed = productRepository.save(new Product(null, 15, 0, TYPE_NORMAL, "Mouse", null, null, null));
+                Product expired = productRepository.save(
+                                new Product(null, 90, 6, TYPE_EXPIRABLE, "Milk", LocalDate.now().minusDays(2), null, null));
+                Order order = orderRepository.save(createOrder(Set.of(inStock, delayed, expired)));
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())
+                                .param("view", "expanded")
+                                .contentType(APPLICATION_JSON))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(order.getId()))
+                                .andExpect(jsonPath("$.items.length()").value(3))
+                                .andExpect(jsonPath("$.items[?(@.productId == %d)].status", inStock.getId()).value("DECREMENTED"))
+                                .andExpect(jsonPath("$.items[?(@.productId == %d)].status", delayed.getId()).value("DELAYED"))
+                                .andExpect(jsonPath("$.items[?(@.productId == %d)].leadTime", delayed.getId()).value(15))
+                                .andExpect(jsonPath("$.items[?(@.productId == %d)].status", expired.getId()).value("EXPIRED"));
+        }
+
+        @Test
+        void shouldReportUnsupportedItemAsFailedAndProcessTheOthers() throws Exception {
+                Product unsupported = productRepository.save(new Product(null, 15, 10, "DIGITAL", "E-book", null, null, null));
+                Product inStock = productRepository.save(new Product(null, 15, 10, TYPE_NORMAL, "USB Cable", null, null, null));
+                Order order = orderRepository.save(createOrder(Set.of(unsupported, inStock)));
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())
+                                .param("view", "expanded")
+                                .contentType(APPLICATION_JSON))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items[?(@.productId == %d)].status", unsupported.getId()).value("FAILED"))
+                                .andExpect(jsonPath("$.items[?(@.productId == %d)].status", inStock.getId()).value("DECREMENTED"));
+
+                assertEquals(9, productRepository.findById(inStock.getId()).get().getAvailable());
+        }
+
+        @Test
+        void shouldNotOversellProductUnderConcurrentOrders() throws Exception {
+                int stock = 3;
+                int concurrentOrders = 8;
+                Product product = productRepository.save(new Product(null, 15, stock, TYPE_NORMAL, "Hot Cable", null, null, null));
+                List<Long> orderIds = new ArrayList<>();
+                for (int i = 0; i < concurrentOrders; i++) {
+                        orderIds.add(orderRepository.save(createOrder(Set.of(product))).getId());
+                }
+
+                ExecutorService clients = Executors.newFixedThreadPool(concurrentOrders);
+                List<Future<String>> statuses = new ArrayList<>();
+                try {
+                        for (Long orderId : orderIds) {
+                                statuses.add(clients.submit(() -> JsonPath.read(mockMvc.perform(post(PROCESS_ORDER_URL, orderId)
+                                                .param("view", "expanded")
+                                                .contentType(APPLICATION_JSON))
+                                                .andExpect(status().isOk())
+                                                .andReturn().getResponse().getContentAsString(), "$.items[0].status")));
+                        }
+                        long decremented = 0;
+                        for (Future<String> itemStatus : statuses) {
+                                if ("DECREMENTED".equals(itemStatus.get(30, TimeUnit.SECONDS))) {
+                                        decremented++;
+                                }
+                        }
+                        assertEquals(stock, decremented);
+                } finally {
+                        clients.shutdownNow();
+                }
+                assertEquals(0, productRepository.findById(product.getId()).get().getAvailable());
+        }
+
         @Test
         void shouldReturn404WhenOrderNotFound() throws Exception {
                 mockMvc.perform(post(PROCESS_ORDER_URL, 999L)
@@ -71,6 +145,24 @@ class OrderControllerIntegrationTests {
                                 .andExpect(jsonPath("$.message").value("Order not found: 999"));
         }
 
+        @Test
+        void shouldProcessOrderAtTheRequestedPriorityAndRefuseUnknownOnes() throws Exception {
+                Product product = productRepository.save(new Product(null, 15, 10, TYPE_NORMAL, "USB Cable", null, null, null));
+                Order order = orderRepository.save(createOrder(Set.of(product)));
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId()).param("priority", "express"))
+                                .andExpect(status().isOk());
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId()).param("priority", "backfill")
+                                .param("view", "expanded"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items[0].status").value("DECREMENTED"));
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId()).param("priority", "urgent"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.message").value("Unknown order priority: urgent"));
+
+                assertEquals(8, productRepository.findById(product.getId()).get().getAvailable());
+        }
+
         @Test
         void shouldDecrementNormalProductStock() throws Exception {
                 Product product = new Product(null, 15, 10, TYPE_NORMAL, "USB Cable", null, null, null);
@@ -0,0 +1,57 @@
+package com.nimbleways.springboilerplate.controllers;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductControllerIntegrationTests {
+
+        private static final String FORECAST_URL = "/products/seasonal/forecast";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        void shouldForecastSeasonalProductsWithoutChangingStock() throws Exception {
+                productRepository.deleteAll();
+                LocalDate now = LocalDate.now();
+                Product watermelon = productRepository.save(new Product(null, 10, 5, "SEASONAL", "Watermelon", null,
+                                now.minusDays(10), now.plusDays(30)));
+                productRepository.save(new Product(null, 10, 0, "SEASONAL", "Strawberry", null,
+                                now.minusDays(10), now.plusDays(30)));
+                productRepository.save(new Product(null, 10, 0, "SEASONAL", "Grapes", null,
+                                now.plusDays(10), now.plusDays(60)));
+                productRepository.save(new Product(null, 10, 5, "NORMAL", "USB Cable", null, null, null));
+
+                mockMvc.perform(get(FORECAST_URL))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(3))
+                                .andExpect(jsonPath("$[0].availability").value("IN_STOCK"))
+                                .andExpect(jsonPath("$[1].availability").value("DELAYED"))
+                                .andExpect(jsonPath("$[1].deliveryDate").value(now.plusDays(10).toString()))
+                                .andExpect(jsonPath("$[2].availability").value("UNAVAILABLE"));
+
+                assertEquals(5, productRepository.findById(watermelon.getId()).orElseThrow().getAvailable());
+        }
+
+        @Test
+        void shouldRejectOversizedPages() throws Exception {
+                mockMvc.perform(get(FORECAST_URL).param("size", "100000")).andExpect(status().isBadRequest());
+        }
+}
@@ -0,0 +1,212 @@
+package com.nimbleways.springboilerplate.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeds {@code products}, {@code orders} and {@code order_items} with JDBC batches, for load tests at catalogue scale.
+ * The same {@link Spec} always produces the same rows relative to {@code today}:
+ * <ul>
+ *   <li>product types follow the configured NORMAL/SEASONAL/EXPIRABLE mix;</li>
+ *   <li>order items pick products with a Zipf distribution over a shuffled catalogue, so a few hot SKUs of every type
+ *   take most of the traffic and contend on their rows, as in production;</li>
+ *   <li>about a fifth of the NORMAL products are out of stock, seasons are split between past, current and future,
+ *   and expiry dates spread from a month ago to six months ahead.</li>
+ * </ul>
+ */
+public class DatasetGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final String INSERT_PRODUCT = "insert into products (lead_time, available, type, name, "
+            + "expiry_date, season_start_date, season_end_date, version) values (?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_ORDER_ITEM = "insert into order_items (order_id, product_id) values (?, ?)";
+
+    public record Spec(int products, int orders, int maxItemsPerOrder, double seasonalShare, double expirableShare,
+            double zipfExponent, long seed) {
+
+        public Spec {
+            if (products < 1 || orders < 0 || maxItemsPerOrder < 1 || maxItemsPerOrder > products
+                    || seasonalShare < 0 || expirableShare < 0 || seasonalShare + expirableShare > 1) {
+                throw new IllegalArgumentException("Invalid dataset: " + this);
+            }
+        }
+
+        public static Spec of(int products, int orders) {
+            return new Spec(products, orders, 8, 0.15, 0.15, 1.1, 42);
+        }
+    }
+
+    /**
+     * @param firstProductId id of the first generated product
+     * @param firstOrderId   id of the first generated order; the generated orders are contiguous from there
+     */
+    public record Dataset(long firstProductId, int products, long firstOrderId, int orders, long orderItems) {
+
+        public long orderId(int index) {
+            return firstOrderId + index;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatasetGenerator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public Dataset generate(Spec spec, LocalDate today) {
+        long started = System.nanoTime();
+        Random random = new Random(spec.seed());
+        long firstProductId = insertProducts(spec, today, random);
+        long firstOrderId = insertOrders(spec.orders());
+        long orderItems = insertOrderItems(spec, firstProductId, firstOrderId, random);
+        Dataset dataset = new Dataset(firstProductId, spec.products(), firstOrderId, spec.orders(), orderItems);
+        logger.info("Generated {} in {} ms", dataset, (System.nanoTime() - started) / 1_000_000);
+        return dataset;
+    }
+
+    /**
+     * @return the dataset already in the database, assuming it was generated into empty tables
+     */
+    public Dataset existing() {
+        long products = count("products");
+        long orders = count("orders");
+        if (orders == 0 || maxId("orders") - minId("orders") + 1 != orders) {
+            throw new IllegalStateException("No generated dataset to reuse: " + orders + " orders");
+        }
+        return new Dataset(minId("products"), Math.toIntExact(products), minId("orders"), Math.toIntExact(orders),
+                count("order_items"));
+    }
+
+    private long insertProducts(Spec spec, LocalDate today, Random random) {
+        long before = maxId("products");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int index = 0; index < spec.products(); index++) {
+            batch.add(product(spec, index, today, random));
+            if (batch.size() == BATCH_SIZE) {
+                flush(INSERT_PRODUCT, batch);
+            }
+        }
+        flush(INSERT_PRODUCT, batch);
+        return firstIdAfter("products", before, spec.products());
+    }
+
+    private static Object[] product(Spec spec, int index, LocalDate today, Random random) {
+        int leadTime = 1 + random.nextInt(30);
+        double type = random.nextDouble();
+        if (type < spec.seasonalShare()) {
+            // A third of the seasons are over, a third running and a third still to come
+            LocalDate start = today.plusDays(random.nextInt(270) - 180L);
+            LocalDate end = start.plusDays(30 + random.nextInt(90));
+            return new Object[] {leadTime, random.nextInt(200), "SEASONAL", "Seasonal " + index, null,
+                    Date.valueOf(start), Date.valueOf(end)};
+        }
+        if (type < spec.seasonalShare() + spec.expirableShare()) {
+            LocalDate expiry = today.plusDays(random.nextInt(210) - 30L);
+            return new Object[] {leadTime, random.nextInt(500), "EXPIRABLE", "Expirable " + index,
+                    Date.valueOf(expiry), null, null};
+        }
+        int available = random.nextDouble() < 0.2 ? 0 : 1 + random.nextInt(1_000);
+        return new Object[] {leadTime, available, "NORMAL", "Normal " + index, null, null, null};
+    }
+
+    private long insertOrders(int orders) {
+        long before = maxId("orders");
+        for (int inserted = 0; inserted < orders; inserted += BATCH_SIZE) {
+            int size = Math.min(BATCH_SIZE, orders - inserted);
+            List<Object[]> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(new Object[0]);
+            }
+            flush("insert into orders default values", batch);
+        }
+        return firstIdAfter("orders", before, orders);
+    }
+
+    private long insertOrderItems(Spec spec, long firstProductId, long firstOrderId, Random random) {
+        ZipfSampler popularity = new ZipfSampler(spec.products(), spec.zipfExponent());
+        int[] productByRank = shuffledIndexes(spec.products(), random);
+        long inserted = 0;
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int order = 0; order < spec.orders(); order++) {
+            // Mostly small baskets: 1 item half of the time, each extra item half as likely
+            int items = 1;
+            while (items < spec.maxItemsPerOrder() && random.nextBoolean()) {
+                items++;
+            }
+            Set<Integer> products = new LinkedHashSet<>();
+            while (products.size() < items) {
+                products.add(productByRank[popularity.sample(random)]);
+            }
+            for (int product : products) {
+                batch.add(new Object[] {firstOrderId + order, firstProductId + product});
+            }
+            inserted += items;
+            if (batch.size() >= BATCH_SIZE) {
+                flush(INSERT_ORDER_ITEM, batch);
+            }
+        }
+        flush(INSERT_ORDER_ITEM, batch);
+        return inserted;
+    }
+
+    private static int[] shuffledIndexes(int size, Random random) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swapped = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swapped;
+        }
+        return indexes;
+    }
+
+    private void flush(String sql, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+
+    private long minId(String table) {
+        Long min = jdbcTemplate.queryForObject("select min(id) from " + table, Long.class);
+        return min == null ? 0 : min;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    // Generated ids are only usable as a range if nothing else inserted into the table meanwhile
+    private long firstIdAfter(String table, long before, int expected) {
+        if (expected == 0) {
+            return before + 1;
+        }
+        Long first = jdbcTemplate.queryForObject("select min(id) from " + table + " where id > ?", Long.class, before);
+        long last = maxId(table);
+        if (first == null || last - first + 1 != expected) {
+            throw new IllegalStateException("Rows inserted into " + table + " are not a contiguous id range: "
+                    + first + ".." + last + " for " + expected + " rows");
+        }
+        return first;
+    }
+}
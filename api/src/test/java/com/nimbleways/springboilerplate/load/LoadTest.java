@@ -0,0 +1,130 @@
+package com.nimbleways.springboilerplate.load;
+
+import com.nimbleways.springboilerplate.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts the application on a file H2 database seeded by {@link DatasetGenerator}, drives it with
+ * {@link OrderLoadRunner} and prints throughput and latency percentiles. Run it with
+ * {@code mvnw -Pload-test test-compile exec:exec -Dload.args="--products=1000000 --orders=200000 --clients=32"}.
+ * <p>
+ * Every run starts from a freshly seeded database, so two runs with the same options process the same orders
+ * against the same stock; {@code --reuse-dataset=true} skips the seeding when the previous dataset is good enough.
+ * Options other than those in {@code DEFAULTS} are passed to the application, e.g. {@code --orders.transaction-scope=item}.
+ */
+public final class LoadTest {
+
+    private static final Path DATABASE_DIR = Path.of("target", "load-test");
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("products", "1000000"),
+            Map.entry("orders", "200000"),
+            Map.entry("max-items", "8"),
+            Map.entry("seasonal-share", "0.15"),
+            Map.entry("expirable-share", "0.15"),
+            Map.entry("zipf-exponent", "1.1"),
+            Map.entry("seed", "42"),
+            Map.entry("reuse-dataset", "false"),
+            Map.entry("clients", "16"),
+            Map.entry("warmup", "10s"),
+            Map.entry("duration", "30s"),
+            Map.entry("rate", "0"),
+            Map.entry("histogram-file", ""));
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        Map<String, String> applicationOptions = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            (DEFAULTS.containsKey(option[0]) ? options : applicationOptions)
+                    .put(option[0], option.length > 1 ? option[1] : "true");
+        }
+
+        boolean reuseDataset = Boolean.parseBoolean(options.get("reuse-dataset"));
+        if (!reuseDataset) {
+            FileSystemUtils.deleteRecursively(DATABASE_DIR);
+        }
+        try (ConfigurableApplicationContext context = start(applicationOptions)) {
+            DatasetGenerator.Spec spec = new DatasetGenerator.Spec(
+                    Integer.parseInt(options.get("products")),
+                    Integer.parseInt(options.get("orders")),
+                    Integer.parseInt(options.get("max-items")),
+                    Double.parseDouble(options.get("seasonal-share")),
+                    Double.parseDouble(options.get("expirable-share")),
+                    Double.parseDouble(options.get("zipf-exponent")),
+                    Long.parseLong(options.get("seed")));
+            DatasetGenerator generator = new DatasetGenerator(context.getBean(DataSource.class));
+            DatasetGenerator.Dataset dataset = reuseDataset
+                    ? generator.existing()
+                    : generator.generate(spec, LocalDate.now());
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            OrderLoadRunner.Settings settings = new OrderLoadRunner.Settings(
+                    URI.create("http://localhost:" + port + "/api/"),
+                    Integer.parseInt(options.get("clients")),
+                    duration(options.get("warmup")),
+                    duration(options.get("duration")),
+                    Double.parseDouble(options.get("rate")),
+                    spec.seed());
+            OrderLoadRunner.Report report = new OrderLoadRunner(settings)
+                    .run(random -> dataset.orderId((int) (random % dataset.orders())));
+
+            PrintStream out = System.out;
+            out.println(dataset);
+            out.println(settings);
+            report.print(out);
+            writeHistogram(report, options.get("histogram-file"));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Map<String, String> applicationOptions) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:file:" + DATABASE_DIR.toAbsolutePath().resolve("orders"));
+        // The test application.yml disables Liquibase, so the main configuration is restored on the command line
+        properties.put("spring.liquibase.enabled", "true");
+        properties.put("spring.jpa.hibernate.ddl-auto", "validate");
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.nimbleways.springboilerplate.load", "INFO");
+        properties.putAll(applicationOptions);
+        // A devtools restart would run this main method again with the application arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(Application.class).run(properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new));
+    }
+
+    // Accepts the same forms as the application settings: 30s, 2m, 500ms
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    // The .hgrm percentile distribution can be plotted with HdrHistogram's plotter
+    private static void writeHistogram(OrderLoadRunner.Report report, String file) throws IOException {
+        if (file.isEmpty()) {
+            return;
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(file)))) {
+            report.latencies().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.nimbleways.springboilerplate.load;
+
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a small dataset with the load-test generator and drives this application over HTTP with the runner, the
+ * same way {@link LoadTest} does at scale.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTestIntegrationTests {
+
+        private static final int PRODUCTS = 2_000;
+        private static final int ORDERS = 1_000;
+
+        @LocalServerPort
+        private int port;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private DataSource dataSource;
+
+        @Test
+        void shouldGenerateTheConfiguredMixWithHotProducts() {
+                DatasetGenerator.Spec spec = new DatasetGenerator.Spec(PRODUCTS, ORDERS, 4, 0.2, 0.1, 1.1, 7);
+                DatasetGenerator.Dataset dataset = new DatasetGenerator(dataSource).generate(spec, LocalDate.now());
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                long lastProductId = dataset.firstProductId() + PRODUCTS - 1;
+
+                Map<String, Long> types = jdbcTemplate.queryForList(
+                                "select type from products where id between ? and ?", String.class,
+                                dataset.firstProductId(), lastProductId).stream()
+                                .collect(Collectors.groupingBy(type -> type, Collectors.counting()));
+                assertEquals(PRODUCTS, types.values().stream().mapToLong(Long::longValue).sum());
+                assertEquals(0.2, types.get("SEASONAL") / (double) PRODUCTS, 0.03);
+                assertEquals(0.1, types.get("EXPIRABLE") / (double) PRODUCTS, 0.03);
+
+                List<Long> itemsPerProduct = jdbcTemplate.queryForList(
+                                "select count(*) from order_items where order_id >= ? group by product_id order by count(*) desc",
+                                Long.class, dataset.firstOrderId());
+                long items = itemsPerProduct.stream().mapToLong(Long::longValue).sum();
+                assertEquals(dataset.orderItems(), items);
+                assertTrue(items >= ORDERS && items <= 4L * ORDERS);
+                long topOnePercent = itemsPerProduct.stream().limit(PRODUCTS / 100).mapToLong(Long::longValue).sum();
+                assertTrue(topOnePercent > items / 3, "hot products should take a large share, got " + topOnePercent
+                                + " of " + items);
+
+                DatasetGenerator.Dataset again = new DatasetGenerator(dataSource).generate(spec, LocalDate.now());
+                assertEquals(dataset.orderItems(), again.orderItems());
+                assertEquals(productRows(jdbcTemplate, dataset), productRows(jdbcTemplate, again),
+                                "the same spec should generate the same products");
+        }
+
+        @Test
+        void shouldReportLatencyPercentilesOfProcessedOrders() throws Exception {
+                DatasetGenerator.Dataset dataset = new DatasetGenerator(dataSource)
+                                .generate(DatasetGenerator.Spec.of(PRODUCTS, ORDERS), LocalDate.now());
+
+                OrderLoadRunner.Report report = new OrderLoadRunner(settings(0))
+                                .run(random -> dataset.orderId((int) (random % dataset.orders())));
+
+                assertTrue(report.successes() > 0);
+                assertEquals(0, report.serverErrors() + report.failures());
+                assertEquals(report.requests(), report.latencies().getTotalCount());
+                assertTrue(report.percentileMillis(50) <= report.percentileMillis(99));
+        }
+
+        @Test
+        void shouldSendAtTheTargetRateInOpenLoop() throws Exception {
+                DatasetGenerator.Dataset dataset = new DatasetGenerator(dataSource)
+                                .generate(DatasetGenerator.Spec.of(PRODUCTS, ORDERS), LocalDate.now());
+
+                OrderLoadRunner.Report report = new OrderLoadRunner(settings(100))
+                                .run(random -> dataset.orderId((int) (random % dataset.orders())));
+
+                // One second at 100 requests/s, however slow the answers: late requests are sent behind schedule
+                assertEquals(100, report.requests(), 10);
+                assertEquals(0, report.serverErrors() + report.failures());
+        }
+
+        private static List<String> productRows(JdbcTemplate jdbcTemplate, DatasetGenerator.Dataset dataset) {
+                return jdbcTemplate.queryForList("select concat(type, ':', available, ':', lead_time) from products "
+                                + "where id between ? and ? order by id", String.class, dataset.firstProductId(),
+                                dataset.firstProductId() + dataset.products() - 1);
+        }
+
+        private OrderLoadRunner.Settings settings(double ratePerSecond) {
+                return new OrderLoadRunner.Settings(URI.create("http://localhost:" + port + "/api/"), 4,
+                                Duration.ofMillis(200), Duration.ofSeconds(1), ratePerSecond, 1);
+        }
+}
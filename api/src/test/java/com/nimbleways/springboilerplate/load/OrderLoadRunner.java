@@ -0,0 +1,183 @@
+package com.nimbleways.springboilerplate.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Drives {@code POST /orders/{id}/process} from concurrent clients and records the latencies in HdrHistogram.
+ * Without a target rate each client sends its next request as soon as the previous answers (closed loop). With one,
+ * the clients share a fixed schedule and latency is measured from the scheduled send time, so a stall shows up in
+ * the percentiles instead of silently lowering the request rate (coordinated omission).
+ */
+public class OrderLoadRunner {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * @param baseUri       context root of the application, ending with a slash, e.g. {@code http://localhost:8080/api/}
+     * @param ratePerSecond requests per second over all clients, 0 for a closed loop
+     */
+    public record Settings(URI baseUri, int clients, Duration warmup, Duration duration, double ratePerSecond,
+            long seed) {
+
+        public Settings {
+            if (clients < 1 || duration.isZero() || duration.isNegative() || warmup.isNegative() || ratePerSecond < 0) {
+                throw new IllegalArgumentException("Invalid load test settings: " + this);
+            }
+        }
+    }
+
+    public record Report(Histogram latencies, long successes, long clientErrors, long serverErrors, long failures,
+            Duration elapsed) {
+
+        public long requests() {
+            return successes + clientErrors + serverErrors + failures;
+        }
+
+        public double throughput() {
+            return requests() / (elapsed.toNanos() / 1e9);
+        }
+
+        public void print(PrintStream out) {
+            out.printf("requests=%d (2xx=%d, 4xx=%d, 5xx=%d, failed=%d) in %.1f s, %.1f req/s%n", requests(),
+                    successes, clientErrors, serverErrors, failures, elapsed.toMillis() / 1e3, throughput());
+            out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n", percentileMillis(50),
+                    percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                    latencies.getMaxValue() / 1e3);
+        }
+
+        public double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e3;
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final Settings settings;
+
+    public OrderLoadRunner(Settings settings) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    /**
+     * Sends requests for the orders returned by {@code orderIds}, called with a random non-negative long, and
+     * reports on the requests sent after the warmup.
+     */
+    public Report run(LongUnaryOperator orderIds) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(settings.clients());
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        // Each client owns every clients-th slot of the shared schedule
+        long intervalNanos = settings.ratePerSecond() > 0
+                ? (long) (1e9 * settings.clients() / settings.ratePerSecond()) : 0;
+        try {
+            List<Future<ClientResult>> results = new ArrayList<>();
+            for (int client = 0; client < settings.clients(); client++) {
+                long firstSend = start + (intervalNanos / settings.clients()) * client;
+                Random random = new Random(settings.seed() + client);
+                results.add(executor.submit(() -> runClient(orderIds, random, firstSend, intervalNanos,
+                        measureFrom, end)));
+            }
+            ClientResult total = new ClientResult();
+            for (Future<ClientResult> result : results) {
+                total.add(result.get());
+            }
+            return new Report(total.latencies, total.successes, total.clientErrors, total.serverErrors,
+                    total.failures, Duration.ofNanos(Math.max(1, System.nanoTime() - measureFrom)));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load test client failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ClientResult runClient(LongUnaryOperator orderIds, Random random, long firstSend, long intervalNanos,
+            long measureFrom, long end) {
+        ClientResult result = new ClientResult();
+        long scheduled = firstSend;
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (intervalNanos > 0 && scheduled > now) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+            long sent = intervalNanos > 0 ? scheduled : System.nanoTime();
+            if (sent >= end) {
+                return result;
+            }
+            int status = send(orderIds.applyAsLong(random.nextLong() & Long.MAX_VALUE));
+            long latencyMicros = (System.nanoTime() - sent) / 1_000;
+            if (sent >= measureFrom) {
+                result.record(status, latencyMicros);
+            }
+            scheduled += intervalNanos;
+        }
+        return result;
+    }
+
+    private int send(long orderId) {
+        HttpRequest request = HttpRequest.newBuilder(settings.baseUri().resolve("orders/" + orderId + "/process"))
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static final class ClientResult {
+
+        private final Histogram latencies = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private long successes;
+        private long clientErrors;
+        private long serverErrors;
+        private long failures;
+
+        void record(int status, long latencyMicros) {
+            latencies.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            if (status >= 200 && status < 300) {
+                successes++;
+            } else if (status >= 400 && status < 500) {
+                clientErrors++;
+            } else if (status >= 500) {
+                serverErrors++;
+            } else {
+                failures++;
+            }
+        }
+
+        void add(ClientResult other) {
+            latencies.add(other.latencies);
+            successes += other.successes;
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+            failures += other.failures;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.nimbleways.springboilerplate.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^exponent}, by binary search over
+ * the cumulative distribution. An exponent around 1 gives the usual catalogue shape: the top 1% of SKUs take a large
+ * share of the order items and the long tail is rarely ordered.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Invalid Zipf distribution: n=" + n + ", exponent=" + exponent);
+        }
+        cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    /**
+     * @return the share of draws that land on the {@code ranks} most popular values
+     */
+    double share(int ranks) {
+        return ranks <= 0 ? 0 : cumulative[Math.min(ranks, cumulative.length) - 1];
+    }
+}
@@ -0,0 +1,134 @@
+package com.nimbleways.springboilerplate.services.diagnostics;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoint.flightrecorder.enabled=true",
+        "management.endpoints.web.exposure.include=flightrecorder",
+        "notifications.delivery=direct",
+        "diagnostics.flight-recorder.dump-directory=target/recordings"
+})
+@AutoConfigureMockMvc
+class FlightRecorderIntegrationTests {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderService orderService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        void shouldRecordOrderHandlerAndNotificationEvents(@TempDir Path directory) throws Exception {
+                Product cable = productRepository.save(new Product(null, 10, 5, "NORMAL", "USB Cable", null, null, null));
+                Product milk = productRepository.save(
+                                new Product(null, 90, 6, "EXPIRABLE", "Milk", LocalDate.now().minusDays(2), null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(cable, milk))).getId();
+
+                Path file = directory.resolve("order.jfr");
+                try (Recording recording = new Recording()) {
+                        recording.enable(OrderProcessingEvent.class);
+                        recording.enable(ProductHandlerEvent.class).withoutThreshold();
+                        recording.enable(NotificationEvent.class).withoutThreshold();
+                        recording.start();
+                        orderService.processOrder(orderId);
+                        recording.stop();
+                        recording.dump(file);
+                }
+
+                List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+                RecordedEvent order = only(events, "com.nimbleways.OrderProcessing");
+                assertEquals(orderId, order.getLong("orderId"));
+                assertEquals(2, order.getInt("items"));
+                assertEquals(1, order.getInt("decremented"));
+                assertEquals("PROCESSED", order.getString("outcome"));
+                List<String> handled = events.stream()
+                                .filter(event -> event.getEventType().getName().equals("com.nimbleways.ProductHandler"))
+                                .filter(event -> event.getLong("orderId") == orderId)
+                                .map(event -> event.getString("productType") + ":" + event.getString("outcome"))
+                                .sorted()
+                                .toList();
+                assertEquals(List.of("EXPIRABLE:EXPIRED", "NORMAL:DECREMENTED"), handled);
+                RecordedEvent notification = only(events, "com.nimbleways.Notification");
+                assertEquals("EXPIRATION", notification.getString("notificationType"));
+                assertEquals("Milk", notification.getString("productName"));
+                assertEquals("direct", notification.getString("delivery"));
+        }
+
+        @Test
+        void shouldStartDumpAndStopRecordingsThroughTheActuatorEndpoint() throws Exception {
+                MvcResult started = mockMvc.perform(post("/actuator/flightrecorder")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content("{\"name\": \"incident\", \"settings\": \"default\", \"maxAge\": \"5m\"}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.name").value("incident"))
+                                .andExpect(jsonPath("$.state").value("RUNNING"))
+                                .andReturn();
+                long id = Long.parseLong(started.getResponse().getContentAsString().replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+                mockMvc.perform(get("/actuator/flightrecorder"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[?(@.id == " + id + ")].name").value("incident"));
+                byte[] dump = mockMvc.perform(get("/actuator/flightrecorder/{id}", id))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsByteArray();
+                mockMvc.perform(delete("/actuator/flightrecorder/{id}", id))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(id));
+
+                // Every JFR file starts with the FLR magic
+                assertTrue(dump.length > 4);
+                assertEquals("FLR", new String(dump, 0, 3, StandardCharsets.US_ASCII));
+                try (var files = Files.list(Path.of("target", "recordings"))) {
+                        assertTrue(files.anyMatch(path -> path.getFileName().toString().startsWith("incident-" + id + "-")));
+                }
+        }
+
+        private static RecordedEvent only(List<RecordedEvent> events, String name) {
+                List<RecordedEvent> matching = events.stream()
+                                .filter(event -> event.getEventType().getName().equals(name))
+                                .toList();
+                assertEquals(1, matching.size(), name);
+                return matching.get(0);
+        }
+}
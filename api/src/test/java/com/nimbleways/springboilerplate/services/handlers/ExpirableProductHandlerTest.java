@@ -1,12 +1,16 @@
 package com.nimbleways.springboilerplate.services.handlers;
 
-import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
-import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.inventory.ShardSelection;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
 import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -19,73 +23,99 @@ import static org.mockito.Mockito.*;
 @UnitTest
 class ExpirableProductHandlerTest {
 
+    private static final Long ORDER_ID = 42L;
+
+    @Mock
+    private ProductStockUpdates stockUpdates;
+
     @Mock
-    private ProductRepository productRepository;
+    private NotificationPublisher notificationPublisher;
 
     @Mock
-    private NotificationService notificationService;
+    private StockLedger stockLedger;
 
-    @InjectMocks
     private ExpirableProductHandler handler;
 
+    @BeforeEach
+    void setUp() {
+        handler = new ExpirableProductHandler(new ProductInventory(stockUpdates, stockLedger, ShardSelection.RANDOM),
+                notificationPublisher);
+    }
+
     @Test
     void shouldDecrementStockWhenAvailableAndNotExpired() {
         LocalDate expiryDate = LocalDate.now().plusDays(10);
-        Product product = new Product(1L, 15, 30, "EXPIRABLE", "Butter", expiryDate, null, null);
+        ProductStockView product = new ProductStockView(1L, "EXPIRABLE", "Butter", 30, 15, expiryDate, null, null, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(29, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verifyNoInteractions(notificationService);
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 29);
+        verify(stockLedger, times(1)).record(1L, -1, StockLedgerEntry.Reason.ORDER, ORDER_ID);
+        verifyNoInteractions(notificationPublisher);
     }
 
     @Test
     void shouldNotifyExpirationWhenProductExpired() {
         LocalDate expiryDate = LocalDate.now().minusDays(2);
-        Product product = new Product(1L, 90, 6, "EXPIRABLE", "Milk", expiryDate, null, null);
+        ProductStockView product = new ProductStockView(1L, "EXPIRABLE", "Milk", 6, 90, expiryDate, null, null, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendExpirationNotification("Milk", expiryDate);
+        assertEquals(ProductOrderOutcome.expired(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 0);
+        verify(notificationPublisher, times(1)).publishExpiration("Milk", expiryDate);
+        verify(stockLedger, times(1)).record(1L, -6, StockLedgerEntry.Reason.EXPIRED, ORDER_ID);
     }
 
     @Test
     void shouldNotifyExpirationWhenOutOfStockAndNotExpired() {
         LocalDate expiryDate = LocalDate.now().plusDays(5);
-        Product product = new Product(1L, 15, 0, "EXPIRABLE", "Yogurt", expiryDate, null, null);
+        ProductStockView product = new ProductStockView(1L, "EXPIRABLE", "Yogurt", 0, 15, expiryDate, null, null, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendExpirationNotification("Yogurt", expiryDate);
+        assertEquals(ProductOrderOutcome.expired(), outcome);
+        verifyNoInteractions(stockUpdates);
+        verify(notificationPublisher, times(1)).publishExpiration("Yogurt", expiryDate);
     }
 
     @Test
     void shouldNotifyExpirationWhenOutOfStockAndExpired() {
         LocalDate expiryDate = LocalDate.now().minusDays(1);
-        Product product = new Product(1L, 15, 0, "EXPIRABLE", "Cheese", expiryDate, null, null);
+        ProductStockView product = new ProductStockView(1L, "EXPIRABLE", "Cheese", 0, 15, expiryDate, null, null, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendExpirationNotification("Cheese", expiryDate);
+        assertEquals(ProductOrderOutcome.expired(), outcome);
+        verifyNoInteractions(stockUpdates);
+        verify(notificationPublisher, times(1)).publishExpiration("Cheese", expiryDate);
     }
 
     @Test
     void shouldDecrementWhenExpiryDateIsToday() {
         LocalDate expiryDate = LocalDate.now().plusDays(1);
-        Product product = new Product(1L, 15, 10, "EXPIRABLE", "Cream", expiryDate, null, null);
+        ProductStockView product = new ProductStockView(1L, "EXPIRABLE", "Cream", 10, 15, expiryDate, null, null, 0L, 0);
+
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
+
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 9);
+        verifyNoInteractions(notificationPublisher);
+    }
+
+    @Test
+    void shouldEmptyShardsOfAnExpiredShardedProduct() {
+        LocalDate expiryDate = LocalDate.now().minusDays(2);
+        ProductStockView product = new ProductStockView(1L, "EXPIRABLE", "Milk", 6, 90, expiryDate, null, null, 0L, 4);
+        when(stockUpdates.emptyShards(product)).thenReturn(7);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(9, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verifyNoInteractions(notificationService);
+        assertEquals(ProductOrderOutcome.expired(), outcome);
+        verify(stockUpdates, never()).updateAvailable(any(), anyInt());
+        // What the shards held when they were locked, not what the view showed
+        verify(stockLedger, times(1)).record(1L, -7, StockLedgerEntry.Reason.EXPIRED, ORDER_ID);
     }
 
     @Test
@@ -1,14 +1,18 @@
 package com.nimbleways.springboilerplate.services.handlers;
 
-import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
-import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.inventory.ShardSelection;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
 import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -18,51 +22,145 @@ import static org.mockito.Mockito.*;
 @UnitTest
 class NormalProductHandlerTest {
 
+    private static final Long ORDER_ID = 42L;
+
+    @Mock
+    private ProductStockUpdates stockUpdates;
+
+    @Mock
+    private NotificationPublisher notificationPublisher;
+
     @Mock
-    private ProductRepository productRepository;
+    private StockLedger stockLedger;
 
     @Mock
-    private NotificationService notificationService;
+    private ObjectProvider<StockDecrementCombiner> stockDecrementCombiner;
 
-    @InjectMocks
     private NormalProductHandler handler;
 
+    @BeforeEach
+    void setUp() {
+        handler = new NormalProductHandler(inventory(), notificationPublisher, stockDecrementCombiner);
+    }
+
     @Test
     void shouldDecrementStockWhenProductIsAvailable() {
-        Product product = new Product(1L, 10, 5, "NORMAL", "USB Cable", null, null, null);
+        ProductStockView product = product(10, 5, "USB Cable");
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(4, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verifyNoInteractions(notificationService);
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 4);
+        verify(stockLedger, times(1)).record(1L, -1, StockLedgerEntry.Reason.ORDER, ORDER_ID);
+        verifyNoInteractions(notificationPublisher);
     }
 
     @Test
     void shouldNotifyDelayWhenOutOfStockWithLeadTime() {
-        Product product = new Product(1L, 15, 0, "NORMAL", "USB Dongle", null, null, null);
+        ProductStockView product = product(15, 0, "USB Dongle");
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        assertEquals(15, product.getLeadTime());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendDelayNotification(15, "USB Dongle");
+        assertEquals(ProductOrderOutcome.delayed(15), outcome);
+        verifyNoInteractions(stockUpdates, stockLedger);
+        verify(notificationPublisher, times(1)).publishDelay(15, "USB Dongle");
     }
 
     @Test
     void shouldNotNotifyWhenOutOfStockWithZeroLeadTime() {
-        Product product = new Product(1L, 0, 0, "NORMAL", "Mouse", null, null, null);
+        ProductStockView product = product(0, 0, "Mouse");
+
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
+
+        assertEquals(ProductOrderOutcome.outOfStock(), outcome);
+        verifyNoInteractions(stockUpdates);
+        verifyNoInteractions(notificationPublisher);
+    }
+
+    @Test
+    void shouldNotWriteStockWhenCombinerGrantsStock() {
+        StockDecrementCombiner combiner = mock(StockDecrementCombiner.class);
+        NormalProductHandler combining = combiningHandler(combiner);
+        ProductStockView product = product(10, 5, "USB Cable");
+        when(combiner.tryDecrement(1L, ORDER_ID)).thenReturn(true);
+
+        ProductOrderOutcome outcome = combining.processProductOrder(product, ORDER_ID);
+
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verifyNoInteractions(stockUpdates);
+        // Recorded by the combiner's batch leader
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void shouldNotifyDelayWhenCombinerHasNoStockLeft() {
+        StockDecrementCombiner combiner = mock(StockDecrementCombiner.class);
+        NormalProductHandler combining = combiningHandler(combiner);
+        ProductStockView product = product(15, 1, "USB Dongle");
+        when(combiner.tryDecrement(1L, ORDER_ID)).thenReturn(false);
+
+        ProductOrderOutcome outcome = combining.processProductOrder(product, ORDER_ID);
+
+        assertEquals(ProductOrderOutcome.delayed(15), outcome);
+        verify(notificationPublisher, times(1)).publishDelay(15, "USB Dongle");
+    }
+
+    @Test
+    void shouldTakeFromShardsWhenProductIsSharded() {
+        ProductStockView product = sharded(10, 5, "USB Cable");
+        when(stockUpdates.takeFromShards(eq(product), anyInt())).thenReturn(true);
+
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
+
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verify(stockUpdates, never()).updateAvailable(any(), anyInt());
+        verify(stockLedger, times(1)).record(1L, -1, StockLedgerEntry.Reason.ORDER, ORDER_ID);
+    }
+
+    @Test
+    void shouldNotifyDelayWhenEveryShardIsEmpty() {
+        ProductStockView product = sharded(15, 1, "USB Dongle");
+        when(stockUpdates.takeFromShards(eq(product), anyInt())).thenReturn(false);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verifyNoInteractions(productRepository);
-        verifyNoInteractions(notificationService);
+        assertEquals(ProductOrderOutcome.delayed(15), outcome);
+        verifyNoInteractions(stockLedger);
+        verify(notificationPublisher, times(1)).publishDelay(15, "USB Dongle");
+    }
+
+    @Test
+    void shouldBypassCombinerForShardedProducts() {
+        StockDecrementCombiner combiner = mock(StockDecrementCombiner.class);
+        NormalProductHandler combining = combiningHandler(combiner);
+        ProductStockView product = sharded(10, 5, "USB Cable");
+        when(stockUpdates.takeFromShards(eq(product), anyInt())).thenReturn(true);
+
+        ProductOrderOutcome outcome = combining.processProductOrder(product, ORDER_ID);
+
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verifyNoInteractions(combiner);
     }
 
     @Test
     void shouldReturnCorrectSupportedType() {
         assertEquals("NORMAL", handler.getSupportedType());
     }
+
+    private NormalProductHandler combiningHandler(StockDecrementCombiner combiner) {
+        when(stockDecrementCombiner.getIfAvailable()).thenReturn(combiner);
+        return new NormalProductHandler(inventory(), notificationPublisher, stockDecrementCombiner);
+    }
+
+    private ProductInventory inventory() {
+        return new ProductInventory(stockUpdates, stockLedger, ShardSelection.RANDOM);
+    }
+
+    private static ProductStockView product(int leadTime, int available, String name) {
+        return new ProductStockView(1L, "NORMAL", name, available, leadTime, null, null, null, 0L, 0);
+    }
+
+    private static ProductStockView sharded(int leadTime, int available, String name) {
+        return new ProductStockView(1L, "NORMAL", name, available, leadTime, null, null, null, 0L, 4);
+    }
 }
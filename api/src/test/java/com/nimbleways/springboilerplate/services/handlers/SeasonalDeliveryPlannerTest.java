@@ -0,0 +1,79 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class SeasonalDeliveryPlannerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 7, 1);
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-07-01T10:00:00Z"));
+    private final SeasonalDeliveryPlanner planner = new SeasonalDeliveryPlanner(new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now.get();
+        }
+    });
+
+    @Test
+    void shouldPlanInSeasonProductsWithDelayedDeliveryUpToTheLastDayOfSeason() {
+        SeasonalDeliveryPlan plan = planner.plan(seasonal(15, TODAY.minusDays(10), TODAY.plusDays(15)));
+
+        assertEquals(new SeasonalDeliveryPlan(true, true, TODAY.plusDays(15)), plan);
+    }
+
+    @Test
+    void shouldRefuseDelayedDeliveryAfterSeasonEndOrBeforeItStarts() {
+        assertFalse(planner.plan(seasonal(16, TODAY.minusDays(10), TODAY.plusDays(15))).canFulfillWithDelay());
+        SeasonalDeliveryPlan notStarted = planner.plan(seasonal(1, TODAY.plusDays(1), TODAY.plusDays(30)));
+        assertFalse(notStarted.inSeason());
+        assertFalse(notStarted.canFulfillWithDelay());
+    }
+
+    @Test
+    void shouldNotCountTheFirstDayOfSeasonAsInSeasonButAllowDelayOnIt() {
+        SeasonalDeliveryPlan plan = planner.plan(seasonal(5, TODAY, TODAY.plusDays(30)));
+
+        assertFalse(plan.inSeason());
+        assertTrue(plan.canFulfillWithDelay());
+    }
+
+    @Test
+    void shouldShareOnePlanBetweenProductsWithTheSameSeasonUntilTheDateChanges() {
+        SeasonalDeliveryPlan first = planner.plan(seasonal(10, TODAY.minusDays(10), TODAY.plusDays(10)));
+        SeasonalDeliveryPlan second = planner.plan(seasonal(10, TODAY.minusDays(10), TODAY.plusDays(10)));
+        assertSame(first, second);
+
+        now.set(now.get().plusSeconds(86_400));
+        SeasonalDeliveryPlan nextDay = planner.plan(seasonal(10, TODAY.minusDays(10), TODAY.plusDays(10)));
+
+        assertNotSame(first, nextDay);
+        assertEquals(TODAY.plusDays(1), planner.businessDate());
+        assertFalse(nextDay.canFulfillWithDelay());
+    }
+
+    private static ProductStockView seasonal(int leadTime, LocalDate seasonStart, LocalDate seasonEnd) {
+        return new ProductStockView(null, "SEASONAL", "Fruit", 0, leadTime, null, seasonStart, seasonEnd, null, 0);
+    }
+}
@@ -1,13 +1,18 @@
 package com.nimbleways.springboilerplate.services.handlers;
 
-import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
-import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.inventory.ShardSelection;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
 import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
@@ -19,92 +24,106 @@ import static org.mockito.Mockito.*;
 @UnitTest
 class SeasonalProductHandlerTest {
 
+    private static final Long ORDER_ID = 42L;
+
+    @Mock
+    private ProductStockUpdates stockUpdates;
+
     @Mock
-    private ProductRepository productRepository;
+    private NotificationPublisher notificationPublisher;
 
     @Mock
-    private NotificationService notificationService;
+    private StockLedger stockLedger;
+
+    @Spy
+    private SeasonalDeliveryPlanner deliveryPlanner = new SeasonalDeliveryPlanner();
 
-    @InjectMocks
     private SeasonalProductHandler handler;
 
+    @BeforeEach
+    void setUp() {
+        handler = new SeasonalProductHandler(new ProductInventory(stockUpdates, stockLedger, ShardSelection.RANDOM),
+                notificationPublisher, deliveryPlanner);
+    }
+
     @Test
     void shouldDecrementStockWhenInSeasonAndAvailable() {
         LocalDate seasonStart = LocalDate.now().minusDays(10);
         LocalDate seasonEnd = LocalDate.now().plusDays(50);
-        Product product = new Product(1L, 15, 30, "SEASONAL", "Watermelon", null, seasonStart, seasonEnd);
+        ProductStockView product = new ProductStockView(1L, "SEASONAL", "Watermelon", 30, 15, null, seasonStart, seasonEnd, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(29, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verifyNoInteractions(notificationService);
+        assertEquals(ProductOrderOutcome.decremented(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 29);
+        verify(stockLedger, times(1)).record(1L, -1, StockLedgerEntry.Reason.ORDER, ORDER_ID);
+        verifyNoInteractions(notificationPublisher);
     }
 
     @Test
     void shouldNotifyDelayWhenOutOfStockButCanFulfillInSeason() {
         LocalDate seasonStart = LocalDate.now().minusDays(10);
         LocalDate seasonEnd = LocalDate.now().plusDays(50);
-        Product product = new Product(1L, 15, 0, "SEASONAL", "Strawberry", null, seasonStart, seasonEnd);
+        ProductStockView product = new ProductStockView(1L, "SEASONAL", "Strawberry", 0, 15, null, seasonStart, seasonEnd, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        assertEquals(15, product.getLeadTime());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendDelayNotification(15, "Strawberry");
+        assertEquals(ProductOrderOutcome.delayed(15), outcome);
+        verifyNoInteractions(stockUpdates);
+        verify(notificationPublisher, times(1)).publishDelay(15, "Strawberry");
     }
 
     @Test
     void shouldNotifyOutOfStockWhenSeasonNotStarted() {
         LocalDate seasonStart = LocalDate.now().plusDays(30);
         LocalDate seasonEnd = LocalDate.now().plusDays(90);
-        Product product = new Product(1L, 15, 5, "SEASONAL", "Grapes", null, seasonStart, seasonEnd);
+        ProductStockView product = new ProductStockView(1L, "SEASONAL", "Grapes", 5, 15, null, seasonStart, seasonEnd, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendOutOfStockNotification("Grapes");
+        assertEquals(ProductOrderOutcome.outOfStock(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 0);
+        verify(notificationPublisher, times(1)).publishOutOfStock("Grapes");
     }
 
     @Test
     void shouldNotifyOutOfStockWhenDeliveryWouldBeAfterSeasonEnds() {
         LocalDate seasonStart = LocalDate.now().minusDays(10);
         LocalDate seasonEnd = LocalDate.now().plusDays(10);
-        Product product = new Product(1L, 30, 0, "SEASONAL", "Mango", null, seasonStart, seasonEnd);
+        ProductStockView product = new ProductStockView(1L, "SEASONAL", "Mango", 0, 30, null, seasonStart, seasonEnd, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendOutOfStockNotification("Mango");
+        assertEquals(ProductOrderOutcome.outOfStock(), outcome);
+        verifyNoInteractions(stockUpdates);
+        verify(notificationPublisher, times(1)).publishOutOfStock("Mango");
     }
 
     @Test
     void shouldNotifyOutOfStockWhenSeasonEnded() {
         LocalDate seasonStart = LocalDate.now().minusDays(60);
         LocalDate seasonEnd = LocalDate.now().minusDays(5);
-        Product product = new Product(1L, 15, 10, "SEASONAL", "Peach", null, seasonStart, seasonEnd);
+        ProductStockView product = new ProductStockView(1L, "SEASONAL", "Peach", 10, 15, null, seasonStart, seasonEnd, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendOutOfStockNotification("Peach");
+        assertEquals(ProductOrderOutcome.outOfStock(), outcome);
+        verify(stockUpdates, times(1)).updateAvailable(product, 0);
+        verify(notificationPublisher, times(1)).publishOutOfStock("Peach");
+        verify(stockLedger, times(1)).record(1L, -10, StockLedgerEntry.Reason.OUT_OF_SEASON, ORDER_ID);
     }
 
     @Test
     void shouldNotifyDelayWhenDeliveryExactlyOnSeasonEnd() {
         LocalDate seasonStart = LocalDate.now().minusDays(10);
         LocalDate seasonEnd = LocalDate.now().plusDays(15);
-        Product product = new Product(1L, 15, 0, "SEASONAL", "Cherry", null, seasonStart, seasonEnd);
+        ProductStockView product = new ProductStockView(1L, "SEASONAL", "Cherry", 0, 15, null, seasonStart, seasonEnd, 0L, 0);
 
-        handler.processProductOrder(product);
+        ProductOrderOutcome outcome = handler.processProductOrder(product, ORDER_ID);
 
-        assertEquals(0, product.getAvailable());
-        verify(productRepository, times(1)).save(product);
-        verify(notificationService, times(1)).sendDelayNotification(15, "Cherry");
+        assertEquals(ProductOrderOutcome.delayed(15), outcome);
+        verifyNoInteractions(stockUpdates);
+        verify(notificationPublisher, times(1)).publishDelay(15, "Cherry");
     }
 
     @Test
@@ -0,0 +1,163 @@
+package com.nimbleways.springboilerplate.services.handlers;
+
+import com.nimbleways.springboilerplate.dto.product.OrderItemOutcomeResponse;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// At the default order transaction scope, with far more orders in flight than connections
+@SpringBootTest(properties = {
+        "orders.stock-combining.enabled=true",
+        "orders.stock-combining.max-wait-micros=2000",
+        "spring.datasource.hikari.maximum-pool-size=24",
+        "spring.datasource.hikari.connection-timeout=5000"
+})
+class StockDecrementCombinerIntegrationTests {
+
+        private static final int STOCK = 40;
+        private static final int CONCURRENT_ORDERS = 64;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderService orderService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private StockLedgerRepository ledgerRepository;
+
+        @Autowired
+        private StockDecrementCombiner combiner;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Autowired
+        private DataSource dataSource;
+
+        @Test
+        void shouldNeverOversellAHotProductUnderManyConcurrentOrders() throws Exception {
+                Product product = productRepository.save(new Product(null, 10, STOCK, "NORMAL", "Hot SKU", null, null, null));
+                List<Long> orderIds = new ArrayList<>();
+                for (int i = 0; i < CONCURRENT_ORDERS; i++) {
+                        orderIds.add(orderRepository.save(new Order(null, Set.of(product))).getId());
+                }
+
+                ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_ORDERS);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<String>> statuses = new ArrayList<>();
+                try {
+                        for (Long orderId : orderIds) {
+                                statuses.add(clients.submit(() -> {
+                                        start.await();
+                                        List<OrderItemOutcomeResponse> items = orderService.processOrderWithReport(orderId).items();
+                                        return items.get(0).status();
+                                }));
+                        }
+                        start.countDown();
+                        List<String> results = new ArrayList<>();
+                        for (Future<String> status : statuses) {
+                                results.add(status.get(60, TimeUnit.SECONDS));
+                        }
+                        Map<String, Long> byStatus = results.stream()
+                                        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+                        assertEquals(STOCK, byStatus.get("DECREMENTED"));
+                        assertEquals(CONCURRENT_ORDERS - STOCK, byStatus.get("DELAYED"));
+                } finally {
+                        clients.shutdownNow();
+                }
+
+                Product after = productRepository.findById(product.getId()).orElseThrow();
+                assertEquals(0, after.getAvailable());
+                // Each combined batch is a single versioned update
+                assertTrue(after.getVersion() < STOCK, "expected fewer updates than decrements, got " + after.getVersion());
+                // ...but still one ledger entry per granted order
+                List<StockLedgerEntry> entries = ledgerRepository.findAll().stream()
+                                .filter(entry -> entry.getProductId().equals(product.getId()))
+                                .toList();
+                assertEquals(STOCK, entries.size());
+                assertEquals(STOCK, entries.stream().map(StockLedgerEntry::getOrderId).distinct().count());
+                assertTrue(orderIds.containsAll(entries.stream().map(StockLedgerEntry::getOrderId).toList()));
+                // Nobody waits on the product any more, so it holds no slot
+                assertEquals(0, combiner.slotCount());
+        }
+
+        @Test
+        void shouldGiveBackAUnitGrantedToATransactionThatRollsBack() {
+                Product product = productRepository.save(new Product(null, 10, 5, "NORMAL", "Returned SKU", null, null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(product))).getId();
+
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                        assertTrue(combiner.tryDecrement(product.getId(), orderId));
+                        // The batch committed on its own
+                        assertEquals(4, new JdbcTemplate(dataSource)
+                                        .queryForObject("select available from products where id = ?", Integer.class, product.getId()));
+                        status.setRollbackOnly();
+                });
+
+                assertEquals(5, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+                List<StockLedgerEntry> entries = ledgerRepository.findAll().stream()
+                                .filter(entry -> entry.getProductId().equals(product.getId()))
+                                .toList();
+                assertEquals(List.of(-1, 1), entries.stream().map(StockLedgerEntry::getDelta).toList());
+        }
+
+        @Test
+        void shouldGiveBackAUnitGrantedToAnItemWhoseSavepointRollsBack() {
+                Product product = productRepository.save(new Product(null, 10, 5, "NORMAL", "Retried SKU", null, null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(product))).getId();
+                TransactionTemplate item = new TransactionTemplate(transactionManager);
+                item.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+                new TransactionTemplate(transactionManager).executeWithoutResult(order -> {
+                        assertThrows(IllegalStateException.class, () -> item.executeWithoutResult(status -> {
+                                assertTrue(combiner.tryDecrement(product.getId(), orderId));
+                                throw new IllegalStateException("item failed after its unit was granted");
+                        }));
+                        // The order goes on and commits without that item
+                });
+
+                assertEquals(5, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+                List<StockLedgerEntry> entries = ledgerRepository.findAll().stream()
+                                .filter(entry -> entry.getProductId().equals(product.getId()))
+                                .toList();
+                assertEquals(List.of(-1, 1), entries.stream().map(StockLedgerEntry::getDelta).toList());
+        }
+}
@@ -0,0 +1,52 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The NORMAL, SEASONAL and EXPIRABLE handlers written as rules, for tests and benchmarks comparing the two.
+ */
+public final class BuiltInProductRules {
+
+    private BuiltInProductRules() {
+    }
+
+    public static ProductRuleProperties.TypeRules normal() {
+        return typeRules(0,
+                rule(RuleAction.DECREMENT, false, null, RuleCondition.IN_STOCK),
+                rule(RuleAction.DELAY, true, null, RuleCondition.HAS_LEAD_TIME),
+                rule(RuleAction.OUT_OF_STOCK, false, null));
+    }
+
+    public static ProductRuleProperties.TypeRules seasonal() {
+        return typeRules(0,
+                rule(RuleAction.DECREMENT, false, null, RuleCondition.IN_SEASON, RuleCondition.IN_STOCK),
+                rule(RuleAction.DELAY, true, null, RuleCondition.DELIVERABLE_IN_SEASON),
+                rule(RuleAction.OUT_OF_STOCK, true, StockLedgerEntry.Reason.OUT_OF_SEASON));
+    }
+
+    public static ProductRuleProperties.TypeRules expirable(int expiryGraceDays) {
+        return typeRules(expiryGraceDays,
+                rule(RuleAction.DECREMENT, false, null, RuleCondition.IN_STOCK, RuleCondition.NOT_EXPIRED),
+                rule(RuleAction.EXPIRE, true, StockLedgerEntry.Reason.EXPIRED));
+    }
+
+    public static ProductRuleProperties.TypeRules typeRules(int expiryGraceDays, ProductRuleProperties.Rule... rules) {
+        ProductRuleProperties.TypeRules typeRules = new ProductRuleProperties.TypeRules();
+        typeRules.setExpiryGraceDays(expiryGraceDays);
+        typeRules.setRules(List.of(rules));
+        return typeRules;
+    }
+
+    public static ProductRuleProperties.Rule rule(RuleAction action, boolean notify, StockLedgerEntry.Reason discard,
+            RuleCondition... when) {
+        ProductRuleProperties.Rule rule = new ProductRuleProperties.Rule();
+        rule.setWhen(when.length == 0 ? EnumSet.noneOf(RuleCondition.class) : EnumSet.copyOf(List.of(when)));
+        rule.setThen(action);
+        rule.setNotify(notify);
+        rule.setDiscard(discard);
+        return rule;
+    }
+}
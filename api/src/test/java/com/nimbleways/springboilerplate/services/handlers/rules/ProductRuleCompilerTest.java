@@ -0,0 +1,203 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.ExpirableProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.NormalProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandlerFactory;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalProductHandler;
+import com.nimbleways.springboilerplate.services.handlers.StockDecrementCombiner;
+import com.nimbleways.springboilerplate.services.inventory.ProductInventory;
+import com.nimbleways.springboilerplate.services.inventory.ShardSelection;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import com.nimbleways.springboilerplate.services.notifications.NotificationPublisher;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.nimbleways.springboilerplate.services.handlers.rules.BuiltInProductRules.rule;
+import static com.nimbleways.springboilerplate.services.handlers.rules.BuiltInProductRules.typeRules;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@UnitTest
+class ProductRuleCompilerTest {
+
+    private static final Long ORDER_ID = 42L;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private ProductStockUpdates stockUpdates;
+
+    @Mock
+    private NotificationPublisher notificationPublisher;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SeasonalDeliveryPlanner deliveryPlanner = new SeasonalDeliveryPlanner();
+    private final ProductRuleProperties properties = new ProductRuleProperties();
+    private ProductInventory inventory;
+    private ProductRuleCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new ProductInventory(stockUpdates, stockLedger, ShardSelection.RANDOM);
+        compiler = new ProductRuleCompiler(properties, inventory, notificationPublisher, deliveryPlanner,
+                new StaticListableBeanFactory().getBeanProvider(StockDecrementCombiner.class), transactionManager);
+    }
+
+    @Test
+    void shouldDecideAsTheBuiltInHandlersDo() {
+        List<ProductTypeHandler> handlers = List.of(
+                new NormalProductHandler(inventory, notificationPublisher,
+                        new StaticListableBeanFactory().getBeanProvider(StockDecrementCombiner.class)),
+                new SeasonalProductHandler(inventory, notificationPublisher, deliveryPlanner),
+                new ExpirableProductHandler(inventory, notificationPublisher));
+        List<ProductRuleSet> ruleSets = List.of(
+                compiler.compile("NORMAL", BuiltInProductRules.normal()),
+                compiler.compile("SEASONAL", BuiltInProductRules.seasonal()),
+                compiler.compile("EXPIRABLE", BuiltInProductRules.expirable(0)));
+
+        int compared = 0;
+        for (int i = 0; i < handlers.size(); i++) {
+            for (ProductStockView product : products(handlers.get(i).getSupportedType())) {
+                ProductOrderOutcome expected = handlers.get(i).processProductOrder(product, ORDER_ID);
+                List<String> expectedEffects = effects();
+                ProductOrderOutcome actual = ruleSets.get(i).evaluate(product, ORDER_ID);
+
+                assertEquals(expected, actual, product::toString);
+                assertEquals(expectedEffects, effects(), product::toString);
+                compared++;
+            }
+        }
+        assertEquals(32, compared);
+    }
+
+    @Test
+    void shouldKeepSellingPerishablesDuringTheirGracePeriod() {
+        ProductRuleSet perishable = compiler.compile("perishable", BuiltInProductRules.expirable(2));
+        ProductStockView yogurt = product("PERISHABLE", 5, 0, TODAY.minusDays(1), null, null);
+        ProductStockView milk = product("PERISHABLE", 5, 0, TODAY.minusDays(2), null, null);
+
+        assertEquals(ProductOrderOutcome.decremented(), perishable.evaluate(yogurt, ORDER_ID));
+        assertEquals(ProductOrderOutcome.expired(), perishable.evaluate(milk, ORDER_ID));
+        assertEquals("PERISHABLE", perishable.getType());
+        verify(stockUpdates).updateAvailable(yogurt, 4);
+        verify(stockUpdates).updateAvailable(milk, 0);
+        verify(stockLedger).record(1L, -5, StockLedgerEntry.Reason.EXPIRED, ORDER_ID);
+        verify(notificationPublisher).publishExpiration("Product", TODAY.minusDays(2));
+    }
+
+    @Test
+    void shouldTryTheFollowingRulesWhenNoUnitCouldBeTaken() {
+        ProductRuleSet preOrder = compiler.compile("PREORDER", typeRules(0,
+                rule(RuleAction.DECREMENT, false, null, RuleCondition.IN_STOCK),
+                rule(RuleAction.DELAY, true, null)));
+        // A sharded product whose shards turned out empty
+        ProductStockView product = new ProductStockView(1L, "PREORDER", "Console", 3, 30, null, null, null, 0L, 4);
+        when(stockUpdates.takeFromShards(eq(product), anyInt())).thenReturn(false);
+
+        assertEquals(ProductOrderOutcome.delayed(30), preOrder.evaluate(product, ORDER_ID));
+        verify(notificationPublisher).publishDelay(30, "Console");
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void shouldRejectRulesThatLeaveItemsWithoutOutcome() {
+        assertInvalid("no rules", typeRules(0));
+        assertInvalid("the last rule must have no condition", typeRules(0,
+                rule(RuleAction.OUT_OF_STOCK, false, null, RuleCondition.HAS_LEAD_TIME)));
+        assertInvalid("the last rule must have no condition", typeRules(0,
+                rule(RuleAction.DECREMENT, false, null)));
+        assertInvalid("rule 1 has no condition", typeRules(0,
+                rule(RuleAction.OUT_OF_STOCK, false, null),
+                rule(RuleAction.DELAY, false, null)));
+        assertInvalid("rule 1 decrements", typeRules(0,
+                rule(RuleAction.DECREMENT, true, null, RuleCondition.IN_STOCK),
+                rule(RuleAction.OUT_OF_STOCK, false, null)));
+        assertInvalid("rule 1 cannot discard stock as ORDER", typeRules(0,
+                rule(RuleAction.OUT_OF_STOCK, false, StockLedgerEntry.Reason.ORDER)));
+    }
+
+    @Test
+    void shouldReplaceTheHandlerBeanOfAConfiguredTypeAndRunItsRulesInANestedTransaction() {
+        properties.getTypes().put("normal", BuiltInProductRules.normal());
+        ProductTypeHandler bean = mock(ProductTypeHandler.class);
+        when(bean.getSupportedType()).thenReturn("NORMAL");
+        ProductTypeHandlerFactory factory = new ProductTypeHandlerFactory(List.of(bean), compiler);
+
+        ProductTypeHandler handler = factory.getHandler("NORMAL");
+        ProductOrderOutcome outcome = handler.processProductOrder(product("NORMAL", 0, 15, null, null, null), ORDER_ID);
+
+        assertNotSame(bean, handler);
+        assertEquals(ProductOrderOutcome.delayed(15), outcome);
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NESTED));
+        verify(bean, never()).processProductOrder(any(), any());
+    }
+
+    private void assertInvalid(String reason, ProductRuleProperties.TypeRules rules) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> compiler.compile("x", rules));
+        assertTrue(e.getMessage().startsWith("Invalid rules for product type X: " + reason), e::getMessage);
+    }
+
+    // What the last product processed did, forgotten once read
+    private List<String> effects() {
+        List<String> effects = new ArrayList<>();
+        for (Object mock : List.of(stockUpdates, stockLedger, notificationPublisher)) {
+            mockingDetails(mock).getInvocations().forEach(invocation -> effects.add(
+                    invocation.getMethod().getName() + Arrays.toString(invocation.getArguments())));
+        }
+        clearInvocations(stockUpdates, stockLedger, notificationPublisher);
+        return effects;
+    }
+
+    private static List<ProductStockView> products(String type) {
+        List<ProductStockView> products = new ArrayList<>();
+        for (int available : new int[] {0, 5}) {
+            for (int leadTime : new int[] {0, 15}) {
+                Stream<ProductStockView> variants = switch (type) {
+                    case "SEASONAL" -> Stream.of(
+                            product(type, available, leadTime, null, TODAY.minusDays(10), TODAY.plusDays(50)),
+                            product(type, available, leadTime, null, TODAY.plusDays(30), TODAY.plusDays(90)),
+                            product(type, available, leadTime, null, TODAY.minusDays(10), TODAY.plusDays(5)),
+                            product(type, available, leadTime, null, TODAY.minusDays(60), TODAY.minusDays(1)));
+                    case "EXPIRABLE" -> Stream.of(
+                            product(type, available, leadTime, TODAY.minusDays(1), null, null),
+                            product(type, available, leadTime, TODAY, null, null),
+                            product(type, available, leadTime, TODAY.plusDays(10), null, null));
+                    default -> Stream.of(product(type, available, leadTime, null, null, null));
+                };
+                variants.forEach(products::add);
+            }
+        }
+        return products;
+    }
+
+    private static ProductStockView product(String type, int available, int leadTime, LocalDate expiryDate,
+            LocalDate seasonStart, LocalDate seasonEnd) {
+        return new ProductStockView(1L, type, "Product", available, leadTime, expiryDate, seasonStart, seasonEnd,
+                0L, 0);
+    }
+}
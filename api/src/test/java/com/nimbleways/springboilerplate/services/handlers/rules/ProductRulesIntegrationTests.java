@@ -0,0 +1,66 @@
+package com.nimbleways.springboilerplate.services.handlers.rules;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "orders.product-rules.types.PERISHABLE.expiry-grace-days=2",
+        "orders.product-rules.types.PERISHABLE.rules[0].when=in-stock,not-expired",
+        "orders.product-rules.types.PERISHABLE.rules[0].then=decrement",
+        "orders.product-rules.types.PERISHABLE.rules[1].then=expire",
+        "orders.product-rules.types.PERISHABLE.rules[1].notify=true",
+        "orders.product-rules.types.PERISHABLE.rules[1].discard=expired"
+})
+@AutoConfigureMockMvc
+class ProductRulesIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        void shouldProcessATypeDefinedOnlyByConfiguration() throws Exception {
+                LocalDate now = LocalDate.now();
+                Product yogurt = productRepository.save(new Product(null, 0, 5, "PERISHABLE", "Yogurt",
+                                now.minusDays(1), null, null));
+                Product milk = productRepository.save(new Product(null, 0, 3, "PERISHABLE", "Milk",
+                                now.minusDays(3), null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(yogurt, milk)));
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId()).param("view", "expanded"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items.length()").value(2));
+
+                assertEquals(4, productRepository.findById(yogurt.getId()).orElseThrow().getAvailable());
+                assertEquals(0, productRepository.findById(milk.getId()).orElseThrow().getAvailable());
+                verify(notificationService).sendExpirationNotification("Milk", now.minusDays(3));
+        }
+}
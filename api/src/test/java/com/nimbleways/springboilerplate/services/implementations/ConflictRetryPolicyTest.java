@@ -0,0 +1,82 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class ConflictRetryPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldCallOnceWhenThereIsNoConflict() {
+        ConflictRetryPolicy policy = new ConflictRetryPolicy(meterRegistry, 4, 1, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.execute("NORMAL", attempt -> {
+            calls.incrementAndGet();
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(1, calls.get());
+        assertNull(meterRegistry.find("orders.item.conflicts").counter());
+    }
+
+    @Test
+    void shouldRetryUntilConflictClears() {
+        ConflictRetryPolicy policy = new ConflictRetryPolicy(meterRegistry, 4, 1, 10);
+
+        int succeededOn = policy.execute("NORMAL", attempt -> {
+            if (attempt < 2) {
+                throw new OptimisticLockingFailureException("stale product");
+            }
+            return attempt;
+        });
+
+        assertEquals(2, succeededOn);
+        assertEquals(2.0, meterRegistry.get("orders.item.conflicts").tag("type", "NORMAL").counter().count());
+        assertEquals(2.0, meterRegistry.get("orders.item.retries").tag("type", "NORMAL").counter().count());
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        ConflictRetryPolicy policy = new ConflictRetryPolicy(meterRegistry, 3, 1, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> policy.execute("SEASONAL", attempt -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("always stale");
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(3.0, meterRegistry.get("orders.item.conflicts").tag("type", "SEASONAL").counter().count());
+        assertEquals(1.0, meterRegistry.get("orders.item.retries.exhausted").tag("type", "SEASONAL").counter().count());
+    }
+
+    @Test
+    void shouldRetryWithoutSleepingWhenAskedToSkipTheBackoff() {
+        ConflictRetryPolicy policy = new ConflictRetryPolicy(meterRegistry, 4, 10_000, 10_000);
+
+        int succeededOn = policy.executeWithoutBackoff("NORMAL", attempt -> {
+            if (attempt < 3) {
+                throw new OptimisticLockingFailureException("stale product");
+            }
+            return attempt;
+        });
+
+        assertEquals(3, succeededOn);
+        assertEquals(3.0, meterRegistry.get("orders.item.retries").tag("type", "NORMAL").counter().count());
+    }
+
+    @Test
+    void shouldRejectZeroAttempts() {
+        assertThrows(IllegalArgumentException.class, () -> new ConflictRetryPolicy(meterRegistry, 0, 1, 10));
+    }
+}
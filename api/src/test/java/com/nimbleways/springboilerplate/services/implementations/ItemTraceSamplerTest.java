@@ -0,0 +1,34 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class ItemTraceSamplerTest {
+
+    @Test
+    void shouldNeverTraceWhenRateIsZero() {
+        ItemTraceSampler sampler = new ItemTraceSampler(0.0);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(sampler.shouldTrace());
+        }
+    }
+
+    @Test
+    void shouldAlwaysTraceWhenRateIsOne() {
+        ItemTraceSampler sampler = new ItemTraceSampler(1.0);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(sampler.shouldTrace());
+        }
+    }
+
+    @Test
+    void shouldRejectRateOutsideUnitInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new ItemTraceSampler(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ItemTraceSampler(-0.1));
+    }
+}
@@ -1,20 +1,42 @@
 package com.nimbleways.springboilerplate.services.implementations;
 
+import com.nimbleways.springboilerplate.dto.product.OrderDetailsResponse;
+import com.nimbleways.springboilerplate.dto.product.OrderItemOutcomeResponse;
+import com.nimbleways.springboilerplate.dto.product.OrderItemResponse;
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderReportResponse;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
 import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.exceptions.OrderNotFoundException;
+import com.nimbleways.springboilerplate.exceptions.RateLimitExceededException;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
 import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
 import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandlerFactory;
+import com.nimbleways.springboilerplate.services.limiting.ProductTypeLimitProperties;
+import com.nimbleways.springboilerplate.services.limiting.ProductTypeLimiter;
+import com.nimbleways.springboilerplate.services.lookup.OrderIdFilter;
 import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 
-import java.util.HashSet;
+import javax.persistence.EntityManager;
+
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -28,43 +50,89 @@ class OrderServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
     @Mock
     private ProductTypeHandlerFactory productTypeHandlerFactory;
 
     @Mock
     private ProductTypeHandler productTypeHandler;
 
-    @InjectMocks
+    @Mock
+    private ItemTraceSampler itemTraceSampler;
+
+    @Spy
+    private ConflictRetryPolicy conflictRetryPolicy = new ConflictRetryPolicy(new SimpleMeterRegistry(), 3, 0, 0);
+
+    @Spy
+    private ProductTypeLimiter productTypeLimiter =
+            new ProductTypeLimiter(new ProductTypeLimitProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private OrderIdFilter orderIdFilter;
+
     private OrderServiceImpl orderService;
 
+    private OrderServiceImpl orderScopedService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = orderService(OrderTransactionScope.ITEM);
+        orderScopedService = orderService(OrderTransactionScope.ORDER);
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+    }
+
     @Test
     void shouldProcessOrderSuccessfully() {
         Long orderId = 1L;
-        Order order = new Order();
-        order.setId(orderId);
+        ProductStockView product1 = product(1L, 15, 30, "NORMAL", "USB Cable");
+        ProductStockView product2 = product(2L, 10, 5, "NORMAL", "Mouse");
 
-        Product product1 = new Product(1L, 15, 30, "NORMAL", "USB Cable", null, null, null);
-        Product product2 = new Product(2L, 10, 5, "NORMAL", "Mouse", null, null, null);
-        Set<Product> products = new HashSet<>();
-        products.add(product1);
-        products.add(product2);
-        order.setItems(products);
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(product1, product2));
         when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(any(ProductStockView.class), eq(orderId))).thenReturn(ProductOrderOutcome.decremented());
 
         ProcessOrderResponse response = orderService.processOrder(orderId);
 
         assertNotNull(response);
         assertEquals(orderId, response.id());
-        verify(orderRepository, times(1)).findById(orderId);
-        verify(productTypeHandler, times(2)).processProductOrder(any(Product.class));
+        verify(orderRepository, times(1)).findItemStockByOrderId(orderId);
+        verify(orderRepository, never()).findById(any());
+        verify(productTypeHandler, times(2)).processProductOrder(any(ProductStockView.class), eq(orderId));
+    }
+
+    @Test
+    void shouldProcessOrderWhenItemTracesAreSampled() {
+        Long orderId = 4L;
+        ProductStockView product = product(1L, 15, 30, "NORMAL", "USB Cable");
+
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(product));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(product, orderId)).thenReturn(ProductOrderOutcome.decremented());
+        when(itemTraceSampler.shouldTrace()).thenReturn(true);
+
+        ProcessOrderResponse response = orderService.processOrder(orderId);
+
+        assertEquals(orderId, response.id());
+        verify(itemTraceSampler, times(1)).shouldTrace();
+        verify(productTypeHandler, times(1)).processProductOrder(product, orderId);
     }
 
     @Test
     void shouldThrowExceptionWhenOrderNotFound() {
         Long orderId = 999L;
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of());
+        when(orderRepository.existsById(orderId)).thenReturn(false);
 
         OrderNotFoundException exception = assertThrows(
             OrderNotFoundException.class,
@@ -72,58 +140,314 @@ class OrderServiceImplTest {
         );
 
         assertTrue(exception.getMessage().contains("Order not found: 999"));
-        verify(orderRepository, times(1)).findById(orderId);
+        verify(orderRepository, times(1)).existsById(orderId);
+        verify(orderIdFilter).recordMissing(orderId);
         verifyNoInteractions(productTypeHandlerFactory);
     }
 
     @Test
-    void shouldProcessOrderWithMultipleProductTypes() {
-        Long orderId = 2L;
-        Order order = new Order();
-        order.setId(orderId);
+    void shouldRejectOrderIdsTheFilterFlagsByPrimaryKeyAlone() {
+        Long orderId = 998L;
+        when(orderIdFilter.lookup(orderId)).thenReturn(OrderIdFilter.Lookup.ABSENT);
+        when(orderRepository.existsById(orderId)).thenReturn(false);
 
-        Product normalProduct = new Product(1L, 15, 30, "NORMAL", "USB Cable", null, null, null);
-        Product seasonalProduct = new Product(2L, 10, 5, "SEASONAL", "Watermelon", null, null, null);
-        Product expirableProduct = new Product(3L, 5, 10, "EXPIRABLE", "Milk", null, null, null);
+        OrderNotFoundException exception = assertThrows(
+            OrderNotFoundException.class,
+            () -> orderService.processOrder(orderId)
+        );
+
+        assertTrue(exception.isFiltered());
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder(orderId));
+        verify(orderRepository, times(2)).existsById(orderId);
+        verifyNoMoreInteractions(orderRepository);
+        verifyNoInteractions(productTypeHandlerFactory);
+    }
+
+    @Test
+    void shouldProcessOrderTheFilterFlaggedWhenItExists() {
+        Long orderId = 997L;
+        ProductStockView product = product(1L, 15, 30, "NORMAL", "USB Cable");
+        when(orderIdFilter.lookup(orderId)).thenReturn(OrderIdFilter.Lookup.ABSENT);
+        when(orderRepository.existsById(orderId)).thenReturn(true);
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(product));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(product, orderId)).thenReturn(ProductOrderOutcome.decremented());
 
-        Set<Product> products = new HashSet<>();
-        products.add(normalProduct);
-        products.add(seasonalProduct);
-        products.add(expirableProduct);
-        order.setItems(products);
+        ProcessOrderResponse response = orderService.processOrder(orderId);
+
+        assertEquals(orderId, response.id());
+        verify(orderIdFilter).recordPresent(orderId);
+        verify(productTypeHandler).processProductOrder(product, orderId);
+    }
+
+    @Test
+    void shouldProcessOrderWithMultipleProductTypes() {
+        Long orderId = 2L;
+        ProductStockView normalProduct = product(1L, 15, 30, "NORMAL", "USB Cable");
+        ProductStockView seasonalProduct = product(2L, 10, 5, "SEASONAL", "Watermelon");
+        ProductStockView expirableProduct = product(3L, 5, 10, "EXPIRABLE", "Milk");
 
         ProductTypeHandler normalHandler = mock(ProductTypeHandler.class);
         ProductTypeHandler seasonalHandler = mock(ProductTypeHandler.class);
         ProductTypeHandler expirableHandler = mock(ProductTypeHandler.class);
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.findItemStockByOrderId(orderId))
+                .thenReturn(List.of(normalProduct, seasonalProduct, expirableProduct));
         when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(normalHandler);
         when(productTypeHandlerFactory.getHandler("SEASONAL")).thenReturn(seasonalHandler);
         when(productTypeHandlerFactory.getHandler("EXPIRABLE")).thenReturn(expirableHandler);
+        when(normalHandler.processProductOrder(normalProduct, orderId)).thenReturn(ProductOrderOutcome.decremented());
+        when(seasonalHandler.processProductOrder(seasonalProduct, orderId)).thenReturn(ProductOrderOutcome.delayed(10));
+        when(expirableHandler.processProductOrder(expirableProduct, orderId)).thenReturn(ProductOrderOutcome.expired());
 
         ProcessOrderResponse response = orderService.processOrder(orderId);
 
         assertNotNull(response);
         assertEquals(orderId, response.id());
-        verify(normalHandler, times(1)).processProductOrder(normalProduct);
-        verify(seasonalHandler, times(1)).processProductOrder(seasonalProduct);
-        verify(expirableHandler, times(1)).processProductOrder(expirableProduct);
+        verify(normalHandler, times(1)).processProductOrder(normalProduct, orderId);
+        verify(seasonalHandler, times(1)).processProductOrder(seasonalProduct, orderId);
+        verify(expirableHandler, times(1)).processProductOrder(expirableProduct, orderId);
+    }
+
+    @Test
+    void shouldReportOutcomeOfEachItem() {
+        Long orderId = 5L;
+        ProductStockView inStock = product(1L, 15, 30, "NORMAL", "USB Cable");
+        ProductStockView delayed = product(2L, 10, 0, "NORMAL", "USB Dongle");
+        ProductStockView outOfStock = product(3L, 0, 0, "NORMAL", "Mouse");
+
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(inStock, delayed, outOfStock));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(inStock, orderId)).thenReturn(ProductOrderOutcome.decremented());
+        when(productTypeHandler.processProductOrder(delayed, orderId)).thenReturn(ProductOrderOutcome.delayed(10));
+        when(productTypeHandler.processProductOrder(outOfStock, orderId)).thenReturn(ProductOrderOutcome.outOfStock());
+
+        ProcessOrderReportResponse report = orderService.processOrderWithReport(orderId);
+
+        assertEquals(orderId, report.id());
+        assertEquals(List.of(
+                new OrderItemOutcomeResponse(1L, "NORMAL", "DECREMENTED", null),
+                new OrderItemOutcomeResponse(2L, "NORMAL", "DELAYED", 10),
+                new OrderItemOutcomeResponse(3L, "NORMAL", "OUT_OF_STOCK", null)), report.items());
+        verify(productTypeHandler, times(3)).processProductOrder(any(ProductStockView.class), eq(orderId));
+    }
+
+    @Test
+    void shouldRetryItemWithReloadedProductOnConflict() {
+        Long orderId = 6L;
+        ProductStockView stale = product(1L, 15, 1, "NORMAL", "USB Cable");
+        ProductStockView fresh = product(1L, 15, 0, "NORMAL", "USB Cable");
+
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(stale));
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(fresh));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(stale, orderId))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+        when(productTypeHandler.processProductOrder(fresh, orderId)).thenReturn(ProductOrderOutcome.delayed(15));
+
+        ProcessOrderReportResponse report = orderService.processOrderWithReport(orderId);
+
+        assertEquals(List.of(new OrderItemOutcomeResponse(1L, "NORMAL", "DELAYED", 15)), report.items());
+        verify(productRepository, times(1)).findStockById(1L);
+    }
+
+    @Test
+    void shouldDescribeOrderItemsSortedById() {
+        Order order = new Order(7L, Set.of(
+                new Product(2L, 10, 0, "SEASONAL", "Grapes", null, null, null),
+                new Product(1L, 15, 4, "NORMAL", "USB Cable", null, null, null)));
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(order));
+
+        OrderDetailsResponse details = orderService.getOrder(7L);
+
+        assertEquals(new OrderDetailsResponse(7L, List.of(
+                new OrderItemResponse(1L, "USB Cable", "NORMAL", 4, 15),
+                new OrderItemResponse(2L, "Grapes", "SEASONAL", 0, 10))), details);
+        verifyNoInteractions(productTypeHandlerFactory);
+    }
+
+    @Test
+    void shouldNotLoadOrProcessAnyItemWhenOrderIsThrottled() {
+        when(orderRepository.findItemTypesByOrderId(8L)).thenReturn(List.of("SEASONAL"));
+        doReturn(true).when(productTypeLimiter).hasLimits();
+        doThrow(new RateLimitExceededException("SEASONAL", Duration.ofSeconds(1)))
+                .when(productTypeLimiter).acquire(List.of("SEASONAL"));
+
+        assertThrows(RateLimitExceededException.class, () -> orderScopedService.processOrder(8L));
+
+        verify(orderRepository, never()).findItemStockByOrderId(any());
+        verifyNoInteractions(productTypeHandlerFactory, transactionManager);
+    }
+
+    @Test
+    void shouldNotLookUpItemTypesWhenNoTypeIsLimited() {
+        when(orderRepository.findItemStockByOrderId(9L)).thenReturn(List.of(product(1L, 15, 4, "NORMAL", "Mouse")));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(any(), eq(9L))).thenReturn(ProductOrderOutcome.decremented());
+
+        orderService.processOrder(9L);
+
+        verify(orderRepository, never()).findItemTypesByOrderId(any());
     }
 
     @Test
     void shouldProcessEmptyOrder() {
         Long orderId = 3L;
-        Order order = new Order();
-        order.setId(orderId);
-        order.setItems(new HashSet<>());
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of());
+        when(orderRepository.existsById(orderId)).thenReturn(true);
 
         ProcessOrderResponse response = orderService.processOrder(orderId);
 
         assertNotNull(response);
         assertEquals(orderId, response.id());
-        verify(orderRepository, times(1)).findById(orderId);
+        verify(orderRepository, times(1)).existsById(orderId);
         verifyNoInteractions(productTypeHandlerFactory);
     }
+
+    @Test
+    void shouldReportFailedItemAndProcessTheOthers() {
+        Long orderId = 9L;
+        ProductStockView unknown = product(1L, 15, 30, "DIGITAL", "E-book");
+        ProductStockView normal = product(2L, 15, 30, "NORMAL", "USB Cable");
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(unknown, normal));
+        when(productTypeHandlerFactory.getHandler("DIGITAL"))
+                .thenThrow(new IllegalArgumentException("Unsupported product type: DIGITAL"));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(normal, orderId)).thenReturn(ProductOrderOutcome.decremented());
+
+        ProcessOrderReportResponse report = orderService.processOrderWithReport(orderId);
+
+        assertEquals(List.of(
+                new OrderItemOutcomeResponse(1L, "DIGITAL", "FAILED", null),
+                new OrderItemOutcomeResponse(2L, "NORMAL", "DECREMENTED", null)), report.items());
+        verify(orderRepository, never()).existsById(any());
+        verifyNoInteractions(transactionManager, entityManager);
+    }
+
+    @Test
+    void shouldFlushEachItemInsideOrderTransaction() {
+        Long orderId = 10L;
+        ProductStockView product = product(1L, 15, 30, "NORMAL", "USB Cable");
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(product));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(product, orderId)).thenReturn(ProductOrderOutcome.decremented());
+
+        ProcessOrderReportResponse report = orderScopedService.processOrderWithReport(orderId);
+
+        assertEquals(List.of(new OrderItemOutcomeResponse(1L, "NORMAL", "DECREMENTED", null)), report.items());
+        InOrder inOrder = inOrder(transactionManager, productRepository, entityManager, productTypeHandler);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(productTypeHandler).processProductOrder(product, orderId);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(transactionManager).commit(transactionStatus);
+        verify(productRepository, never()).findStockById(any());
+    }
+
+    @Test
+    void shouldRetryConflictingItemOnTheCurrentRowInsideOrderTransaction() {
+        Long orderId = 13L;
+        ProductStockView loaded = new ProductStockView(1L, "NORMAL", "USB Cable", 30, 15, null, null, null, 3L, 0);
+        ProductStockView current = new ProductStockView(1L, "NORMAL", "USB Cable", 29, 15, null, null, null, 4L, 0);
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(loaded));
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(current));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(loaded, orderId))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+        when(productTypeHandler.processProductOrder(current, orderId)).thenReturn(ProductOrderOutcome.decremented());
+
+        ProcessOrderReportResponse report = orderScopedService.processOrderWithReport(orderId);
+
+        assertEquals(List.of(new OrderItemOutcomeResponse(1L, "NORMAL", "DECREMENTED", null)), report.items());
+        InOrder inOrder = inOrder(productRepository, productTypeHandler, transactionManager);
+        inOrder.verify(productTypeHandler).processProductOrder(loaded, orderId);
+        inOrder.verify(productRepository).findStockById(1L);
+        inOrder.verify(productTypeHandler).processProductOrder(current, orderId);
+        inOrder.verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void shouldRollBackWholeOrderWhenConflictOutlastsTheRetries() {
+        Long orderId = 14L;
+        ProductStockView product = product(1L, 15, 30, "NORMAL", "USB Cable");
+        ObjectOptimisticLockingFailureException conflict = new ObjectOptimisticLockingFailureException(Product.class, 1L);
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(product));
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(product));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(product, orderId)).thenThrow(conflict);
+
+        assertSame(conflict, assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> orderScopedService.processOrder(orderId)));
+
+        verify(productTypeHandler, times(3)).processProductOrder(product, orderId);
+        verify(conflictRetryPolicy).executeWithoutBackoff(eq("NORMAL"), any());
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void shouldReportConflictOutlastingTheRetriesAsFailedWhenItemsCommitOnTheirOwn() {
+        Long orderId = 15L;
+        ProductStockView conflicting = product(1L, 15, 30, "NORMAL", "USB Cable");
+        ProductStockView other = product(2L, 15, 30, "NORMAL", "Mouse");
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(conflicting, other));
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(conflicting));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(conflicting, orderId))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+        when(productTypeHandler.processProductOrder(other, orderId)).thenReturn(ProductOrderOutcome.decremented());
+
+        ProcessOrderReportResponse report = orderService.processOrderWithReport(orderId);
+
+        assertEquals(List.of(
+                new OrderItemOutcomeResponse(1L, "NORMAL", "FAILED", null),
+                new OrderItemOutcomeResponse(2L, "NORMAL", "DECREMENTED", null)), report.items());
+        verify(conflictRetryPolicy, times(2)).execute(eq("NORMAL"), any());
+    }
+
+    @Test
+    void shouldReportFailedItemAndCommitTheOthers() {
+        Long orderId = 11L;
+        ProductStockView failing = product(1L, 15, 30, "NORMAL", "USB Cable");
+        ProductStockView other = product(2L, 15, 30, "NORMAL", "Mouse");
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(failing, other));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(failing, orderId)).thenThrow(new IllegalStateException("boom"));
+        when(productTypeHandler.processProductOrder(other, orderId)).thenReturn(ProductOrderOutcome.decremented());
+
+        ProcessOrderReportResponse report = orderScopedService.processOrderWithReport(orderId);
+
+        assertEquals(List.of(
+                new OrderItemOutcomeResponse(1L, "NORMAL", "FAILED", null),
+                new OrderItemOutcomeResponse(2L, "NORMAL", "DECREMENTED", null)), report.items());
+        verify(entityManager, times(1)).flush();
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    void shouldFailWholeOrderWhenItemFailureDoomedOrderTransaction() {
+        Long orderId = 12L;
+        ProductStockView product = product(1L, 15, 30, "NORMAL", "USB Cable");
+        IllegalStateException failure = new IllegalStateException("constraint violated");
+        when(orderRepository.findItemStockByOrderId(orderId)).thenReturn(List.of(product));
+        when(productTypeHandlerFactory.getHandler("NORMAL")).thenReturn(productTypeHandler);
+        when(productTypeHandler.processProductOrder(product, orderId)).thenThrow(failure);
+        when(transactionStatus.isRollbackOnly()).thenReturn(true);
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> orderScopedService.processOrder(orderId)));
+
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    private OrderServiceImpl orderService(OrderTransactionScope scope) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("orderIdFilter", orderIdFilter);
+        return new OrderServiceImpl(orderRepository, productRepository, productTypeHandlerFactory, itemTraceSampler,
+                conflictRetryPolicy, productTypeLimiter, transactionManager, entityManager, scope,
+                OpenTelemetry.noop().getTracer("test"), beanFactory.getBeanProvider(OrderIdFilter.class));
+    }
+
+    private static ProductStockView product(Long id, int leadTime, int available, String type, String name) {
+        return new ProductStockView(id, type, name, available, leadTime, null, null, null, null, 0);
+    }
 }
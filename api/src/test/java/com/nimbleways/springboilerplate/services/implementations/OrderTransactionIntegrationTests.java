@@ -0,0 +1,124 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.dto.product.OrderItemOutcomeResponse;
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderReportResponse;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockUpdates;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.handlers.ProductOrderOutcome;
+import com.nimbleways.springboilerplate.services.handlers.ProductTypeHandler;
+import com.nimbleways.springboilerplate.services.ledger.StockLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "orders.transaction-scope=order")
+class OrderTransactionIntegrationTests {
+
+        private static final String TYPE_FAULTY = "FAULTY";
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderService orderService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private StockLedgerRepository ledgerRepository;
+
+        @Test
+        void shouldRollBackOnlyTheFailingItemToItsSavepoint() {
+                Product first = productRepository.save(new Product(null, 15, 10, "NORMAL", "USB Cable", null, null, null));
+                Product faulty = productRepository.save(new Product(null, 15, 10, TYPE_FAULTY, "Mouse", null, null, null));
+                Product last = productRepository.save(new Product(null, 15, 10, "NORMAL", "Keyboard", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(first, faulty, last)));
+
+                ProcessOrderReportResponse report = orderService.processOrderWithReport(order.getId());
+
+                assertEquals(List.of(
+                                new OrderItemOutcomeResponse(first.getId(), "NORMAL", "DECREMENTED", null),
+                                new OrderItemOutcomeResponse(faulty.getId(), TYPE_FAULTY, "FAILED", null),
+                                new OrderItemOutcomeResponse(last.getId(), "NORMAL", "DECREMENTED", null)), report.items());
+                assertEquals(9, productRepository.findCurrentById(first.getId()).get().getAvailable());
+                assertEquals(10, productRepository.findCurrentById(faulty.getId()).get().getAvailable());
+                assertEquals(9, productRepository.findCurrentById(last.getId()).get().getAvailable());
+                assertEquals(List.of(first.getId(), last.getId()), ledgerRepository.findAll().stream()
+                                .filter(entry -> order.getId().equals(entry.getOrderId()))
+                                .map(StockLedgerEntry::getProductId)
+                                .sorted()
+                                .toList());
+        }
+
+        @Test
+        void shouldKeepFailedItemConsistentForTheNextOrder() {
+                Product faulty = productRepository.save(new Product(null, 15, 10, TYPE_FAULTY, "Hub", null, null, null));
+                Order firstOrder = orderRepository.save(new Order(null, Set.of(faulty)));
+                Order secondOrder = orderRepository.save(new Order(null, Set.of(faulty)));
+
+                orderService.processOrderWithReport(firstOrder.getId());
+                ProcessOrderReportResponse report = orderService.processOrderWithReport(secondOrder.getId());
+
+                // A leftover of the first failure, such as a stale version, would fail the whole second order
+                assertEquals("FAILED", report.items().get(0).status());
+                Product current = productRepository.findCurrentById(faulty.getId()).get();
+                assertEquals(10, current.getAvailable());
+        }
+
+        @TestConfiguration
+        static class FaultyHandlerConfiguration {
+
+                @Bean
+                ProductTypeHandler faultyProductHandler(ProductStockUpdates stockUpdates, StockLedger stockLedger) {
+                        return new FaultyProductHandler(stockUpdates, stockLedger);
+                }
+        }
+
+        /**
+         * Writes the decrement and its ledger entry, flushed so the rows really change, then fails.
+         */
+        static class FaultyProductHandler implements ProductTypeHandler {
+
+                private final ProductStockUpdates stockUpdates;
+                private final StockLedger stockLedger;
+
+                FaultyProductHandler(ProductStockUpdates stockUpdates, StockLedger stockLedger) {
+                        this.stockUpdates = stockUpdates;
+                        this.stockLedger = stockLedger;
+                }
+
+                @Override
+                @Transactional(propagation = Propagation.NESTED)
+                public ProductOrderOutcome processProductOrder(ProductStockView product, Long orderId) {
+                        stockUpdates.updateAvailable(product, product.available() - 1);
+                        stockLedger.record(product.id(), -1, StockLedgerEntry.Reason.ORDER, orderId);
+                        throw new IllegalStateException("Faulty handler failed after decrementing " + product.id());
+                }
+
+                @Override
+                public String getSupportedType() {
+                        return TYPE_FAULTY;
+                }
+        }
+}
@@ -1,7 +1,10 @@
 package com.nimbleways.springboilerplate.services.implementations;
 
+import com.nimbleways.springboilerplate.dto.product.SeasonalForecastResponse;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockView;
+import com.nimbleways.springboilerplate.services.handlers.SeasonalDeliveryPlanner;
 import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
 
 import org.junit.jupiter.api.Test;
@@ -9,8 +12,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @ExtendWith(SpringExtension.class)
@@ -21,6 +28,8 @@ class ProductServiceTest {
     private NotificationService notificationService;
     @Mock
     private ProductRepository productRepository;
+    @Spy
+    private SeasonalDeliveryPlanner seasonalDeliveryPlanner = new SeasonalDeliveryPlanner();
     @InjectMocks
     private ProductService productService;
 
@@ -37,4 +46,28 @@ class ProductServiceTest {
         Mockito.verify(productRepository, Mockito.times(1)).save(product);
         Mockito.verify(notificationService, Mockito.times(1)).sendDelayNotification(product.getLeadTime(), product.getName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldForecastSeasonalProductsWithoutTouchingThem() {
+        LocalDate today = LocalDate.now();
+        ProductStockView inStock = seasonal(1L, 10, 5, "Watermelon", today);
+        ProductStockView delayed = seasonal(2L, 10, 0, "Strawberry", today);
+        ProductStockView tooLate = seasonal(3L, 40, 0, "Mango", today);
+        Mockito.when(productRepository.findStockByType(Mockito.eq("SEASONAL"), Mockito.any()))
+                .thenReturn(List.of(inStock, delayed, tooLate));
+
+        List<SeasonalForecastResponse> forecast = productService.getSeasonalForecast(0, 100);
+
+        assertEquals(List.of(
+                new SeasonalForecastResponse(1L, "Watermelon", "IN_STOCK", today),
+                new SeasonalForecastResponse(2L, "Strawberry", "DELAYED", today.plusDays(10)),
+                new SeasonalForecastResponse(3L, "Mango", "UNAVAILABLE", null)), forecast);
+        Mockito.verify(productRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verifyNoInteractions(notificationService);
+    }
+
+    private static ProductStockView seasonal(Long id, int leadTime, int available, String name, LocalDate today) {
+        return new ProductStockView(id, "SEASONAL", name, available, leadTime, null, today.minusDays(10),
+                today.plusDays(30), 0L, 0);
+    }
+}
@@ -0,0 +1,141 @@
+package com.nimbleways.springboilerplate.services.intake;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "orders.intake.journal.enabled=true",
+        "orders.intake.journal.segment-records=4",
+        "orders.intake.journal.poll-interval-ms=20",
+        "orders.intake.journal.retry-initial-backoff-ms=10"
+})
+@AutoConfigureMockMvc
+class OrderIntakeJournalIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+
+        @TempDir
+        static Path journalDirectory;
+
+        @DynamicPropertySource
+        static void journalProperties(DynamicPropertyRegistry registry) {
+                registry.add("orders.intake.journal.directory", journalDirectory::toString);
+        }
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderIntakeJournal journal;
+
+        @Autowired
+        private OrderJournalConsumers consumers;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @SpyBean
+        private OrderService orderService;
+
+        @Test
+        void shouldAcknowledgeJournaledOrdersAndProcessThemInTheBackground() throws Exception {
+                Product product = productRepository.save(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
+                int orders = 10;
+                long startOffset = journal.durableOffset();
+                for (int i = 0; i < orders; i++) {
+                        Order order = orderRepository.save(new Order(null, Set.of(product)));
+                        mockMvc.perform(post(PROCESS_ORDER_URL, order.getId()))
+                                        .andExpect(status().isAccepted())
+                                        .andExpect(jsonPath("$.id").value(order.getId()));
+                }
+
+                assertEquals(startOffset + orders, journal.durableOffset());
+                awaitTrue(() -> consumers.committedOffset() == journal.durableOffset());
+                assertEquals(30 - orders, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+        }
+
+        @Test
+        void shouldSkipJournaledOrdersThatDoNotExist() throws Exception {
+                mockMvc.perform(post(PROCESS_ORDER_URL, 987654L)).andExpect(status().isAccepted());
+
+                awaitTrue(() -> consumers.committedOffset() == journal.durableOffset());
+        }
+
+        @Test
+        void shouldRetryJournaledOrdersWhileTheDatabaseIsUnavailable() throws Exception {
+                Product product = productRepository.save(new Product(null, 15, 30, "NORMAL", "Mouse", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(product)));
+                doThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"))
+                                .doThrow(new QueryTimeoutException("Timeout"))
+                                .doCallRealMethod()
+                                .when(orderService).processOrder(order.getId());
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())).andExpect(status().isAccepted());
+
+                awaitTrue(() -> consumers.committedOffset() == journal.durableOffset());
+                verify(orderService, times(3)).processOrder(order.getId());
+                assertEquals(29, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+        }
+
+        @Test
+        void shouldRejectTheExpandedViewWithoutProcessingTheOrder() throws Exception {
+                Product product = productRepository.save(new Product(null, 15, 30, "NORMAL", "Keyboard", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(product)));
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId()).param("view", "expanded"))
+                                .andExpect(status().isConflict());
+
+                verify(orderService, never()).processOrderWithReport(order.getId());
+                assertEquals(30, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+        }
+
+        private static void awaitTrue(BooleanSupplier condition) {
+                Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+                while (!condition.getAsBoolean()) {
+                        assertTrue(Instant.now().isBefore(deadline), "condition not met within 30s");
+                        try {
+                                Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                fail(e);
+                        }
+                }
+        }
+}
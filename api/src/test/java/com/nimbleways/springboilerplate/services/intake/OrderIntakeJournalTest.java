@@ -0,0 +1,138 @@
+package com.nimbleways.springboilerplate.services.intake;
+
+import com.nimbleways.springboilerplate.exceptions.IntakeJournalUnavailableException;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class OrderIntakeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private OrderIntakeJournal journal;
+
+    @AfterEach
+    void closeJournal() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void shouldReadBackDurableAppendsInOrder() {
+        journal = open(16);
+
+        assertEquals(0, journal.append(42));
+        assertEquals(1, journal.append(7));
+
+        assertEquals(2, journal.durableOffset());
+        assertEquals(42, journal.read(0).orderId());
+        assertEquals(7, journal.read(1).orderId());
+        assertNull(journal.read(2));
+    }
+
+    @Test
+    void shouldRollToANewSegmentWhenFull() throws Exception {
+        journal = open(2);
+
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            journal.append(orderId);
+        }
+
+        assertEquals(3, segmentCount());
+        for (long offset = 0; offset < 5; offset++) {
+            assertEquals(offset + 1, journal.read(offset).orderId());
+        }
+    }
+
+    @Test
+    void shouldResumeAfterTheLastCompleteRecordOnReopen() throws Exception {
+        journal = open(4);
+        journal.append(1);
+        journal.append(2);
+        journal.append(3);
+        journal.close();
+        tearRecord(2);
+
+        journal = open(4);
+
+        assertEquals(2, journal.durableOffset());
+        assertEquals(2, journal.append(30));
+        assertEquals(30, journal.read(2).orderId());
+        assertEquals(2, journal.read(1).orderId());
+    }
+
+    @Test
+    void shouldDeleteOnlyConsumedSegmentsOlderThanTheRetention() throws Exception {
+        journal = open(2);
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            journal.append(orderId);
+        }
+
+        assertEquals(0, journal.deleteSegmentsBefore(4, Instant.now().minusSeconds(3600)));
+        assertEquals(1, journal.deleteSegmentsBefore(3, Instant.now().plusSeconds(3600)));
+        assertEquals(2, journal.firstOffset());
+        assertEquals(1, journal.deleteSegmentsBefore(5, Instant.now().plusSeconds(3600)));
+
+        assertEquals(1, segmentCount());
+        assertEquals(5, journal.read(4).orderId());
+    }
+
+    @Test
+    void shouldRefuseAppendsOnceClosed() {
+        journal = open(4);
+        journal.close();
+
+        assertThrows(IntakeJournalUnavailableException.class, () -> journal.append(1));
+    }
+
+    @Test
+    void shouldRestartEveryConsumerFromTheLowestOffsetWhenTheirNumberChanges() throws Exception {
+        Path file = directory.resolve(OrderJournalConsumers.OFFSETS_FILE);
+        try (ConsumerOffsets offsets = ConsumerOffsets.open(file, 2, 0)) {
+            offsets.set(0, 12);
+            offsets.set(1, 9);
+            assertEquals(9, offsets.min());
+        }
+
+        try (ConsumerOffsets offsets = ConsumerOffsets.open(file, 2, 0)) {
+            assertEquals(12, offsets.get(0));
+            assertEquals(9, offsets.get(1));
+        }
+        try (ConsumerOffsets offsets = ConsumerOffsets.open(file, 3, 0)) {
+            assertEquals(9, offsets.get(0));
+            assertEquals(9, offsets.get(2));
+        }
+    }
+
+    private OrderIntakeJournal open(int segmentRecords) {
+        return new OrderIntakeJournal(directory, segmentRecords, 0, 5000);
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(JournalSegment.SUFFIX)).count();
+        }
+    }
+
+    // A crash after the payload but before the magic leaves the record without its magic
+    private void tearRecord(long offset) throws Exception {
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d%s", 0, JournalSegment.SUFFIX)),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), offset * JournalSegment.RECORD_SIZE);
+        }
+    }
+}
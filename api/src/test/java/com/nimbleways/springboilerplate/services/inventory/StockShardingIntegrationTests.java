@@ -0,0 +1,200 @@
+package com.nimbleways.springboilerplate.services.inventory;
+
+import com.nimbleways.springboilerplate.dto.product.OrderItemOutcomeResponse;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.services.inventory.StockShardRebalancer.ShardedStock;
+import com.nimbleways.springboilerplate.services.ledger.StockLedgerReplay;
+import com.nimbleways.springboilerplate.services.ledger.StockSnapshotCompactor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoint.stockshards.enabled=true",
+        "management.endpoints.web.exposure.include=stockshards",
+        // Rebalancing and compaction are driven by the tests
+        "stock.sharding.rebalance.enabled=false",
+        "stock.ledger.compaction.interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class StockShardingIntegrationTests {
+
+        private static final int STOCK = 40;
+        private static final int CONCURRENT_ORDERS = 64;
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderService orderService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private StockLedgerRepository ledgerRepository;
+
+        @Autowired
+        private StockShardRebalancer rebalancer;
+
+        @Autowired
+        private StockSnapshotCompactor compactor;
+
+        @Autowired
+        private StockLedgerReplay replay;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void shouldSplitStockEvenlyAndMergeItBack() {
+                Product product = productRepository.save(new Product(null, 10, 10, "NORMAL", "Hot SKU", null, null, null));
+
+                assertEquals(new ShardedStock(product.getId(), 0, List.of(3, 3, 2, 2)), rebalancer.reshard(product.getId(), 4));
+                assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getTotalAvailable());
+                assertEquals(new ShardedStock(product.getId(), 10, List.of()), rebalancer.reshard(product.getId(), 0));
+                assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+                assertThrows(IllegalArgumentException.class, () -> rebalancer.reshard(product.getId(), 65));
+        }
+
+        @Test
+        void shouldNeverOversellAShardedProductUnderManyConcurrentOrders() throws Exception {
+                Product product = productRepository.save(new Product(null, 10, STOCK, "NORMAL", "Hot SKU", null, null, null));
+                rebalancer.reshard(product.getId(), 8);
+                List<Long> orderIds = new ArrayList<>();
+                for (int i = 0; i < CONCURRENT_ORDERS; i++) {
+                        orderIds.add(orderRepository.save(new Order(null, Set.of(product))).getId());
+                }
+
+                ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_ORDERS);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<String>> statuses = new ArrayList<>();
+                try {
+                        for (Long orderId : orderIds) {
+                                statuses.add(clients.submit(() -> {
+                                        start.await();
+                                        List<OrderItemOutcomeResponse> items = orderService.processOrderWithReport(orderId).items();
+                                        return items.get(0).status();
+                                }));
+                        }
+                        start.countDown();
+                        List<String> results = new ArrayList<>();
+                        for (Future<String> status : statuses) {
+                                results.add(status.get(60, TimeUnit.SECONDS));
+                        }
+                        Map<String, Long> byStatus = results.stream()
+                                        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+                        assertEquals(STOCK, byStatus.get("DECREMENTED"));
+                        assertEquals(CONCURRENT_ORDERS - STOCK, byStatus.get("DELAYED"));
+                } finally {
+                        clients.shutdownNow();
+                }
+
+                assertEquals(new ShardedStock(product.getId(), 0, List.of(0, 0, 0, 0, 0, 0, 0, 0)),
+                                rebalancer.describe(product.getId()));
+                List<StockLedgerEntry> entries = ledgerRepository.findAll().stream()
+                                .filter(entry -> entry.getProductId().equals(product.getId()))
+                                .toList();
+                assertEquals(STOCK, entries.size());
+        }
+
+        @Test
+        void shouldTakeFromSiblingShardsThenFromUndistributedUnits() {
+                Product product = productRepository.save(new Product(null, 10, 2, "NORMAL", "Hot SKU", null, null, null));
+                rebalancer.reshard(product.getId(), 4);
+                // A restock lands on the products row until the rebalancer spreads it
+                jdbcTemplate.update("update products set available = 1 where id = ?", product.getId());
+
+                for (int i = 0; i < 3; i++) {
+                        Long orderId = orderRepository.save(new Order(null, Set.of(product))).getId();
+                        assertEquals("DECREMENTED", orderService.processOrderWithReport(orderId).items().get(0).status());
+                }
+                Long orderId = orderRepository.save(new Order(null, Set.of(product))).getId();
+
+                assertEquals("DELAYED", orderService.processOrderWithReport(orderId).items().get(0).status());
+                assertEquals(new ShardedStock(product.getId(), 0, List.of(0, 0, 0, 0)), rebalancer.describe(product.getId()));
+        }
+
+        @Test
+        void shouldRebalanceDrainedShardsAndRestocks() {
+                Product product = productRepository.save(new Product(null, 10, 8, "NORMAL", "Hot SKU", null, null, null));
+                rebalancer.reshard(product.getId(), 4);
+                jdbcTemplate.update("update product_stock_shards set available = case when shard = 3 then 4 else 0 end "
+                                + "where product_id = ?", product.getId());
+                jdbcTemplate.update("update products set available = 6 where id = ?", product.getId());
+
+                assertTrue(rebalancer.rebalanceBatch() >= 1);
+
+                assertEquals(new ShardedStock(product.getId(), 0, List.of(3, 3, 2, 2)), rebalancer.describe(product.getId()));
+                assertEquals(0, rebalancer.rebalanceBatch());
+        }
+
+        @Test
+        void shouldKeepTheLedgerInLineWithShardedStock() {
+                Product product = productRepository.save(new Product(null, 10, 12, "NORMAL", "Hot SKU", null, null, null));
+                compactor.compactAll();
+                rebalancer.reshard(product.getId(), 3);
+                Long orderId = orderRepository.save(new Order(null, Set.of(product))).getId();
+
+                orderService.processOrder(orderId);
+                compactor.compactAll();
+
+                StockLedgerReplay.ProductStock stock = replay.replay(product.getId(), null);
+                assertEquals(11, stock.available());
+                assertEquals(0, stock.drift());
+                assertTrue(replay.verify().stream().noneMatch(drifted -> drifted.productId().equals(product.getId())));
+        }
+
+        @Test
+        void shouldReshardThroughTheActuatorEndpoint() throws Exception {
+                Product product = productRepository.save(new Product(null, 10, 9, "NORMAL", "Hot SKU", null, null, null));
+
+                mockMvc.perform(post("/actuator/stockshards/{productId}", product.getId())
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .content("{\"shards\": 3}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.shards.length()").value(3));
+                mockMvc.perform(get("/actuator/stockshards/{productId}", product.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.undistributed").value(0))
+                                .andExpect(jsonPath("$.shards[0]").value(3));
+        }
+}
@@ -0,0 +1,171 @@
+package com.nimbleways.springboilerplate.services.ledger;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.StockLedgerEntry;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.StockLedgerRepository;
+import com.nimbleways.springboilerplate.repositories.StockSnapshotRepository;
+import com.nimbleways.springboilerplate.services.OrderService;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.services.ledger.StockLedgerReplay.ProductStock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoint.stockledger.enabled=true",
+        "management.endpoints.web.exposure.include=stockledger",
+        // Compaction is driven by the test
+        "stock.ledger.compaction.interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class StockLedgerIntegrationTests {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderService orderService;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private StockLedgerRepository ledgerRepository;
+
+        @Autowired
+        private StockSnapshotRepository snapshotRepository;
+
+        @Autowired
+        private StockSnapshotCompactor compactor;
+
+        @Autowired
+        private StockLedgerReplay replay;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Test
+        void shouldRecordEachOrderAndExpiryInTheLedger() {
+                Product cable = productRepository.save(new Product(null, 10, 5, "NORMAL", "USB Cable", null, null, null));
+                Product milk = productRepository.save(
+                                new Product(null, 90, 6, "EXPIRABLE", "Milk", LocalDate.now().minusDays(2), null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(cable, milk))).getId();
+
+                orderService.processOrder(orderId);
+
+                List<StockLedgerEntry> entries = entriesOf(cable, milk);
+                assertEquals(2, entries.size());
+                assertTrue(entries.stream().allMatch(entry -> orderId.equals(entry.getOrderId())));
+                assertTrue(entries.stream().anyMatch(entry -> entry.getProductId().equals(cable.getId())
+                                && entry.getDelta() == -1 && entry.getReason() == StockLedgerEntry.Reason.ORDER));
+                assertTrue(entries.stream().anyMatch(entry -> entry.getProductId().equals(milk.getId())
+                                && entry.getDelta() == -6 && entry.getReason() == StockLedgerEntry.Reason.EXPIRED));
+        }
+
+        @Test
+        void shouldNotRecordDiscardingStockThatIsAlreadyEmpty() {
+                Product milk = productRepository.save(
+                                new Product(null, 90, 0, "EXPIRABLE", "Cream", LocalDate.now().minusDays(2), null, null));
+                Long orderId = orderRepository.save(new Order(null, Set.of(milk))).getId();
+
+                orderService.processOrder(orderId);
+
+                assertEquals(List.of(), entriesOf(milk));
+        }
+
+        @Test
+        void shouldDeriveStockFromSnapshotAndTailAcrossCompactions() {
+                Product product = productRepository.save(new Product(null, 10, 5, "NORMAL", "Keyboard", null, null, null));
+                compactor.compactAll();
+                assertEquals(5, snapshotRepository.findById(product.getId()).orElseThrow().getAvailable());
+
+                Instant beforeOrders = Instant.now();
+                processOrders(product, 3);
+
+                assertEquals(new ProductStock(product.getId(), 2, 2, true), replay.replay(product.getId(), null));
+                assertEquals(5, replay.replay(product.getId(), beforeOrders).derived());
+                assertTrue(replay.verify().stream().noneMatch(stock -> stock.productId().equals(product.getId())));
+
+                compactor.compactAll();
+
+                assertEquals(2, snapshotRepository.findById(product.getId()).orElseThrow().getAvailable());
+                assertTrue(entriesOf(product).stream().allMatch(StockLedgerEntry::isCompacted));
+                assertEquals(2, replay.replay(product.getId(), null).derived());
+                // Compacted entries stay within the retention, so older stock can still be replayed
+                assertEquals(5, replay.replay(product.getId(), beforeOrders).derived());
+        }
+
+        @Test
+        void shouldReportAndRestoreStockChangedOutsideTheLedger() throws Exception {
+                Product product = productRepository.save(new Product(null, 10, 4, "NORMAL", "Webcam", null, null, null));
+                compactor.compactAll();
+                Instant beforeOrders = Instant.now();
+                processOrders(product, 2);
+
+                jdbcTemplate.update("update products set available = 50 where id = ?", product.getId());
+
+                ProductStock drifted = replay.verify().stream()
+                                .filter(stock -> stock.productId().equals(product.getId()))
+                                .findFirst().orElseThrow();
+                assertEquals(48, drifted.drift());
+                mockMvc.perform(get("/actuator/stockledger/{productId}", product.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.available").value(50))
+                                .andExpect(jsonPath("$.derived").value(2));
+
+                replay.restore(product.getId(), Instant.now());
+                assertEquals(2, productRepository.findCurrentById(product.getId()).orElseThrow().getAvailable());
+
+                replay.restore(product.getId(), beforeOrders);
+                assertEquals(4, productRepository.findCurrentById(product.getId()).orElseThrow().getAvailable());
+                assertEquals(new ProductStock(product.getId(), 4, 4, true), replay.replay(product.getId(), null));
+                assertTrue(entriesOf(product).stream().anyMatch(entry -> entry.getDelta() == 2
+                                && entry.getReason() == StockLedgerEntry.Reason.RESTORE));
+        }
+
+        @Test
+        void shouldRefuseToReplayBeyondTheRetention() {
+                Product product = productRepository.save(new Product(null, 10, 4, "NORMAL", "Headset", null, null, null));
+
+                assertThrows(IllegalArgumentException.class,
+                                () -> replay.replay(product.getId(), Instant.now().minusSeconds(400L * 24 * 3600)));
+        }
+
+        private void processOrders(Product product, int count) {
+                for (int i = 0; i < count; i++) {
+                        orderService.processOrder(orderRepository.save(new Order(null, Set.of(product))).getId());
+                }
+        }
+
+        private List<StockLedgerEntry> entriesOf(Product... products) {
+                List<Long> ids = new ArrayList<>();
+                for (Product product : products) {
+                        ids.add(product.getId());
+                }
+                return ledgerRepository.findAll().stream().filter(entry -> ids.contains(entry.getProductId())).toList();
+        }
+}
@@ -0,0 +1,78 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "orders.limits.types.SEASONAL.max-concurrent=1",
+        "orders.limits.types.SEASONAL.rate-per-second=0.01",
+        "orders.limits.types.SEASONAL.burst=1"
+})
+@AutoConfigureMockMvc
+class ProductTypeLimitIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private ProductTypeLimiter limiter;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        void shouldThrottleSeasonalOrdersWithoutHoldingBackNormalOnes() throws Exception {
+                Long seasonalOrder = seasonalOrder();
+
+                ProductTypeLimiter.Permit inProgress = limiter.acquire(List.of("SEASONAL"));
+                try {
+                        mockMvc.perform(post(PROCESS_ORDER_URL, seasonalOrder))
+                                        .andExpect(status().isServiceUnavailable())
+                                        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+                } finally {
+                        inProgress.release();
+                }
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, seasonalOrder)).andExpect(status().isTooManyRequests())
+                                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                                .andExpect(jsonPath("$.message").value("Rate limit exceeded for SEASONAL products"));
+
+                Product normal = productRepository.save(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
+                Order normalOrder = orderRepository.save(new Order(null, Set.of(normal)));
+                mockMvc.perform(post(PROCESS_ORDER_URL, normalOrder.getId())).andExpect(status().isOk());
+        }
+
+        private Long seasonalOrder() {
+                LocalDate now = LocalDate.now();
+                Product grapes = productRepository.save(new Product(null, 15, 30, "SEASONAL", "Grapes", null,
+                                now.minusDays(2), now.plusDays(58)));
+                return orderRepository.save(new Order(null, Set.of(grapes))).getId();
+        }
+}
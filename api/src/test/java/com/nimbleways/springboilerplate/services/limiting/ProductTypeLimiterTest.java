@@ -0,0 +1,89 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import com.nimbleways.springboilerplate.exceptions.BulkheadFullException;
+import com.nimbleways.springboilerplate.exceptions.RateLimitExceededException;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class ProductTypeLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldRefuseOrdersOverTheConcurrencyLimitOfTheirType() {
+        ProductTypeLimiter limiter = limiter(Map.of("SEASONAL", limit(1, 0, null)));
+
+        ProductTypeLimiter.Permit first = limiter.acquire(List.of("SEASONAL", "NORMAL"));
+        BulkheadFullException rejected = assertThrows(BulkheadFullException.class,
+                () -> limiter.acquire(List.of("SEASONAL")));
+        limiter.acquire(List.of("NORMAL", "EXPIRABLE")).release();
+
+        assertEquals("SEASONAL", rejected.getProductType());
+        assertEquals(1.0, meterRegistry.get("orders.limiter.in.flight").tag("type", "SEASONAL").gauge().value());
+        first.release();
+        limiter.acquire(List.of("SEASONAL")).release();
+        assertEquals(1.0, meterRegistry.get("orders.limiter.rejected")
+                .tags("type", "SEASONAL", "limit", "bulkhead").counter().count());
+    }
+
+    @Test
+    void shouldChargeOneTokenPerItemAndTellWhenToRetry() {
+        ProductTypeLimiter limiter = limiter(Map.of("seasonal", limit(0, 2, 3)));
+
+        limiter.acquire(List.of("SEASONAL", "SEASONAL")).release();
+        RateLimitExceededException rejected = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire(List.of("SEASONAL", "SEASONAL")));
+
+        assertEquals(Duration.ofMillis(500), rejected.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("orders.limiter.tokens.available").tag("type", "SEASONAL").gauge().value());
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+        limiter.acquire(List.of("SEASONAL", "SEASONAL")).release();
+    }
+
+    @Test
+    void shouldGiveBackEverythingTakenWhenAnotherTypeRefusesTheOrder() {
+        ProductTypeLimiter limiter = limiter(Map.of(
+                "NORMAL", limit(1, 10, 1),
+                "SEASONAL", limit(0, 1, 1)));
+        limiter.acquire(List.of("SEASONAL")).release();
+
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(List.of("NORMAL", "SEASONAL")));
+
+        assertEquals(0.0, meterRegistry.get("orders.limiter.in.flight").tag("type", "NORMAL").gauge().value());
+        assertEquals(1.0, meterRegistry.get("orders.limiter.tokens.available").tag("type", "NORMAL").gauge().value());
+    }
+
+    @Test
+    void shouldNotLimitAnythingWithoutConfiguration() {
+        ProductTypeLimiter limiter = limiter(Map.of());
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.acquire(List.of("NORMAL", "SEASONAL", "EXPIRABLE"));
+        }
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    private ProductTypeLimiter limiter(Map<String, ProductTypeLimitProperties.Limit> limits) {
+        ProductTypeLimitProperties properties = new ProductTypeLimitProperties();
+        properties.setTypes(limits);
+        return new ProductTypeLimiter(properties, meterRegistry, clock::get);
+    }
+
+    private static ProductTypeLimitProperties.Limit limit(int maxConcurrent, double ratePerSecond, Integer burst) {
+        ProductTypeLimitProperties.Limit limit = new ProductTypeLimitProperties.Limit();
+        limit.setMaxConcurrent(maxConcurrent);
+        limit.setRatePerSecond(ratePerSecond);
+        limit.setBurst(burst);
+        return limit;
+    }
+}
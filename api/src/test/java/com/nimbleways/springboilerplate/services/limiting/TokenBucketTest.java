@@ -0,0 +1,60 @@
+package com.nimbleways.springboilerplate.services.limiting;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class TokenBucketTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shouldAdmitABurstThenRefillAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 3, clock::get);
+
+        assertTrue(bucket.tryAcquire(1));
+        assertTrue(bucket.tryAcquire(2));
+        assertFalse(bucket.tryAcquire(1));
+        assertEquals(100 * MILLI, bucket.nanosUntilAvailable(1));
+
+        clock.addAndGet(100 * MILLI);
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+    }
+
+    @Test
+    void shouldAdmitARequestLargerThanTheBucketOnlyWhenFull() {
+        TokenBucket bucket = new TokenBucket(10, 2, clock::get);
+
+        assertTrue(bucket.tryAcquire(5));
+        assertFalse(bucket.tryAcquire(5));
+        assertEquals(500 * MILLI, bucket.nanosUntilAvailable(5));
+
+        clock.addAndGet(500 * MILLI);
+        assertTrue(bucket.tryAcquire(5));
+    }
+
+    @Test
+    void shouldReturnRefundedTokens() {
+        TokenBucket bucket = new TokenBucket(10, 2, clock::get);
+        assertTrue(bucket.tryAcquire(2));
+        assertEquals(0.0, bucket.availableTokens());
+
+        bucket.refund(2);
+
+        assertEquals(2.0, bucket.availableTokens());
+        assertTrue(bucket.tryAcquire(2));
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, clock::get));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0, clock::get));
+    }
+}
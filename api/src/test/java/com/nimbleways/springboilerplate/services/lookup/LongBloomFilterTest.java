@@ -0,0 +1,54 @@
+package com.nimbleways.springboilerplate.services.lookup;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class LongBloomFilterTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void shouldContainEveryKeyAdded() {
+        LongBloomFilter filter = LongBloomFilter.forCapacity(KEYS, 0.01);
+
+        LongStream.rangeClosed(1, KEYS).forEach(filter::add);
+
+        assertTrue(LongStream.rangeClosed(1, KEYS).allMatch(filter::mightContain));
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearTheConfiguredProbabilityAtCapacity() {
+        LongBloomFilter filter = LongBloomFilter.forCapacity(KEYS, 0.01);
+        LongStream.rangeClosed(1, KEYS).forEach(filter::add);
+
+        long falsePositives = LongStream.rangeClosed(KEYS + 1, 2L * KEYS).filter(filter::mightContain).count();
+
+        double rate = (double) falsePositives / KEYS;
+        assertTrue(rate < 0.015, () -> "false positive rate " + rate);
+        assertEquals(0.01, filter.falsePositiveProbability(), 0.002);
+        // About 9.6 bits per key at 1%
+        assertEquals(KEYS * 9.6 / 8, filter.sizeInBytes(), KEYS * 0.1);
+    }
+
+    @Test
+    void shouldEstimateDistinctKeysWhateverTheDuplicates() {
+        LongBloomFilter filter = LongBloomFilter.forCapacity(KEYS, 0.01);
+
+        LongStream.rangeClosed(1, KEYS / 2).forEach(filter::add);
+        LongStream.rangeClosed(1, KEYS / 2).forEach(filter::add);
+
+        assertEquals(KEYS / 2, filter.estimatedKeys(), KEYS * 0.01);
+        assertFalse(LongBloomFilter.forCapacity(KEYS, 0.01).mightContain(1));
+    }
+
+    @Test
+    void shouldRefuseInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> LongBloomFilter.forCapacity(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> LongBloomFilter.forCapacity(KEYS, 1));
+    }
+}
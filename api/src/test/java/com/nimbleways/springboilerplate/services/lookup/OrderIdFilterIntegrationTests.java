@@ -0,0 +1,173 @@
+package com.nimbleways.springboilerplate.services.lookup;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "orders.id-filter.enabled=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "orders.id-filter.false-positive-probability=0.000001",
+        // Rounds are run by the tests
+        "orders.id-filter.refresh-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class OrderIdFilterIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private OrderIdFilter orderIdFilter;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Autowired
+        private DataSource dataSource;
+
+        @Test
+        void shouldAnswerMissingOrdersBelowTheWatermarkByPrimaryKeyAlone() throws Exception {
+                Long missing = new TransactionTemplate(transactionManager).execute(status -> {
+                        status.setRollbackOnly();
+                        return orderRepository.save(new Order(null, Set.of())).getId();
+                });
+                Long kept = orderRepository.save(new Order(null, Set.of())).getId();
+                // The first round only records the newest id, the second makes it the watermark
+                orderIdFilter.refresh();
+                orderIdFilter.refresh();
+                Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+                double absentBefore = lookups("absent");
+
+                statistics.clear();
+                mockMvc.perform(post(PROCESS_ORDER_URL, missing))
+                                .andExpect(status().isNotFound())
+                                .andExpect(jsonPath("$.message").value("Order not found: " + missing));
+                mockMvc.perform(get("/orders/{orderId}", missing)).andExpect(status().isNotFound());
+
+                // One primary key lookup each
+                assertEquals(2, statistics.getPrepareStatementCount());
+                assertEquals(absentBefore + 2, lookups("absent"));
+                assertEquals(OrderIdFilter.Lookup.MAYBE_PRESENT, orderIdFilter.lookup(kept));
+                mockMvc.perform(post(PROCESS_ORDER_URL, kept)).andExpect(status().isOk());
+                assertTrue(meterRegistry.get("orders.id.filter.memory").gauge().value() > 0);
+        }
+
+        @Test
+        void shouldLeaveOrdersAboveTheWatermarkToTheDatabaseUntilCovered() throws Exception {
+                orderIdFilter.refresh();
+                orderIdFilter.refresh();
+                Long created = orderRepository.save(new Order(null, Set.of())).getId();
+
+                assertEquals(OrderIdFilter.Lookup.NOT_COVERED, orderIdFilter.lookup(created));
+                mockMvc.perform(post(PROCESS_ORDER_URL, created)).andExpect(status().isOk());
+                mockMvc.perform(post(PROCESS_ORDER_URL, created + 1_000_000)).andExpect(status().isNotFound());
+
+                orderIdFilter.refresh();
+                assertEquals(OrderIdFilter.Lookup.NOT_COVERED, orderIdFilter.lookup(created));
+                orderIdFilter.refresh();
+                assertEquals(OrderIdFilter.Lookup.MAYBE_PRESENT, orderIdFilter.lookup(created));
+        }
+
+        @Test
+        void shouldCoverAnOrderInsertedHereAsSoonAsItCommits() throws Exception {
+                AtomicLong lateId = new AtomicLong();
+                CountDownLatch inserted = new CountDownLatch(1);
+                CountDownLatch commit = new CountDownLatch(1);
+                CompletableFuture<Void> late = CompletableFuture.runAsync(() ->
+                                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                                        lateId.set(orderRepository.save(new Order(null, Set.of())).getId());
+                                        inserted.countDown();
+                                        await(commit);
+                                }));
+                await(inserted);
+                Long newer = orderRepository.save(new Order(null, Set.of())).getId();
+                // Both rounds run while the late order is uncommitted, so neither scans it
+                orderIdFilter.refresh();
+                orderIdFilter.refresh();
+                assertEquals(OrderIdFilter.Lookup.MAYBE_PRESENT, orderIdFilter.lookup(newer));
+                assertEquals(OrderIdFilter.Lookup.ABSENT, orderIdFilter.lookup(lateId.get()));
+
+                commit.countDown();
+                late.get(10, TimeUnit.SECONDS);
+
+                assertEquals(OrderIdFilter.Lookup.MAYBE_PRESENT, orderIdFilter.lookup(lateId.get()));
+        }
+
+        @Test
+        void shouldCoverAnOrderCommittedBelowTheWatermarkAfterTwoRounds() throws Exception {
+                // An id handed out to a transaction still open when the newer ids below are scanned
+                Long late = new TransactionTemplate(transactionManager).execute(status -> {
+                        status.setRollbackOnly();
+                        return orderRepository.save(new Order(null, Set.of())).getId();
+                });
+                Long newer = orderRepository.save(new Order(null, Set.of())).getId();
+                orderIdFilter.refresh();
+                orderIdFilter.refresh();
+                assertEquals(OrderIdFilter.Lookup.MAYBE_PRESENT, orderIdFilter.lookup(newer));
+
+                new JdbcTemplate(dataSource).update("insert into orders (id) values (?)", late);
+                double falseNegativesBefore = meterRegistry.get("orders.id.filter.false.negatives").counter().count();
+
+                // Inserted behind the filter's back: flagged, but confirmed and processed all the same
+                assertEquals(OrderIdFilter.Lookup.ABSENT, orderIdFilter.lookup(late));
+                mockMvc.perform(post(PROCESS_ORDER_URL, late)).andExpect(status().isOk());
+                assertEquals(falseNegativesBefore + 1,
+                                meterRegistry.get("orders.id.filter.false.negatives").counter().count());
+                assertEquals(OrderIdFilter.Lookup.MAYBE_PRESENT, orderIdFilter.lookup(late));
+        }
+
+        private static void await(CountDownLatch latch) {
+                try {
+                        assertTrue(latch.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                }
+        }
+
+        private double lookups(String result) {
+                return meterRegistry.get("orders.id.filter.lookups").tag("result", result).counter().count();
+        }
+}
@@ -0,0 +1,110 @@
+package com.nimbleways.springboilerplate.services.notifications;
+
+import com.nimbleways.springboilerplate.entities.NotificationOutboxEvent;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.NotificationOutboxRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "notifications.delivery=outbox",
+        "notifications.outbox.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class NotificationOutboxIntegrationTests {
+
+        private static final String PROCESS_ORDER_URL = "/orders/{orderId}/process";
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        @Autowired
+        private NotificationOutboxRelay relay;
+
+        @Autowired
+        private NotificationOutboxRepository outboxRepository;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @BeforeEach
+        void clearOutbox() {
+                outboxRepository.deleteAll();
+        }
+
+        @Test
+        void shouldStoreNotificationsInOutboxInsteadOfSendingThem() throws Exception {
+                LocalDate expiryDate = LocalDate.now().minusDays(2);
+                Product delayed = productRepository.save(new Product(null, 15, 0, "NORMAL", "Mouse", null, null, null));
+                Product expired = productRepository.save(new Product(null, 90, 6, "EXPIRABLE", "Milk", expiryDate, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(delayed, expired)));
+
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())).andExpect(status().isOk());
+
+                verifyNoInteractions(notificationService);
+                List<NotificationOutboxEvent> events = outboxRepository.findAll();
+                assertEquals(2, events.size());
+                assertEquals(Set.of(NotificationOutboxEvent.Type.DELAY, NotificationOutboxEvent.Type.EXPIRATION),
+                                Set.of(events.get(0).getType(), events.get(1).getType()));
+        }
+
+        @Test
+        void shouldRelayOutboxEventsAndRemoveThem() throws Exception {
+                LocalDate expiryDate = LocalDate.now().minusDays(2);
+                Product delayed = productRepository.save(new Product(null, 15, 0, "NORMAL", "Mouse", null, null, null));
+                Product expired = productRepository.save(new Product(null, 90, 6, "EXPIRABLE", "Milk", expiryDate, null, null));
+                Product outOfSeason = productRepository.save(new Product(null, 15, 10, "SEASONAL", "Grapes", null,
+                                LocalDate.now().plusDays(30), LocalDate.now().plusDays(90)));
+                Order order = orderRepository.save(new Order(null, Set.of(delayed, expired, outOfSeason)));
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())).andExpect(status().isOk());
+
+                int relayed = relay.relayBatch();
+
+                assertEquals(3, relayed);
+                verify(notificationService, times(1)).sendDelayNotification(15, "Mouse");
+                verify(notificationService, times(1)).sendExpirationNotification("Milk", expiryDate);
+                verify(notificationService, times(1)).sendOutOfStockNotification("Grapes");
+                assertEquals(0, outboxRepository.count());
+        }
+
+        @Test
+        void shouldKeepEventInOutboxWhenDeliveryFails() throws Exception {
+                Product delayed = productRepository.save(new Product(null, 15, 0, "NORMAL", "Keyboard", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(delayed)));
+                mockMvc.perform(post(PROCESS_ORDER_URL, order.getId())).andExpect(status().isOk());
+                doThrow(new IllegalStateException("mail server down"))
+                                .doNothing()
+                                .when(notificationService).sendDelayNotification(15, "Keyboard");
+
+                assertEquals(0, relay.relayBatch());
+                assertEquals(1, outboxRepository.count());
+
+                relay.relayPending();
+                assertEquals(0, outboxRepository.count());
+                verify(notificationService, times(2)).sendDelayNotification(15, "Keyboard");
+        }
+}
@@ -0,0 +1,160 @@
+package com.nimbleways.springboilerplate.services.partitioning;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.OrderProcessingRequest;
+import com.nimbleways.springboilerplate.entities.ProcessingInstance;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderProcessingRequestRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.PartitionLeaseRepository;
+import com.nimbleways.springboilerplate.repositories.ProcessingInstanceRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several application instances in this JVM against one H2 file database, the same way separate replicas
+ * share the production database, and checks that queued orders are spread over them and processed exactly once.
+ */
+class PartitionedOrderProcessingIntegrationTests {
+
+        private static final Path DATABASE_DIR = Path.of("target", "partitioning-it");
+        private static final int INSTANCES = 3;
+        private static final int PARTITIONS = 8;
+        private static final int ORDERS = 40;
+        private static final int INITIAL_STOCK = 10;
+
+        private static final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+        @BeforeAll
+        static void startInstances() throws Exception {
+                FileSystemUtils.deleteRecursively(DATABASE_DIR);
+                String url = "jdbc:h2:file:" + DATABASE_DIR.toAbsolutePath().resolve("orders") + ";DB_CLOSE_ON_EXIT=FALSE";
+                for (int i = 1; i <= INSTANCES; i++) {
+                        instances.add(new SpringApplicationBuilder(Application.class)
+                                        .web(WebApplicationType.NONE)
+                                        .properties(
+                                                        "spring.datasource.url=" + url,
+                                                        "spring.jmx.enabled=false",
+                                                        "orders.partitioning.enabled=true",
+                                                        "orders.partitioning.instance-id=instance-" + i,
+                                                        "orders.partitioning.partitions=" + PARTITIONS,
+                                                        "orders.partitioning.lease-duration-ms=3000",
+                                                        "orders.partitioning.poll-interval-ms=100")
+                                        .run());
+                }
+        }
+
+        @AfterAll
+        static void stopInstances() {
+                instances.forEach(ConfigurableApplicationContext::close);
+                instances.clear();
+        }
+
+        @Test
+        void shouldProcessEachQueuedOrderExactlyOnceAcrossInstances() {
+                awaitTrue(() -> instances.stream().allMatch(
+                                context -> !context.getBean(PartitionLeaseManager.class).getOwnedPartitions().isEmpty()));
+                assertPartitionsOwnedExactlyOnce();
+
+                ConfigurableApplicationContext first = instances.get(0);
+                ProductRepository productRepository = first.getBean(ProductRepository.class);
+                OrderRepository orderRepository = first.getBean(OrderRepository.class);
+                List<Long> productIds = new ArrayList<>();
+                for (int i = 0; i < ORDERS; i++) {
+                        Product product = productRepository.save(
+                                        new Product(null, 5, INITIAL_STOCK, "NORMAL", "Cable " + i, null, null, null));
+                        Order order = orderRepository.save(new Order(null, Set.of(product)));
+                        productIds.add(product.getId());
+                        // spread the enqueue calls too: any instance can accept an order for any partition
+                        instances.get(i % INSTANCES).getBean(OrderProcessingQueue.class).enqueue(order.getId());
+                }
+
+                OrderProcessingRequestRepository requestRepository = first.getBean(OrderProcessingRequestRepository.class);
+                awaitTrue(() -> requestRepository.findAll().stream()
+                                .allMatch(request -> request.getStatus() == OrderProcessingRequest.Status.DONE));
+
+                for (Long productId : productIds) {
+                        assertEquals(INITIAL_STOCK - 1, productRepository.findById(productId).orElseThrow().getAvailable());
+                }
+                Set<String> workers = requestRepository.findAll().stream()
+                                .map(OrderProcessingRequest::getClaimedBy)
+                                .collect(Collectors.toSet());
+                assertTrue(workers.size() > 1, "orders should be processed by several instances, got " + workers);
+        }
+
+        @Test
+        void shouldStopHoldingAPartitionTakenOverAfterTheLeaseExpired() {
+                awaitTrue(() -> !instances.get(0).getBean(PartitionLeaseManager.class).getOwnedPartitions().isEmpty());
+                PartitionLeaseManager leaseManager = instances.get(0).getBean(PartitionLeaseManager.class);
+                PartitionLeaseRepository leaseRepository = instances.get(0).getBean(PartitionLeaseRepository.class);
+                TransactionTemplate transaction = new TransactionTemplate(
+                                instances.get(0).getBean(PlatformTransactionManager.class));
+                int partition = leaseManager.getOwnedPartitions().get(0);
+                assertTrue(leaseManager.holds(partition));
+
+                // As if this instance had stalled past its lease and another one had picked the partition up
+                transaction.executeWithoutResult(status -> {
+                        assertEquals(1, leaseRepository.release(partition, leaseManager.getInstanceId()));
+                        assertEquals(1, leaseRepository.tryAcquire(partition, "instance-elsewhere", Instant.now(),
+                                        Instant.now().plusSeconds(60)));
+                });
+                try {
+                        leaseManager.heartbeat();
+
+                        assertFalse(leaseManager.holds(partition));
+                        assertFalse(leaseManager.getOwnedPartitions().contains(partition));
+                } finally {
+                        transaction.executeWithoutResult(status -> leaseRepository.release(partition, "instance-elsewhere"));
+                }
+        }
+
+        @Test
+        void shouldDeleteInstancesThatStoppedHeartbeating() {
+                ProcessingInstanceRepository instanceRepository = instances.get(0).getBean(ProcessingInstanceRepository.class);
+                instanceRepository.save(new ProcessingInstance("instance-gone", Instant.now().minus(Duration.ofHours(1))));
+
+                awaitTrue(() -> !instanceRepository.existsById("instance-gone"));
+                assertTrue(instanceRepository.existsById("instance-1"));
+        }
+
+        private static void assertPartitionsOwnedExactlyOnce() {
+                List<Integer> owned = instances.stream()
+                                .flatMap(context -> context.getBean(PartitionLeaseManager.class).getOwnedPartitions().stream())
+                                .toList();
+                assertEquals(owned.size(), new HashSet<>(owned).size(), "a partition is leased twice: " + owned);
+        }
+
+        private static void awaitTrue(BooleanSupplier condition) {
+                Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+                while (!condition.getAsBoolean()) {
+                        assertTrue(Instant.now().isBefore(deadline), "condition not met within 30s");
+                        try {
+                                Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                fail(e);
+                        }
+                }
+        }
+}
@@ -0,0 +1,171 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import com.nimbleways.springboilerplate.exceptions.OrderQueueFullException;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class OrderSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldHandFreedSlotsToWaitingPrioritiesByWeight() throws Exception {
+        OrderScheduler scheduler = scheduler(1, priority(8, 100, Duration.ofSeconds(10)),
+                priority(1, 100, Duration.ofSeconds(10)));
+        CountDownLatch holding = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> scheduler.execute(OrderPriority.STANDARD, () -> await(holding)));
+        awaitInFlight(scheduler, 1);
+
+        List<OrderPriority> served = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> waiting = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            for (OrderPriority priority : List.of(OrderPriority.BACKFILL, OrderPriority.EXPRESS)) {
+                waiting.add(executor.submit(() -> scheduler.execute(priority, () -> served.add(priority))));
+            }
+        }
+        awaitQueued(scheduler, OrderPriority.EXPRESS, 9);
+        awaitQueued(scheduler, OrderPriority.BACKFILL, 9);
+        holding.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        for (Future<?> future : waiting) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(8, Collections.frequency(served.subList(0, 9), OrderPriority.EXPRESS));
+        assertEquals(8, Collections.frequency(served.subList(9, 18), OrderPriority.BACKFILL));
+        assertEquals(9, meterRegistry.get("orders.scheduler.queue.wait").tag("priority", "backfill").timer().count());
+        assertEquals(9, meterRegistry.get("orders.scheduler.processing").tag("priority", "express").timer().count());
+        assertEquals(0, scheduler.inFlight());
+    }
+
+    @Test
+    void shouldRefuseOrdersOverTheQueueLengthOrTheWait() throws Exception {
+        OrderScheduler scheduler = scheduler(1, priority(1, 0, Duration.ofSeconds(10)),
+                priority(1, 10, Duration.ofMillis(50)));
+        CountDownLatch holding = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> scheduler.execute(OrderPriority.STANDARD, () -> await(holding)));
+        awaitInFlight(scheduler, 1);
+
+        OrderQueueFullException full = assertThrows(OrderQueueFullException.class,
+                () -> scheduler.execute(OrderPriority.EXPRESS, () -> "processed"));
+        OrderQueueFullException timedOut = assertThrows(OrderQueueFullException.class,
+                () -> scheduler.execute(OrderPriority.BACKFILL, () -> "processed"));
+        holding.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        assertEquals(Duration.ofSeconds(1), full.getRetryAfter());
+        assertNull(full.getProductType());
+        assertTrue(timedOut.getMessage().contains("waited longer than"));
+        assertEquals(0, scheduler.queued(OrderPriority.BACKFILL));
+        assertEquals("processed", scheduler.execute(OrderPriority.EXPRESS, () -> "processed"));
+        assertEquals(1.0, meterRegistry.get("orders.scheduler.rejected")
+                .tags("priority", "express", "reason", "queue.full").counter().count());
+        assertEquals(1.0, meterRegistry.get("orders.scheduler.rejected")
+                .tags("priority", "backfill", "reason", "timeout").counter().count());
+    }
+
+    @Test
+    void shouldBoundQueuesToTheAdaptiveLimitAndAdjustItFromCompletedOrders() throws Exception {
+        OrderScheduler scheduler = adaptiveScheduler(2, 0.5);
+        CountDownLatch holding = new CountDownLatch(1);
+        List<Future<?>> holders = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            holders.add(executor.submit(() -> scheduler.execute(OrderPriority.STANDARD, () -> await(holding))));
+        }
+        awaitInFlight(scheduler, 2);
+        Future<?> waiting = executor.submit(() -> scheduler.execute(OrderPriority.EXPRESS, () -> "processed"));
+        awaitQueued(scheduler, OrderPriority.EXPRESS, 1);
+
+        // 100 allowed in the lane, but only half the limit while adaptive
+        assertThrows(OrderQueueFullException.class, () -> scheduler.execute(OrderPriority.EXPRESS, () -> "processed"));
+        assertEquals(2.0, meterRegistry.get("orders.scheduler.limit").gauge().value());
+        holding.countDown();
+        for (Future<?> holder : holders) {
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        waiting.get(5, TimeUnit.SECONDS);
+
+        // Saturated without any latency increase: room to grow
+        assertTrue(scheduler.limit() > 2);
+        assertEquals(0, scheduler.inFlight());
+    }
+
+    @Test
+    void shouldRejectUnknownPriorities() {
+        assertEquals(OrderPriority.BACKFILL, OrderPriority.parse(" backfill"));
+        assertThrows(IllegalArgumentException.class, () -> OrderPriority.parse("urgent"));
+    }
+
+    private OrderScheduler scheduler(int maxConcurrent, OrderSchedulerProperties.PriorityClass express,
+            OrderSchedulerProperties.PriorityClass backfill) {
+        OrderSchedulerProperties properties = new OrderSchedulerProperties();
+        properties.setMaxConcurrent(maxConcurrent);
+        properties.getPriorities().put(OrderPriority.EXPRESS, express);
+        properties.getPriorities().put(OrderPriority.BACKFILL, backfill);
+        return new OrderScheduler(properties, meterRegistry);
+    }
+
+    private OrderScheduler adaptiveScheduler(int initialLimit, double queueFactor) {
+        OrderSchedulerProperties properties = new OrderSchedulerProperties();
+        properties.setMaxConcurrent(initialLimit);
+        properties.getLimit().setAlgorithm(OrderSchedulerProperties.LimitAlgorithm.VEGAS);
+        properties.getLimit().setQueueFactor(queueFactor);
+        properties.getPriorities().put(OrderPriority.EXPRESS, priority(1, 100, Duration.ofSeconds(10)));
+        return new OrderScheduler(properties, meterRegistry);
+    }
+
+    private static OrderSchedulerProperties.PriorityClass priority(int weight, int maxQueued, Duration maxWait) {
+        OrderSchedulerProperties.PriorityClass priority = new OrderSchedulerProperties.PriorityClass();
+        priority.setWeight(weight);
+        priority.setMaxQueued(maxQueued);
+        priority.setMaxWait(maxWait);
+        return priority;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitInFlight(OrderScheduler scheduler, int inFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.inFlight() < inFlight && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(inFlight, scheduler.inFlight());
+    }
+
+    private static void awaitQueued(OrderScheduler scheduler, OrderPriority priority, int queued)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.queued(priority) < queued && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(queued, scheduler.queued(priority));
+    }
+}
@@ -0,0 +1,179 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the limit with a simulated database under more demand than it can serve, and shows where it settles as the
+ * database changes: its capacity in concurrent queries, then latency injected into each query.
+ */
+@UnitTest
+class VegasLimitTest {
+
+    /**
+     * {@code capacity} queries served at once in {@code latency}; beyond that the database is shared, each of the
+     * {@code n} orders in flight progressing at {@code capacity / n} of the speed. Always saturated: a slot freed is
+     * taken at once. Orders in flight when a probe starts are carried over and finish at the load they were run under.
+     */
+    private static final class SimulatedDatabase {
+
+        private static final class InFlight {
+            private final long admittedAt;
+            private final long epoch;
+            private double remainingNanos;
+
+            private InFlight(long admittedAt, long epoch, double workNanos) {
+                this.admittedAt = admittedAt;
+                this.epoch = epoch;
+                this.remainingNanos = workNanos;
+            }
+        }
+
+        private final Random random = new Random(42);
+        private final List<InFlight> inFlight = new ArrayList<>();
+        private int capacity;
+        private long latencyNanos;
+        private long now;
+
+        private SimulatedDatabase(int capacity, Duration latency) {
+            this.capacity = capacity;
+            this.latencyNanos = latency.toNanos();
+        }
+
+        /**
+         * Runs the limit for {@code duration} of simulated time.
+         *
+         * @return the limit after each order completed
+         */
+        private List<Integer> run(VegasLimit limit, Duration duration) {
+            List<Integer> limits = new ArrayList<>();
+            long end = now + duration.toNanos();
+            while (now < end) {
+                while (inFlight.size() < limit.current()) {
+                    double jitter = 0.9 + 0.2 * random.nextDouble();
+                    inFlight.add(new InFlight(now, limit.epoch(), latencyNanos * jitter));
+                }
+                double speed = Math.min(1.0, (double) capacity / inFlight.size());
+                InFlight completed = inFlight.stream()
+                        .min(Comparator.comparingDouble(order -> order.remainingNanos))
+                        .orElseThrow();
+                double elapsed = completed.remainingNanos / speed;
+                inFlight.forEach(order -> order.remainingNanos -= elapsed * speed);
+                inFlight.remove(completed);
+                now += Math.max(1, (long) elapsed);
+                limit.onSample(now - completed.admittedAt, inFlight.size() + 1, completed.epoch, now);
+                limits.add(limit.current());
+            }
+            return limits;
+        }
+    }
+
+    @Test
+    void shouldSettleAFewOrdersAboveWhatTheDatabaseServesAtOnce() {
+        SimulatedDatabase database = new SimulatedDatabase(20, Duration.ofMillis(5));
+        VegasLimit limit = new VegasLimit(4, settings(), database.now);
+
+        int baseline = median(tail(database.run(limit, Duration.ofSeconds(30))));
+        database.capacity = 10;
+        int heavierMix = median(tail(database.run(limit, Duration.ofSeconds(30))));
+        database.capacity = 40;
+        int lighterMix = median(tail(database.run(limit, Duration.ofSeconds(30))));
+
+        // Orders admitted as the limit grows only show the added load once they complete, so it overshoots and settles
+        // back: the median is at or a few orders above the capacity
+        assertTrue(baseline >= 20 && baseline <= 30, () -> "baseline " + baseline);
+        assertTrue(heavierMix >= 10 && heavierMix <= 20, () -> "heavier mix " + heavierMix);
+        assertTrue(lighterMix >= 40 && lighterMix <= 52, () -> "lighter mix " + lighterMix);
+    }
+
+    @Test
+    void shouldBackOffWhenLatencyIsInjectedThenRecoverAfterTheNextProbe() {
+        SimulatedDatabase database = new SimulatedDatabase(20, Duration.ofMillis(5));
+        OrderSchedulerProperties.Limit settings = settings();
+        // Probes at 20s and 40s: latency is injected at 30s, halfway between
+        settings.setProbeInterval(Duration.ofSeconds(20));
+        VegasLimit limit = new VegasLimit(4, settings, database.now);
+        int baseline = median(tail(database.run(limit, Duration.ofSeconds(30))));
+
+        database.latencyNanos = TimeUnit.MILLISECONDS.toNanos(20);
+        // Until the next probe the old baseline makes every order look queued
+        int injected = median(database.run(limit, Duration.ofSeconds(5)));
+        int recovered = median(tail(database.run(limit, Duration.ofSeconds(30))));
+
+        assertTrue(baseline > 20 && baseline <= 30, () -> "baseline " + baseline);
+        assertTrue(injected < 20, () -> "with latency injected " + injected);
+        assertTrue(recovered > 20 && recovered <= 30, () -> "recovered " + recovered);
+    }
+
+    @Test
+    void shouldTakeTheProbeBaselineOnlyFromOrdersAdmittedOnceDrained() {
+        OrderSchedulerProperties.Limit settings = settings();
+        settings.setProbeInterval(Duration.ofSeconds(1));
+        settings.setProbeSamples(2);
+        long fast = TimeUnit.MILLISECONDS.toNanos(5);
+        long loaded = TimeUnit.MILLISECONDS.toNanos(10);
+        VegasLimit limit = new VegasLimit(20, settings, 0);
+        limit.onSample(fast, 20, limit.epoch(), 1);
+        int beforeProbe = limit.current();
+        long admittedBefore = limit.epoch();
+
+        // Starts the probe
+        limit.onSample(loaded, 20, admittedBefore, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2, limit.current());
+        // Orders admitted under the full limit still complete: not probe samples
+        for (int i = 0; i < 18; i++) {
+            limit.onSample(loaded, 20 - i, admittedBefore, TimeUnit.SECONDS.toNanos(1) + i);
+        }
+        assertEquals(2, limit.current());
+        limit.onSample(fast, 2, limit.epoch(), TimeUnit.SECONDS.toNanos(2));
+        limit.onSample(fast, 2, limit.epoch(), TimeUnit.SECONDS.toNanos(2) + 1);
+        assertEquals(beforeProbe, limit.current());
+
+        // Against the 5ms baseline, 10ms under the full limit means half of it is queued
+        limit.onSample(loaded, beforeProbe, limit.epoch(), TimeUnit.SECONDS.toNanos(2) + 2);
+        assertTrue(limit.current() < beforeProbe, () -> "limit " + limit.current());
+    }
+
+    @Test
+    void shouldNotGrowWhileTheLimitIsNotUsed() {
+        VegasLimit limit = new VegasLimit(8, settings(), 0);
+
+        for (int i = 1; i <= 1000; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(5), 2, limit.epoch(), i * TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        assertEquals(8, limit.current());
+        assertThrows(IllegalArgumentException.class, () -> new VegasLimit(8, limits(0, 64), 0));
+    }
+
+    private static OrderSchedulerProperties.Limit settings() {
+        return limits(2, 64);
+    }
+
+    private static OrderSchedulerProperties.Limit limits(int min, int max) {
+        OrderSchedulerProperties.Limit limit = new OrderSchedulerProperties.Limit();
+        limit.setAlgorithm(OrderSchedulerProperties.LimitAlgorithm.VEGAS);
+        limit.setMin(min);
+        limit.setMax(max);
+        return limit;
+    }
+
+    // The last third, once settled
+    private static List<Integer> tail(List<Integer> limits) {
+        return limits.subList(limits.size() * 2 / 3, limits.size());
+    }
+
+    // Probes drop the limit to its minimum for a few samples: the median ignores them
+    private static int median(List<Integer> limits) {
+        return limits.stream().sorted().toList().get(limits.size() / 2);
+    }
+}
@@ -0,0 +1,70 @@
+package com.nimbleways.springboilerplate.services.scheduling;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@UnitTest
+class WeightedFairQueueTest {
+
+    @Test
+    void shouldServeBusyPrioritiesInProportionToTheirWeights() {
+        WeightedFairQueue<OrderPriority> queue = new WeightedFairQueue<>(
+                Map.of(OrderPriority.EXPRESS, 8, OrderPriority.STANDARD, 4, OrderPriority.BACKFILL, 1));
+        for (int i = 0; i < 200; i++) {
+            for (OrderPriority priority : OrderPriority.values()) {
+                queue.add(priority, priority);
+            }
+        }
+
+        Map<OrderPriority, Integer> served = new EnumMap<>(OrderPriority.class);
+        for (int i = 0; i < 130; i++) {
+            served.merge(queue.poll(), 1, Integer::sum);
+        }
+
+        assertEquals(Map.of(OrderPriority.EXPRESS, 80, OrderPriority.STANDARD, 40, OrderPriority.BACKFILL, 10), served);
+    }
+
+    @Test
+    void shouldGiveAPriorityNoCreditForTheTimeItWasIdle() {
+        WeightedFairQueue<OrderPriority> queue = new WeightedFairQueue<>(Map.of());
+        for (int i = 0; i < 100; i++) {
+            queue.add(OrderPriority.BACKFILL, OrderPriority.BACKFILL);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(OrderPriority.BACKFILL, queue.poll());
+        }
+
+        for (int i = 0; i < 10; i++) {
+            queue.add(OrderPriority.EXPRESS, OrderPriority.EXPRESS);
+        }
+        List<OrderPriority> next = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            next.add(queue.poll());
+        }
+
+        // Equal weights: about every other one, not the 10 in a row that 50 polls of credit would give
+        int express = Collections.frequency(next, OrderPriority.EXPRESS);
+        assertTrue(express >= 5 && express <= 6, () -> next.toString());
+    }
+
+    @Test
+    void shouldRemoveAWaitingElementAndReportEmptiness() {
+        WeightedFairQueue<String> queue = new WeightedFairQueue<>(Map.of());
+        queue.add(OrderPriority.STANDARD, "a");
+
+        assertFalse(queue.remove(OrderPriority.EXPRESS, "a"));
+        assertTrue(queue.remove(OrderPriority.STANDARD, "a"));
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertThrows(IllegalArgumentException.class,
+                () -> new WeightedFairQueue<String>(Map.of(OrderPriority.EXPRESS, 0)));
+    }
+}